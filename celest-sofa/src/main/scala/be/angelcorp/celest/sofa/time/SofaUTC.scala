@@ -5,15 +5,25 @@ import javax.inject.Inject
 import be.angelcorp.celest.sofa.time.SofaEpoch.SofaEpochBuilder
 import be.angelcorp.celest.time.Epoch
 import be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.{TAI, TT}
-import be.angelcorp.celest.time.timeStandard.{TimeStandard, UTCTime}
+import be.angelcorp.celest.time.timeStandard.{LeapSecondTable, TimeStandard, UTCTime}
 import be.angelcorp.sofa.SofaLibrary
 
 /**
  * Sofa representation of Coordinated Universal Time (UTC).
  *
+ * The conversions use the leap seconds built into the SOFA library, the table of leap seconds is exposed to the users
+ * of [[be.angelcorp.celest.time.timeStandard.UTCTime#leapSeconds]] (for example the calendar dates and UT1 tables), and
+ * should match the SOFA release.
+ *
+ * @param tt          Terrestrial time.
+ * @param tai         International atomic time.
+ * @param leapSeconds Table of TAI - UTC.
  * @see [[be.angelcorp.celest.time.timeStandard.UTCTime]]
  */
-class SofaUTC@Inject()(@TT val tt: TimeStandard, @TAI val tai: SofaTAI) extends UTCTime(tai) {
+class SofaUTC@Inject()(@TT val tt: TimeStandard, @TAI val tai: SofaTAI, leapSeconds: LeapSecondTable) extends UTCTime(tai, leapSeconds) {
+
+  /** Create UTC using the built-in table of leap seconds. */
+  def this(tt: TimeStandard, tai: SofaTAI) = this(tt, tai, LeapSecondTable.builtin)
 
   /** Convert a UTC epoch to TT (note does not use the embedded TimeStandard). */
   def toTT( utc: SofaEpoch ) = {
@@ -42,4 +52,10 @@ class SofaUTC@Inject()(@TT val tt: TimeStandard, @TAI val tai: SofaTAI) extends
     utc relativeToS tt
   }
 
+  override def offsetToTT(jd1: Double, jd2: Double): Double =
+    offsetToTT(new SofaEpoch(jd1, jd2, this)(this.tt))
+
+  override def offsetFromTT(jd1: Double, jd2: Double): Double =
+    offsetFromTT(new SofaEpoch(jd1, jd2, this.tt)(this.tt))
+
 }
@@ -3,7 +3,7 @@ package be.angelcorp.celest.sofa.universe
 import javax.inject.Singleton
 
 import be.angelcorp.celest.sofa.time._
-import be.angelcorp.celest.time.timeStandard.TimeStandard
+import be.angelcorp.celest.time.timeStandard.{LeapSecondTable, TimeStandard}
 import be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations._
 import be.angelcorp.celest.universe.UniverseBuilder
 import net.codingwell.scalaguice.ScalaModule
@@ -16,8 +16,18 @@ trait SofaTime extends UniverseBuilder {
 
 object SofaTime {
   
-  def timeStandards = new ScalaModule {
+  /** Time standards using the built-in table of leap seconds. */
+  def timeStandards: ScalaModule = timeStandards(LeapSecondTable.builtin)
+
+  /**
+   * Time standards using the given table of leap seconds.
+   *
+   * @param leapSeconds Table of TAI - UTC used by UTC.
+   */
+  def timeStandards(leapSeconds: LeapSecondTable): ScalaModule = new ScalaModule {
     override def configure() {
+      bind[LeapSecondTable].toInstance(leapSeconds)
+
       bind[SofaTT].in[Singleton]
       bind[SofaTT].annotatedWith[TT].to[SofaTT]
       bind[TimeStandard].annotatedWith[TT ].to[SofaTT ]
@@ -1,5 +1,6 @@
 package be.angelcorp.celest.sofa.time
 
+import be.angelcorp.celest.time.timeStandard.LeapSecondTable
 import org.scalatest.{FlatSpec, Matchers}
 
 class TestSofaUTC extends FlatSpec with Matchers {
@@ -38,4 +39,13 @@ class TestSofaUTC extends FlatSpec with Matchers {
     epoch_tai2.dj2 should be (0.8924826384444444444 +- 1e-12)
   }
 
-}
\ No newline at end of file
+  it should "use the injected table of leap seconds" in {
+    val tt  = new SofaTT
+    val tai = new SofaTAI(tt)
+    val leapSeconds = LeapSecondTable(LeapSecondTable.builtin.rows.take(10))
+
+    new SofaUTC(tt, tai, leapSeconds).leapSeconds should be theSameInstanceAs leapSeconds
+    new SofaUTC(tt, tai).leapSeconds should be theSameInstanceAs LeapSecondTable.builtin
+  }
+
+}
@@ -0,0 +1,124 @@
+package be.angelcorp.celest.data.eop
+
+import be.angelcorp.celest.time.Epoch
+import be.angelcorp.celest.physics.Units
+import be.angelcorp.celest.time.dateStandard.DateStandards
+import be.angelcorp.celest.time.timeStandard.{UT1DateOutOfBounds, LeapSecondTable}
+
+/**
+ * Columnar table of daily UT1 - UTC values.
+ *
+ * The values are stored in a single array, indexed by the (integer) UTC MJD of the day, so that the nodes around an
+ * epoch are found in constant time. UT1 - UTC is interpolated using a Lagrange polynomial through the nearest nodes.
+ *
+ * UT1 - UTC jumps by one second at each leap second, so a plain interpolation over a leap second is wrong. Instead,
+ * the node values are shifted to the TAI - UTC of the interpolated epoch before interpolating (which is equivalent to
+ * interpolating the continuous UT1 - TAI). On a node the tabulated value is returned exactly.
+ *
+ * @param firstMjd    UTC MJD of the first value in the table.
+ * @param values      Daily UT1 - UTC values, starting at firstMjd (NaN for missing days) [s].
+ * @param leapSeconds Table of TAI - UTC used to correct for the leap seconds.
+ * @param order       Number of nodes used in the Lagrange interpolation.
+ */
+class UT1Table(val firstMjd: Int, values: Array[Double], leapSeconds: LeapSecondTable, val order: Int = 4) extends UT1Provider {
+  require(order >= 1, "The interpolation order must be at least one")
+
+  /** Julian date of MJD 0 */
+  private val mjd0 = DateStandards.MJD.toJD(0)
+
+  /** TAI - UTC on each of the nodes [s] */
+  private val taiUtc = Array.tabulate(values.length)(i => leapSeconds.taiMinusUtc(mjd0 + firstMjd + i))
+
+  /** Number of nodes used in the interpolation */
+  private val nodes = math.min(order, values.length)
+
+  /** Number of days in the table. */
+  def size = values.length
+
+  /** UTC MJD of the last value in the table. */
+  def lastMjd = firstMjd + values.length - 1
+
+  /** Range of UTC MJD dates covered by the table. */
+  def epochRange = (firstMjd.toDouble, lastMjd.toDouble)
+
+  /**
+   * Check if the table covers the given date.
+   *
+   * @param jd_utc Julian date in UTC.
+   */
+  def covers(jd_utc: Double) = {
+    val mjd = jd_utc - mjd0
+    mjd >= firstMjd && mjd <= lastMjd
+  }
+
+  override def UT1_UTC(jd_utc: Epoch) = ut1MinusUtc(jd_utc.jd)
+
+  /**
+   * Interpolate UT1 - UTC on the given date.
+   *
+   * @param jd_utc Julian date in UTC.
+   * @return UT1 - UTC [s].
+   */
+  def ut1MinusUtc(jd_utc: Double): Double = {
+    if (!covers(jd_utc)) throw new UT1DateOutOfBounds(msg = s"No UT1-UTC data for UTC JD $jd_utc in the table")
+    val x = jd_utc - mjd0 - firstMjd
+    val start = math.max(0, math.min(values.length - nodes, math.floor(x).toInt - (nodes - 1) / 2))
+    val taiUtc_jd = leapSeconds.taiMinusUtc(jd_utc)
+
+    var result = 0.0
+    var i = 0
+    while (i < nodes) {
+      val node = values(start + i)
+      if (node.isNaN) throw new UT1DateOutOfBounds(msg = s"Missing UT1-UTC data for MJD ${firstMjd + start + i}")
+      var weight = 1.0
+      var j = 0
+      while (j < nodes) {
+        if (j != i) weight *= (x - (start + j)) / (i - j)
+        j += 1
+      }
+      // Shift the node to the leap seconds of the interpolated epoch
+      result += weight * (node + (taiUtc_jd - taiUtc(start + i)))
+      i += 1
+    }
+    result
+  }
+
+  /**
+   * Find UT1 - UTC for a date in UT1 (the inverse of [[be.angelcorp.celest.data.eop.UT1Table#ut1MinusUtc]]).
+   *
+   * UT1 - UTC varies by at most a few ms per day, so two corrections of the UT1 date converge to well below a
+   * nanosecond. A third correction resolves the UTC date near a leap second.
+   *
+   * @param jd_ut1 Julian date in UT1.
+   * @return UT1 - UTC [s] at the UTC date corresponding to the given UT1 date.
+   */
+  def ut1MinusUtcInverse(jd_ut1: Double): Double = {
+    var offset = ut1MinusUtc(clamp(jd_ut1))
+    offset = ut1MinusUtc(clamp(jd_ut1 - offset / Units.julianDay))
+    ut1MinusUtc(clamp(jd_ut1 - offset / Units.julianDay))
+  }
+
+  /** Limit a date to the range of the table */
+  private def clamp(jd_utc: Double) = math.max(mjd0 + firstMjd, math.min(mjd0 + lastMjd, jd_utc))
+
+}
+
+object UT1Table {
+
+  /**
+   * Create a table from the UT1 - UTC values in a set of Earth orientation data entries.
+   *
+   * @param entries     Earth orientation data entries, in any order (missing days are allowed).
+   * @param leapSeconds Table of TAI - UTC used to correct for the leap seconds.
+   * @param order       Number of nodes used in the Lagrange interpolation.
+   */
+  def apply(entries: Iterable[EarthOrientationDataEntry], leapSeconds: LeapSecondTable, order: Int = 4): UT1Table = {
+    require(entries.nonEmpty, "Cannot create a UT1-UTC table without any entries")
+    val first = entries.map(_.mjd).min
+    val last = entries.map(_.mjd).max
+    val values = Array.fill(last - first + 1)(Double.NaN)
+    entries.foreach(entry => values(entry.mjd - first) = entry.ut1_utc)
+    new UT1Table(first, values, leapSeconds, order)
+  }
+
+}
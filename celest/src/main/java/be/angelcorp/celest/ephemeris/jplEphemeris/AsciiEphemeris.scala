@@ -32,8 +32,8 @@ class AsciiEphemeris[F <: ReferenceSystem](val metadata: Metadata, private val r
   def records = recordsList.iterator
 
   def addRecords(newRecords: Seq[DataRecord]) = {
-    val existingRecords = recordsList.map(_.begin)
-    val filteredRecords = newRecords.filterNot(entry => existingRecords.exists(_ == entry.begin))
+    val existingRecords = recordsList.map(_.buffer.get(0)).toSet
+    val filteredRecords = newRecords.filterNot(entry => existingRecords.contains(entry.buffer.get(0)))
     recordsList ++= filteredRecords
   }
 
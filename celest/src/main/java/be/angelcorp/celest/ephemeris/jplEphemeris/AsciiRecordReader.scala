@@ -0,0 +1,194 @@
+package be.angelcorp.celest.ephemeris.jplEphemeris
+
+import java.io.Reader
+import java.util.InputMismatchException
+import be.angelcorp.celest.universe.Universe
+
+/**
+ * Streaming reader for the data records of an ascii JPL ephemeris data file (eg ascp2000.405).
+ *
+ * Contrary to [[be.angelcorp.celest.ephemeris.jplEphemeris.AsciiParser]], the records are read one at a time, so a
+ * data file never needs to be fully loaded in memory. Each record in the file has the following layout:
+ *
+ * {{{
+ *      1  1018
+ *   0.244048850000000000D+07  0.244052050000000000D+07 -0.197107339708233100D+08
+ *   ...
+ * }}}
+ *
+ * The first line holds the record number and the number of coefficients, followed by the coefficients in lines of
+ * three values (the last line is padded with zeros).
+ *
+ * @param input         Reader of the ascii data file.
+ * @param recordEntries Number of double entries per data record.
+ */
+class AsciiRecordReader(input: Reader, val recordEntries: Int) {
+
+  private val tokenizer = new AsciiTokenizer(input)
+
+  /** Number of the last record that was read (as listed in the data file). */
+  var recordNumber = 0
+
+  /**
+   * Read the next data record from the file.
+   *
+   * @param data Array to store the coefficients of the record in (must hold at least recordEntries elements).
+   * @return False when there are no more records in the file, true otherwise.
+   */
+  def read(data: Array[Double]): Boolean =
+    if (!tokenizer.hasNext) false
+    else {
+      recordNumber = tokenizer.nextInt()
+      val count = tokenizer.nextInt()
+
+      // Read all the coefficients, up to the start of the next record (line with two integers)
+      var i = 0
+      while (tokenizer.hasNext && tokenizer.isDecimal) {
+        val value = tokenizer.nextDouble()
+        if (i < recordEntries) data(i) = value
+        i += 1
+      }
+
+      val expected = math.min(count, recordEntries)
+      if (i < expected)
+        throw new InputMismatchException(s"Record $recordNumber contains $i coefficients, but expected $expected (at line ${tokenizer.line})")
+      true
+    }
+
+  /**
+   * Iterator over all the remaining records in the data file.
+   *
+   * @param metadata Metadata of the ephemeris the records belong to.
+   */
+  def records(metadata: Metadata)(implicit universe: Universe): Iterator[DataRecord] = new Iterator[DataRecord] {
+    private var nextRecord = readRecord()
+
+    private def readRecord() = {
+      val data = Array.ofDim[Double](recordEntries)
+      if (read(data)) Some(new DataRecord(metadata, data)) else None
+    }
+
+    def hasNext = nextRecord.isDefined
+
+    def next() = {
+      val record = nextRecord.getOrElse(throw new NoSuchElementException("No more records in the ascii data file"))
+      nextRecord = readRecord()
+      record
+    }
+  }
+
+}
+
+/**
+ * Hand-written whitespace separated tokenizer for ascii JPL ephemeris files.
+ *
+ * Tokens are read into a reusable character buffer, and are converted to integers or doubles on demand. Doubles can
+ * use the Fortran 'D' exponent notation (eg 0.405D+03).
+ *
+ * @param input Reader of the ascii file.
+ */
+class AsciiTokenizer(input: Reader) {
+
+  private val buffer = Array.ofDim[Char](1 << 16)
+  private var bufferLength = 0
+  private var bufferPosition = 0
+
+  private var token = Array.ofDim[Char](64)
+  private var tokenLength = 0
+  private var tokenLoaded = false
+
+  /** Current line number in the file (starting at 1). */
+  var line = 1
+
+  /** Read the next character from the input, or -1 at the end of the input. */
+  private def read(): Int = {
+    if (bufferPosition >= bufferLength) {
+      bufferLength = input.read(buffer)
+      bufferPosition = 0
+    }
+    if (bufferLength <= 0) -1
+    else {
+      val c = buffer(bufferPosition)
+      bufferPosition += 1
+      c
+    }
+  }
+
+  /** Load the next token in the token buffer, returns false when the end of the input is reached. */
+  private def load(): Boolean = {
+    // Skip over the whitespace
+    var c = read()
+    while (c >= 0 && Character.isWhitespace(c)) {
+      if (c == '\n') line += 1
+      c = read()
+    }
+    // Copy the token characters
+    tokenLength = 0
+    while (c >= 0 && !Character.isWhitespace(c)) {
+      if (tokenLength == token.length) token = java.util.Arrays.copyOf(token, 2 * token.length)
+      token(tokenLength) = c.toChar
+      tokenLength += 1
+      c = read()
+    }
+    if (c == '\n') line += 1
+    tokenLoaded = tokenLength > 0
+    tokenLoaded
+  }
+
+  /** Check if there is another token available. */
+  def hasNext: Boolean = tokenLoaded || load()
+
+  /** Check if the next token is a decimal number (contains a decimal point). */
+  def isDecimal: Boolean = {
+    if (!hasNext) throw new NoSuchElementException("No more tokens in the input")
+    var i = 0
+    while (i < tokenLength && token(i) != '.') i += 1
+    i < tokenLength
+  }
+
+  /** Consume the next token as a String. */
+  def next(): String = {
+    if (!hasNext) throw new NoSuchElementException("No more tokens in the input")
+    tokenLoaded = false
+    new String(token, 0, tokenLength)
+  }
+
+  /** Consume the next token as an integer. */
+  def nextInt(): Int = {
+    if (!hasNext) throw new NoSuchElementException("No more tokens in the input")
+    var i = 0
+    val negative = token(0) == '-'
+    if (negative || token(0) == '+') i += 1
+    if (i == tokenLength) throw mismatch("integer")
+    var value = 0
+    while (i < tokenLength) {
+      val digit = token(i) - '0'
+      if (digit < 0 || digit > 9) throw mismatch("integer")
+      value = 10 * value + digit
+      i += 1
+    }
+    tokenLoaded = false
+    if (negative) -value else value
+  }
+
+  /** Consume the next token as a double, the Fortran 'D' exponent is accepted. */
+  def nextDouble(): Double = {
+    if (!hasNext) throw new NoSuchElementException("No more tokens in the input")
+    var i = 0
+    while (i < tokenLength) {
+      if (token(i) == 'D' || token(i) == 'd') token(i) = 'E'
+      i += 1
+    }
+    val value = try {
+      java.lang.Double.parseDouble(new String(token, 0, tokenLength))
+    } catch {
+      case e: NumberFormatException => throw mismatch("double")
+    }
+    tokenLoaded = false
+    value
+  }
+
+  private def mismatch(expected: String) =
+    new InputMismatchException(s"Expected $expected but found '${new String(token, 0, tokenLength)}' (at line $line)")
+
+}
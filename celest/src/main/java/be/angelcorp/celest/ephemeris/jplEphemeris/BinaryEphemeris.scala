@@ -17,35 +17,128 @@
 package be.angelcorp.celest.ephemeris.jplEphemeris
 
 import java.io.RandomAccessFile
-import java.nio.ByteOrder
+import java.nio.{DoubleBuffer, ByteOrder}
 import java.nio.channels.FileChannel.MapMode
-import com.google.common.cache.{LoadingCache, CacheLoader, CacheBuilder}
+import com.google.common.cache.{LoadingCache, CacheLoader}
 import be.angelcorp.celest.universe.Universe
 import be.angelcorp.celest.frameGraph.frames.ICRS
 
-class BinaryEphemeris(val metadata: Metadata, val file: RandomAccessFile, val endianness: ByteOrder)(implicit val universe: Universe) extends JplEphemeris[ICRS] {
+/**
+ * JPL ephemeris that reads its data records from a binary ephemeris file.
+ *
+ * @param metadata    Metadata of the ephemeris (from the header of the file).
+ * @param file        Binary ephemeris file.
+ * @param endianness  Byte order of the data in the file.
+ * @param cachePolicy Policy used for the cache of the data records.
+ */
+class BinaryEphemeris(val metadata: Metadata, val file: RandomAccessFile, val endianness: ByteOrder,
+                      val cachePolicy: RecordCachePolicy = RecordCachePolicy())(implicit val universe: Universe) extends JplEphemeris[ICRS] {
 
   val frame = universe.instance[ICRS]
 
   val recordSize = metadata.recordEntries * 8
 
-  // TODO: Guiceify the builder
-  val cache = CacheBuilder.newBuilder().maximumSize(100).build(new CacheLoader[Int, DataRecord] {
-    def load(record: Int): DataRecord = {
-      // Create the data record
-      this.synchronized {
-        // Load the data for the data record from a memory mapped file section:
-        val data = file.getChannel.map(MapMode.READ_ONLY, recordSize * (record + 2), recordSize).order(endianness)
-        // Convert the bytebuffer into an array of doubles
-        val dataArray = Array.ofDim[Double](data.limit() / 8)
-        data.asDoubleBuffer().get(dataArray)
-        // Wrap the binary data in a DataRecord
-        new DataRecord(metadata, dataArray)
+  /** Number of data records in the file (excluding the two header records) */
+  val recordCount = (file.length / recordSize - 2).toInt
+
+  /** Maximum number of records that fit in a single memory mapped segment (a mapped buffer is limited to 2GB) */
+  private val recordsPerSegment = Int.MaxValue / recordSize
+
+  /**
+   * The data records of the file, mapped only once into memory.
+   *
+   * Each segment contains an integer number of records, so that a record never spans two segments.
+   */
+  private val segments: Array[DoubleBuffer] = {
+    val channel = file.getChannel
+    (0 until recordCount by recordsPerSegment).map(firstRecord => {
+      val records = math.min(recordsPerSegment, recordCount - firstRecord)
+      channel.map(MapMode.READ_ONLY, recordSize.toLong * (firstRecord + 2), recordSize.toLong * records).order(endianness).asDoubleBuffer()
+    }).toArray
+  }
+
+  /**
+   * Create a view on the raw data of a record, directly backed by the memory mapped file.
+   *
+   * No data is copied, and the returned buffer is independent of any other views (own position and limit).
+   *
+   * @param record Index of the record in the file.
+   * @return Read-only buffer with the coefficients of the record.
+   */
+  def recordBuffer(record: Int): DoubleBuffer = {
+    if (record < 0 || record >= recordCount)
+      throw new IndexOutOfBoundsException(s"Record $record is not in the ephemeris file, must be in [0, $recordCount[")
+    val view = segments(record / recordsPerSegment).duplicate()
+    val offset = (record % recordsPerSegment) * metadata.recordEntries
+    view.position(offset)
+    view.limit(offset + metadata.recordEntries)
+    view.slice()
+  }
+
+  private val loader = new CacheLoader[Int, DataRecord] {
+    // Wrap a view on the memory mapped data in a DataRecord (no copy and no locking required)
+    def load(record: Int): DataRecord = new DataRecord(metadata, recordBuffer(record))
+  }
+
+  val cache = cachePolicy.newBuilder(recordSize).build(loader).asInstanceOf[LoadingCache[Int, DataRecord]]
+
+  // Load all the records up front when they should be pinned in the cache
+  if (cachePolicy.pinAll)
+    (0 until recordCount).foreach(record => cache.get(record))
+
+  /**
+   * Statistics of the record cache (hits, misses, load times, evictions).
+   *
+   * Note that the statistics are only recorded when enabled in the [[be.angelcorp.celest.ephemeris.jplEphemeris.RecordCachePolicy]].
+   */
+  def cacheStats = cache.stats()
+
+  /** Background loader of the records ahead of sequential access (when enabled in the cache policy) */
+  val prefetcher =
+    if (cachePolicy.prefetchRecords > 0 && !cachePolicy.pinAll)
+      Some(new RecordPrefetcher(cachePolicy.prefetchRecords, recordCount, warm))
+    else
+      None
+
+  /** Combined Earth and Moon coefficients (when enabled in the cache policy) */
+  override val derivedBodies =
+    if (cachePolicy.derivedBodies && DerivedBodyCache.supported(metadata))
+      Some(new DerivedBodyCache(this, cachePolicy))
+    else
+      None
+
+  /** Last value read while warming a record, only kept so that the page reads cannot be optimized away */
+  @volatile private var touched = 0.0
+
+  /**
+   * Load a record into the cache, and read a value from every page of its data so that it is resident in memory.
+   *
+   * The record is loaded and inserted through the map view of the cache, so that the background loads are not counted
+   * in the hits and misses of [[cacheStats]].
+   *
+   * @param record Index of the record to warm.
+   */
+  private def warm(record: Int) {
+    val map = cache.asMap()
+    if (!map.containsKey(record)) {
+      val loaded = loader.load(record)
+      val existing = map.putIfAbsent(record, loaded)
+      val data = (if (existing != null) existing else loaded).buffer
+      var sum = 0.0
+      var i = 0
+      while (i < data.limit()) {
+        sum += data.get(i)
+        i += 512 // 4kB pages
       }
+      touched = sum
     }
-  }).asInstanceOf[LoadingCache[Int, DataRecord]]
+  }
 
   def getRecord(index: Int) = {
+    prefetcher match {
+      case Some(p) => p.accessed(index)
+      case None =>
+    }
     // Find the datarecord referenced by the record index in the cache map
     cache.get(index)
   }
@@ -0,0 +1,58 @@
+package be.angelcorp.celest.ephemeris.jplEphemeris
+
+/**
+ * Evaluation plan for the states of a fixed set of bodies at the same epoch, see
+ * [[be.angelcorp.celest.ephemeris.jplEphemeris.JplEphemeris#interpolateAllInto]].
+ *
+ * The entries that need to be evaluated from the ephemeris, and the location of the state of each body in the
+ * evaluated entries are determined once when the set is created. A force model should create the set once, and reuse
+ * it for every evaluation.
+ *
+ * {{{
+ *   val bodies  = new BodySet(Seq(Sun(), Earth(), Moon(), Jupiter()))
+ *   val states  = Array.ofDim[Double](6 * bodies.size)
+ *   val scratch = Array.ofDim[Double](ephemeris.scratchSize(bodies))
+ *   ephemeris.interpolateAllInto(tdbJd, bodies, states, scratch)
+ * }}}
+ *
+ * @param bodySeq Solar system bodies in the set, the state of body i is stored starting at index 6 * i.
+ */
+class BodySet(bodySeq: Seq[JDEBody]) {
+
+  /** Solar system bodies in the set */
+  val bodies: Array[JDEBody] = bodySeq.toArray
+
+  /** Entries to evaluate from the ephemeris when the Earth and Moon are derived from the Earth-Moon barycenter and geocentric Moon */
+  val targets: Array[Int] = entries(includeEarthMoon = true)
+
+  /** Entries to evaluate from the ephemeris when the Earth and Moon are evaluated separately (from derived coefficients) */
+  val directTargets: Array[Int] = entries(includeEarthMoon = false)
+
+  /** Index in [[targets]] of each body (-1 for the solar system barycenter, Earth and Moon) */
+  val slots: Array[Int] = bodies.map(body => targets.indexOf(body.id))
+
+  /** Index in [[directTargets]] of each body (-1 for the solar system barycenter, Earth and Moon) */
+  val directSlots: Array[Int] = bodies.map(body => directTargets.indexOf(body.id))
+
+  /** Index in [[targets]] of the Earth-Moon barycenter (-1 when not evaluated) */
+  val embSlot = targets.indexOf(EMB().id)
+
+  /** Index in [[targets]] of the geocentric Moon (-1 when not evaluated) */
+  val moonSlot = targets.indexOf(MoonGEO().id)
+
+  /** Number of bodies in the set */
+  def size = bodies.length
+
+  /**
+   * Entries of the ephemeris required for the bodies in this set.
+   *
+   * The entries are sorted on their index, which keeps the entries that share the same number of coefficients and
+   * granules (for example the outer planets) next to each other, so their Chebyshev polynomials are computed only once.
+   */
+  private def entries(includeEarthMoon: Boolean) = bodySeq.flatMap {
+    case SSB() => Nil
+    case Earth() | Moon() => if (includeEarthMoon) List(EMB().id, MoonGEO().id) else Nil
+    case body => List(body.id)
+  }.distinct.sorted.toArray
+
+}
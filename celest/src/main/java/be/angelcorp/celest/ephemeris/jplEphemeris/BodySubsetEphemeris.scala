@@ -0,0 +1,88 @@
+package be.angelcorp.celest.ephemeris.jplEphemeris
+
+import be.angelcorp.celest.frameGraph.ReferenceSystem
+import be.angelcorp.celest.universe.Universe
+
+/**
+ * Subset of an existing ephemeris object, containing only the coefficients of a selection of bodies.
+ *
+ * The records of this ephemeris are compacted: the coefficients of the selected entries are stored back to back, and
+ * the coefficient pointers of the other entries are set to zero. Saving this ephemeris in binary form (see
+ * `jplEphemeris.toBinarySubset`) results in a file with much smaller records, so many
+ * more of them fit in the record cache.
+ *
+ * The records are padded up to the size of the tag values, as a binary ephemeris stores its header in two records of
+ * the same size as the data records.
+ *
+ * @param ephemeris Backing ephemeris, provides the baseline records and metadata.
+ * @param entries   Indices of the entries in the coefficient pointers to retain (see [[JDEBody.id]], 11 for nutations and 12 for librations).
+ */
+class BodySubsetEphemeris[F <: ReferenceSystem](val ephemeris: JplEphemeris[F], val entries: Set[Int])(implicit universe: Universe) extends JplEphemeris[F] {
+
+  def frame = ephemeris.frame
+
+  val metadata: Metadata = {
+    val m = ephemeris.metadata
+    var entryPoint = 3 // After the record begin and end epoch
+    val coeffPtr = m.coeffPtr.zipWithIndex.map {
+      case (ptr, index) if entries.contains(index) && ptr.nrCoefficients > 0 =>
+        val compacted = new RecordMetadata(entryPoint, ptr.nrCoefficients, ptr.nrGranules)
+        entryPoint += ptr.nrCoefficients * ptr.nrGranules * Metadata.components(index)
+        compacted
+      case _ => new RecordMetadata(0, 0, 0)
+    }
+    // Both header records must fit in a data record, the tag values are the largest (400 or 1000 doubles)
+    val tagSlots = if (m.tags.size <= 400) 400 else 1000
+    val recordEntries = math.max(entryPoint - 1, tagSlots)
+    new Metadata(recordEntries, m.label1, m.label2, m.label3, m.tags, m.range, m.AU, m.EMRAT, coeffPtr, m.headerID)
+  }
+
+  def records: Iterator[DataRecord] =
+    ephemeris.records.map(compact)
+
+  def getRecord(index: Int): DataRecord =
+    compact(ephemeris.getRecord(index))
+
+  /** Copy the coefficients of the retained entries into a new compacted record. */
+  private def compact(record: DataRecord) = {
+    val data = Array.ofDim[Double](metadata.recordEntries)
+    data(0) = record.buffer.get(0)
+    data(1) = record.buffer.get(1)
+    for ((ptr, index) <- metadata.coeffPtr.zipWithIndex if ptr.nrCoefficients > 0) {
+      val source = ephemeris.metadata.coeffPtr(index).entryPoint - 1
+      val target = ptr.entryPoint - 1
+      val length = ptr.nrCoefficients * ptr.nrGranules * Metadata.components(index)
+      var i = 0
+      while (i < length) {
+        data(target + i) = record.buffer.get(source + i)
+        i += 1
+      }
+    }
+    new DataRecord(metadata, data)
+  }
+
+}
+
+object BodySubsetEphemeris {
+
+  /**
+   * Create a subset of an existing ephemeris object, containing only the coefficients required for the given bodies.
+   *
+   * The Earth and Moon are derived from the Earth-Moon barycenter and the geocentric Moon, so both are retained when
+   * either one is requested. The solar system barycenter requires no coefficients.
+   *
+   * @param ephemeris  Backing ephemeris, provides the baseline records and metadata.
+   * @param bodies     Bodies that the subset must be able to compute.
+   * @param nutations  Retain the nutation coefficients.
+   * @param librations Retain the libration coefficients.
+   */
+  def apply[F <: ReferenceSystem](ephemeris: JplEphemeris[F], bodies: Seq[JDEBody], nutations: Boolean = false, librations: Boolean = false)(implicit universe: Universe) = {
+    val entries = bodies.flatMap {
+      case Earth() | Moon() => Seq(EMB().id, MoonGEO().id)
+      case SSB() => Nil
+      case body => Seq(body.id)
+    } ++ (if (nutations) Seq(Metadata.nutationIndex) else Nil) ++ (if (librations) Seq(12) else Nil)
+    new BodySubsetEphemeris(ephemeris, entries.toSet)
+  }
+
+}
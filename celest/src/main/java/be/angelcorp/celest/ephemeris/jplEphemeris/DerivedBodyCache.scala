@@ -0,0 +1,166 @@
+package be.angelcorp.celest.ephemeris.jplEphemeris
+
+import com.google.common.cache.{CacheLoader, LoadingCache}
+import be.angelcorp.celest.universe.Universe
+
+/**
+ * Cache of combined Chebyshev coefficients for the derived bodies Earth and Moon (relative to the solar system
+ * barycenter).
+ *
+ * Normally the state of the Earth or Moon requires two series evaluations (Earth-Moon barycenter and geocentric Moon)
+ * for each call. When a record is first used, this cache refits both combinations on the granules of the body with the
+ * most granules, so afterwards the Earth and Moon cost a single series evaluation, exactly like a native body.
+ *
+ * The fit samples both series at the Chebyshev nodes of each granule, and is exact (up to round-off) as a polynomial
+ * restricted to a subinterval remains a polynomial of the same degree.
+ *
+ * The derived records are ordinary [[be.angelcorp.celest.ephemeris.jplEphemeris.DataRecord]]s, with the Earth at
+ * entry [[DerivedBodyCache.earth]] and the Moon at entry [[DerivedBodyCache.moon]] of the coefficient pointers.
+ *
+ * @param ephemeris   Ephemeris providing the Earth-Moon barycenter and geocentric Moon coefficients.
+ * @param cachePolicy Policy of the cache holding the derived records.
+ */
+class DerivedBodyCache(ephemeris: JplEphemeris[_], cachePolicy: RecordCachePolicy)(implicit universe: Universe) {
+
+  private val emb = ephemeris.metadata.coeffPtrArray(EMB().id)
+  private val moonGeo = ephemeris.metadata.coeffPtrArray(MoonGEO().id)
+
+  /** Number of coefficients per component of the derived bodies */
+  private val n = math.max(emb.nrCoefficients, moonGeo.nrCoefficients)
+  /** Number of granules of the derived bodies */
+  private val g = math.max(emb.nrGranules, moonGeo.nrGranules)
+
+  require(DerivedBodyCache.supported(ephemeris.metadata), "The number of granules of the Earth-Moon barycenter and geocentric Moon must be multiples")
+
+  /** Metadata of the derived records */
+  val metadata = {
+    val m = ephemeris.metadata
+    val coeffPtr = List(new RecordMetadata(3, n, g), new RecordMetadata(3 + 3 * n * g, n, g))
+    new Metadata(2 + 6 * n * g, m.label1, m.label2, m.label3, m.tags, m.range, m.AU, m.EMRAT, coeffPtr, m.headerID)
+  }
+
+  /** Chebyshev nodes in [-1, 1] */
+  private val nodes = Array.tabulate(n)(k => math.cos(math.Pi * (k + 0.5) / n))
+  /** Cosine terms of the discrete cosine transform, (m, k) stored at m * n + k */
+  private val cosines = Array.tabulate(n * n)(i => math.cos(math.Pi * (i / n) * (i % n + 0.5) / n))
+
+  private val cache = cachePolicy.newBuilder(metadata.recordEntries * 8).build(new CacheLoader[Int, DataRecord] {
+    def load(index: Int) = derive(ephemeris.getRecord(index))
+  }).asInstanceOf[LoadingCache[Int, DataRecord]]
+
+  /**
+   * Get the derived record with the specified index.
+   *
+   * @param index Index of the record in the ephemeris.
+   */
+  def getRecord(index: Int): DataRecord = cache.get(index)
+
+  /**
+   * Compute the combined coefficients of the Earth and Moon for a record.
+   *
+   * @param record Record of the ephemeris.
+   */
+  def derive(record: DataRecord): DataRecord = {
+    val data = Array.ofDim[Double](metadata.recordEntries)
+    data(0) = record.buffer.get(0)
+    data(1) = record.buffer.get(1)
+
+    val s = 1.0 + metadata.EMRAT
+    val embValues = Array.ofDim[Double](n)
+    val moonValues = Array.ofDim[Double](n)
+    var granule = 0
+    while (granule < g) {
+      var component = 0
+      while (component < 3) {
+        sample(record, emb, granule, component, embValues)
+        sample(record, moonGeo, granule, component, moonValues)
+        val offset = 2 + (3 * granule + component) * n
+        // Translate from the Earth-Moon barycenter to Earth
+        fit(embValues, moonValues, -1.0 / s, data, offset)
+        // Translate from Geocentered to Solar System barycentric
+        fit(embValues, moonValues, 1.0 - 1.0 / s, data, offset + 3 * n * g)
+        component += 1
+      }
+      granule += 1
+    }
+    new DataRecord(metadata, data)
+  }
+
+  /**
+   * Evaluate the series of an entry at the Chebyshev nodes of a derived granule.
+   *
+   * @param record    Record containing the coefficients.
+   * @param ptr       Coefficient pointer of the entry.
+   * @param granule   Index of the derived granule.
+   * @param component Index of the component to evaluate.
+   * @param values    Output array for the values at the nodes.
+   */
+  private def sample(record: DataRecord, ptr: RecordMetadata, granule: Int, component: Int, values: Array[Double]) {
+    val buffer = record.buffer
+    val ratio = g / ptr.nrGranules
+    val m = ptr.nrCoefficients
+    val pos = ptr.entryPoint - 1 + (3 * (granule / ratio) + component) * m
+    var k = 0
+    while (k < n) {
+      // Normalized time in the granule of the entry
+      val x = 2.0 * ((granule % ratio) + (nodes(k) + 1.0) / 2.0) / ratio - 1.0
+      val x2 = 2.0 * x
+      var b1 = 0.0
+      var b2 = 0.0
+      var j = m - 1
+      while (j > 0) {
+        val b0 = buffer.get(pos + j) + x2 * b1 - b2
+        b2 = b1
+        b1 = b0
+        j -= 1
+      }
+      values(k) = buffer.get(pos) + x * b1 - b2
+      k += 1
+    }
+  }
+
+  /**
+   * Fit Chebyshev coefficients to emb + factor * moon sampled at the Chebyshev nodes (discrete cosine transform).
+   *
+   * @param embValues  Values of the Earth-Moon barycenter at the nodes.
+   * @param moonValues Values of the geocentric Moon at the nodes.
+   * @param factor     Factor of the geocentric Moon.
+   * @param out        Output array for the coefficients.
+   * @param offset     Index of the first coefficient in the output array.
+   */
+  private def fit(embValues: Array[Double], moonValues: Array[Double], factor: Double, out: Array[Double], offset: Int) {
+    var m = 0
+    while (m < n) {
+      var sum = 0.0
+      var k = 0
+      while (k < n) {
+        sum += (embValues(k) + factor * moonValues(k)) * cosines(m * n + k)
+        k += 1
+      }
+      out(offset + m) = (if (m == 0) 1.0 else 2.0) * sum / n
+      m += 1
+    }
+  }
+
+}
+
+object DerivedBodyCache {
+
+  /** Entry of the Earth (relative to the solar system barycenter) in the derived records */
+  val earth = 0
+  /** Entry of the Moon (relative to the solar system barycenter) in the derived records */
+  val moon = 1
+
+  /**
+   * Check if the derived bodies can be computed for an ephemeris, this requires that the number of granules of the
+   * Earth-Moon barycenter and geocentric Moon are multiples of each other.
+   *
+   * @param metadata Metadata of the ephemeris.
+   */
+  def supported(metadata: Metadata) = {
+    val emb = metadata.coeffPtrArray(EMB().id).nrGranules
+    val moon = metadata.coeffPtrArray(MoonGEO().id).nrGranules
+    emb > 0 && moon > 0 && (emb % moon == 0 || moon % emb == 0)
+  }
+
+}
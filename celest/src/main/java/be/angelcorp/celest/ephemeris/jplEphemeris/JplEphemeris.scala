@@ -1,5 +1,6 @@
 package be.angelcorp.celest.ephemeris.jplEphemeris
 
+import java.nio.DoubleBuffer
 import be.angelcorp.celest.math.geometry.Vec3
 import be.angelcorp.celest.time.{TimeRange, Epoch}
 import be.angelcorp.celest.state.PosVel
@@ -20,6 +21,9 @@ trait JplEphemeris[F <: ReferenceSystem] {
 
   def getRecord(epoch: Epoch): DataRecord = getRecord(epoch2index(epoch))
 
+  /** Optional cache of combined coefficients, so the Earth and Moon only require a single series evaluation. */
+  def derivedBodies: Option[DerivedBodyCache] = None
+
   def metadata: Metadata
 
   def epoch2index(time: Epoch) = {
@@ -28,6 +32,15 @@ trait JplEphemeris[F <: ReferenceSystem] {
     math.ceil(time.relativeTo(metadata.range.start) / metadata.range.step).toInt - 1
   }
 
+  /**
+   * Index of the record that contains the specified Julian date.
+   *
+   * @param tdbJd Julian date (TDB) to find the record for.
+   * @return Index of the record containing the date.
+   */
+  def jd2index(tdbJd: Double) =
+    math.ceil((tdbJd - metadata.startJd) / metadata.range.step).toInt - 1
+
   /**
    * This function computes the Lunar librations in the form of three Euler angles, and their time derivatives.
    *
@@ -62,32 +75,203 @@ trait JplEphemeris[F <: ReferenceSystem] {
    * @param body  Solar system body for which position is desired
    * @return State of the body at the time.
    */
-  def interpolateState(epoch: Epoch, body: JDEBody): PosVel[F] =
-    if (body == Earth()) {
-      val emb = interpolateState(epoch, EMB())
-      val moon = interpolateState(epoch, MoonGEO())
-
-      // Translate from the Earth-Moon barycenter to Earth
-      val s = 1.0 + metadata.EMRAT
-      val p = emb.position - moon.position / s
-      val v = emb.velocity - moon.velocity / s
-
-      new PosVel(p, v, frame)
-    } else if (body == Moon()) {
-      val emb = interpolateState(epoch, EMB())
-      val moon = interpolateState(epoch, MoonGEO())
-
-      /* Translate from Geocentered to Solar System barycentric */
-      val s = 1.0 + metadata.EMRAT
-      val p = emb.position + moon.position * (1.0 - 1.0 / s)
-      val v = emb.velocity + moon.velocity * (1.0 - 1.0 / s)
-      new PosVel(p, v, frame)
-    } else if (body == SSB()) {
-      PosVel(0, 0, 0, 0, 0, 0, frame)
-    } else {
-      val (p, v) = interpolate(epoch, body) // Results in [km] and [km/s]
-      new PosVel(Vec3(p) * 1000.0, Vec3(v) * 1000.0, frame)
+  def interpolateState(epoch: Epoch, body: JDEBody): PosVel[F] = {
+    val state = Array.ofDim[Double](6)
+    interpolateStateInto(epoch.jd, body, state, 0)
+    PosVel(state, frame)
+  }
+
+  /**
+   * Computes the position and velocity of a selected planetary body, without allocating any intermediate objects.
+   *
+   * The state is written as {x, y, z, vx, vy, vz} in [m] and [m/s] starting at the offset in the output array.
+   * Contrary to [[be.angelcorp.celest.ephemeris.jplEphemeris.JplEphemeris#interpolateInto]], this also computes the
+   * derived bodies (Earth, Moon and the solar system barycenter).
+   *
+   * @param tdbJd  Julian date (TDB) for which the state is desired.
+   * @param body   Solar system body for which position is desired.
+   * @param out    Output array to write the state to.
+   * @param offset Index of the first element in the output array to write.
+   */
+  def interpolateStateInto(tdbJd: Double, body: JDEBody, out: Array[Double], offset: Int) {
+    body match {
+      case SSB() =>
+        java.util.Arrays.fill(out, offset, offset + 6, 0.0)
+      case Earth() if derivedBodies.isDefined =>
+        derivedBodies.get.getRecord(jd2index(tdbJd)).evaluate(tdbJd, DerivedBodyCache.earth, 3, out, offset, 1000.0)
+      case Moon() if derivedBodies.isDefined =>
+        derivedBodies.get.getRecord(jd2index(tdbJd)).evaluate(tdbJd, DerivedBodyCache.moon, 3, out, offset, 1000.0)
+      case Earth() =>
+        // Translate from the Earth-Moon barycenter to Earth
+        val record = getRecord(jd2index(tdbJd))
+        val s = 1.0 + metadata.EMRAT
+        record.evaluate(tdbJd, EMB().id, 3, out, offset, 1000.0)
+        record.evaluate(tdbJd, MoonGEO().id, 3, out, offset, -1000.0 / s, accumulate = true)
+      case Moon() =>
+        // Translate from Geocentered to Solar System barycentric
+        val record = getRecord(jd2index(tdbJd))
+        val s = 1.0 + metadata.EMRAT
+        record.evaluate(tdbJd, EMB().id, 3, out, offset, 1000.0)
+        record.evaluate(tdbJd, MoonGEO().id, 3, out, offset, 1000.0 * (1.0 - 1.0 / s), accumulate = true)
+      case _ =>
+        // Ephemeris is in [km] and [km/s]
+        getRecord(jd2index(tdbJd)).evaluate(tdbJd, body.id, 3, out, offset, 1000.0)
+    }
+  }
+
+  /**
+   * Computes the states of a body for all the epochs in a time range.
+   *
+   * See [[be.angelcorp.celest.ephemeris.jplEphemeris.JplEphemeris#interpolateStatesInto]] for the layout of the result.
+   *
+   * @param range Epochs for which the states are desired.
+   * @param body  Solar system body for which the states are desired.
+   * @return Struct-of-arrays table with the states of the body {x..., y..., z..., vx..., vy..., vz...} [m] and [m/s].
+   */
+  def interpolateStates(range: TimeRange, body: JDEBody): Array[Double] = {
+    val count = range.length
+    val startJd = range.start.jd
+    val tdbJds = Array.ofDim[Double](count)
+    var i = 0
+    while (i < count) {
+      tdbJds(i) = startJd + i * range.step
+      i += 1
+    }
+    val states = Array.ofDim[Double](6 * count)
+    interpolateStatesInto(tdbJds, body, states)
+    states
+  }
+
+  /**
+   * Computes the states of a body for a sequence of Julian dates.
+   *
+   * The dates should be sorted (increasing), so that each record and each granule in a record is located only once for
+   * all the dates that fall inside it. The states are stored in a struct-of-arrays layout, component k of date i
+   * ({x, y, z, vx, vy, vz} in [m] and [m/s]) is stored at out(i + k * tdbJds.length).
+   *
+   * @param tdbJds Julian dates (TDB) for which the states are desired.
+   * @param body   Solar system body for which the states are desired.
+   * @param out    Output array for the states, must have a length of at least 6 * tdbJds.length.
+   */
+  def interpolateStatesInto(tdbJds: Array[Double], body: JDEBody, out: Array[Double]) {
+    val count = tdbJds.length
+    require(out.length >= 6 * count, s"Output array is too small, requires ${6 * count} elements but was ${out.length}")
+
+    var i = 0
+    while (i < count) {
+      // Find the record of this date, and all the following dates in the same record
+      val index = jd2index(tdbJds(i))
+      var j = i + 1
+      while (j < count && jd2index(tdbJds(j)) == index)
+        j += 1
+
+      body match {
+        case SSB() =>
+          for (k <- 0 until 6) java.util.Arrays.fill(out, i + k * count, j + k * count, 0.0)
+        case Earth() if derivedBodies.isDefined =>
+          derivedBodies.get.getRecord(index).evaluateRange(tdbJds, i, j, DerivedBodyCache.earth, 3, out, count, 1000.0, accumulate = false)
+        case Moon() if derivedBodies.isDefined =>
+          derivedBodies.get.getRecord(index).evaluateRange(tdbJds, i, j, DerivedBodyCache.moon, 3, out, count, 1000.0, accumulate = false)
+        case Earth() =>
+          val record = getRecord(index)
+          val s = 1.0 + metadata.EMRAT
+          record.evaluateRange(tdbJds, i, j, EMB().id, 3, out, count, 1000.0, accumulate = false)
+          record.evaluateRange(tdbJds, i, j, MoonGEO().id, 3, out, count, -1000.0 / s, accumulate = true)
+        case Moon() =>
+          val record = getRecord(index)
+          val s = 1.0 + metadata.EMRAT
+          record.evaluateRange(tdbJds, i, j, EMB().id, 3, out, count, 1000.0, accumulate = false)
+          record.evaluateRange(tdbJds, i, j, MoonGEO().id, 3, out, count, 1000.0 * (1.0 - 1.0 / s), accumulate = true)
+        case _ =>
+          getRecord(index).evaluateRange(tdbJds, i, j, body.id, 3, out, count, 1000.0, accumulate = false)
+      }
+      i = j
+    }
+  }
+
+  /**
+   * Computes the states of several bodies at the same epoch.
+   *
+   * See [[be.angelcorp.celest.ephemeris.jplEphemeris.JplEphemeris#interpolateAllInto]] for details.
+   *
+   * @param epoch  Epoch for which the states are desired.
+   * @param bodies Solar system bodies for which the states are desired.
+   * @return States of each of the requested bodies.
+   */
+  def interpolateAll(epoch: Epoch, bodies: Seq[JDEBody]): Map[JDEBody, PosVel[F]] = {
+    val set = new BodySet(bodies)
+    val states = Array.ofDim[Double](6 * set.size)
+    interpolateAllInto(epoch.jd, set, states, Array.ofDim[Double](scratchSize(set)))
+    bodies.zipWithIndex.map {
+      case (body, i) => body -> PosVel(states(6 * i), states(6 * i + 1), states(6 * i + 2), states(6 * i + 3), states(6 * i + 4), states(6 * i + 5), frame)
+    }.toMap
+  }
+
+  /**
+   * Size of the scratch array required by [[be.angelcorp.celest.ephemeris.jplEphemeris.JplEphemeris#interpolateAllInto]].
+   *
+   * @param bodies Set of bodies that will be evaluated.
+   * @return Minimum length of the scratch array.
+   */
+  def scratchSize(bodies: BodySet) = 6 * bodies.targets.length + 2 * metadata.maxCoefficients
+
+  /**
+   * Computes the states of several bodies at the same epoch, for example for the third body perturbations in an n-body
+   * force model.
+   *
+   * The record is located only once, and the Chebyshev series are computed once for each distinct number of
+   * coefficients and granules. The Earth and Moon are evaluated from the derived coefficients when they are available
+   * (see [[be.angelcorp.celest.ephemeris.jplEphemeris.DerivedBodyCache]]), otherwise they are derived from a single
+   * evaluation of the Earth-Moon barycenter and the geocentric Moon. No objects are allocated, all the intermediate
+   * values are stored in the scratch array.
+   *
+   * @param tdbJd   Julian date (TDB) for which the states are desired.
+   * @param bodies  Solar system bodies for which the states are desired.
+   * @param out     Output array, the state {x, y, z, vx, vy, vz} [m] and [m/s] of body i is stored starting at index 6 * i.
+   * @param scratch Work array, with a length of at least [[be.angelcorp.celest.ephemeris.jplEphemeris.JplEphemeris#scratchSize]].
+   */
+  def interpolateAllInto(tdbJd: Double, bodies: BodySet, out: Array[Double], scratch: Array[Double]) {
+    require(out.length >= 6 * bodies.size, s"Output array is too small, requires ${6 * bodies.size} elements but was ${out.length}")
+    require(scratch.length >= scratchSize(bodies), s"Scratch array is too small, requires ${scratchSize(bodies)} elements but was ${scratch.length}")
+
+    val index = jd2index(tdbJd)
+    val derived = derivedBodies.isDefined
+    val targets = if (derived) bodies.directTargets else bodies.targets
+    val slots = if (derived) bodies.directSlots else bodies.slots
+    val workOffset = 6 * targets.length
+    getRecord(index).evaluateAll(tdbJd, targets, 3, scratch, 1000.0, scratch, workOffset)
+
+    val s = 1.0 + metadata.EMRAT
+    var i = 0
+    while (i < bodies.size) {
+      bodies.bodies(i) match {
+        case SSB() =>
+          java.util.Arrays.fill(out, 6 * i, 6 * i + 6, 0.0)
+        case Earth() if derived =>
+          derivedBodies.get.getRecord(index).evaluate(tdbJd, DerivedBodyCache.earth, 3, out, 6 * i, 1000.0)
+        case Moon() if derived =>
+          derivedBodies.get.getRecord(index).evaluate(tdbJd, DerivedBodyCache.moon, 3, out, 6 * i, 1000.0)
+        case Earth() =>
+          // Translate from the Earth-Moon barycenter to Earth
+          combine(scratch, 6 * bodies.embSlot, 6 * bodies.moonSlot, -1.0 / s, out, 6 * i)
+        case Moon() =>
+          // Translate from Geocentered to Solar System barycentric
+          combine(scratch, 6 * bodies.embSlot, 6 * bodies.moonSlot, 1.0 - 1.0 / s, out, 6 * i)
+        case _ =>
+          System.arraycopy(scratch, 6 * slots(i), out, 6 * i, 6)
+      }
+      i += 1
     }
+  }
+
+  /** Store the state of the Earth-Moon barycenter plus a factor times the state of the geocentric Moon in the output array. */
+  private def combine(states: Array[Double], emb: Int, moon: Int, moonFactor: Double, out: Array[Double], offset: Int) {
+    var k = 0
+    while (k < 6) {
+      out(offset + k) = states(emb + k) + moonFactor * states(moon + k)
+      k += 1
+    }
+  }
 
   /**
    * Compute the Chebeyshev polynomials and interpolate them to the specified epoch.
@@ -104,45 +288,33 @@ trait JplEphemeris[F <: ReferenceSystem] {
    * @return Interpolated Chebeyshev values and their first derivatives in two seperate arrays (of size components).
    */
   def interpolate(epoch: Epoch, id: Int, components: Int = 3) = {
-    // Fetch the required data record
-    val record = getRecord(epoch)
-    // Number of coefficients per variable
-    val N = metadata.coeffPtr(id).nrCoefficients
-    // Number of granules in current record
-    val G = metadata.coeffPtr(id).nrGranules
-
-    // Compute the normalized time, and the Chebeyshev coefficients
-    val (tc, a) = record.coefficients(epoch, id, components)
-
-    // Compute interpolating polynomials and the resulting interpolated position & velocity
-    // With some ugly 'high performance' while loops
-
-    val p = Array.ofDim[Double](components)
-    val v = Array.ofDim[Double](components)
-    val (seriesT, seriesTdot) = chebyshevTTdotSeries(N)(tc) // Chebeyshev T(t) and dT(t)/dt series
-    var i = 0
-    while (i < components) {
-      // Compute the position component value
-      var P_Sum = 0.0
-      var j = N - 1
-      while (j > -1) {
-        P_Sum = P_Sum + a(j + i * N) * seriesT(j)
-        j = j - 1
-      }
-
-      // Compute the velocity component value
-      var V_Sum = 0.0
-      j = N - 1
-      while (j > 0) {
-        V_Sum = V_Sum + a(j + i * N) * seriesTdot(j)
-        j -= 1
-      }
+    val result = Array.ofDim[Double](2 * components)
+    interpolateInto(epoch.jd, id, result, 0, components)
+    (result.take(components), result.drop(components))
+  }
 
-      p(i) = P_Sum
-      v(i) = V_Sum * 2.0 * G.toDouble / (record.span * 86400.0)
-      i += 1
-    }
-    (p, v)
+  /**
+   * Interpolate the Chebeyshev polynomials of an entry in the ephemeris, directly into a caller supplied array.
+   *
+   * The series are evaluated using the Clenshaw recurrence directly on the coefficients in the data record, so no
+   * intermediate objects are allocated. The values are stored in the output array as {p_1 ... p_n, v_1 ... v_n}
+   * where n is the number of components, p the values and v the time derivatives:
+   *
+   * - Planetary position/state: [km] and [km/s]
+   * - Nutation: [rad] and [rad/s]
+   * - Libration: [rad] and [rad/s]
+   *
+   * Note that only entries stored in the ephemeris can be interpolated this way, for derived bodies (Earth, Moon, SSB)
+   * use [[be.angelcorp.celest.ephemeris.jplEphemeris.JplEphemeris#interpolateStateInto]].
+   *
+   * @param tdbJd      Julian date (TDB) at which to evaluate the ephemeris.
+   * @param id         Id of what to extract, either numeric or use JDEBody.id
+   * @param out        Output array to write the values and derivatives to.
+   * @param offset     Index of the first element in the output array to write.
+   * @param components Number of componenets to extract.
+   */
+  def interpolateInto(tdbJd: Double, id: Int, out: Array[Double], offset: Int, components: Int = 3) {
+    getRecord(jd2index(tdbJd)).evaluate(tdbJd, id, components, out, offset)
   }
 
   /**
@@ -176,76 +348,35 @@ trait JplEphemeris[F <: ReferenceSystem] {
     def orbit(epoch: Epoch): PosVel[F] = interpolateState(epoch, body)
   }
 
-  /**
-   * Chebyshev polynomial of the first kind T(t).
-   *
-   * @param maxDegree Exclusive maximum degree of the series expansion (must be >= 3)
-   * @param t Normalized time [0, 1]
-   */
-  private def chebyshevTSeries(maxDegree: Int)(t: Double): Array[Double] = {
-    val T = Array.ofDim[Double](maxDegree)
-    T(0) = 1
-    T(1) = t
-    T(2) = 2 * t * t - 1
-    var degree = 4
-    while (degree < maxDegree) {
-      T(degree - 1) = 2 * t * T(degree - 2) - T(degree - 3)
-      degree += 1
-    }
-    T
-  }
+}
 
-  /**
-   * Computes the value of two series, the Chebyshev polynomial of the first T(t) and its
-   * first derivative with respect to normalized time d(T(t))/dt.
-   *
-   * @param maxDegree Exclusive maximum degree of the series expansion (must be >= 3)
-   * @param t Normalized time [0, 1]
-   */
-  private def chebyshevTTdotSeries(maxDegree: Int)(t: Double): (Array[Double], Array[Double]) = {
-    val T = Array.ofDim[Double](maxDegree)
-    val Tdot = Array.ofDim[Double](maxDegree)
-
-    T(0) = 1
-    T(1) = t
-    T(2) = 2 * t * t - 1
-    Tdot(0) = 0.0
-    Tdot(1) = 1.0
-    Tdot(2) = 4.0 * t
-
-    var degree = 4
-    while (degree < maxDegree) {
-      T(degree - 1) = 2.0 * t * T(degree - 2) - T(degree - 3)
-      Tdot(degree - 1) = 2.0 * t * Tdot(degree - 2) - Tdot(degree - 3) + 2.0 * T(degree - 2)
-      degree += 1
-    }
-    (T, Tdot)
-  }
+/**
+ * A single data record of a JPL ephemeris, containing the Chebyshev coefficients of all bodies for a fixed time span.
+ *
+ * The coefficients are accessed through a [[java.nio.DoubleBuffer]], which can be a view directly on a memory mapped
+ * ephemeris file. Only absolute get operations are used on the buffer, so a record can be shared between threads.
+ *
+ * @param metadata Metadata of the ephemeris that this record belongs to.
+ * @param buffer   Raw data of the record (starting with the record begin and end epoch).
+ */
+class DataRecord(val metadata: Metadata, val buffer: DoubleBuffer)(implicit universe: Universe) {
 
   /**
-   * Chebyshev polynomial of the second kind U(t).
+   * Create a record backed by an array of raw coefficients.
    *
-   * @param maxDegree Maximum degree of the series expansion (must be >= 3)
-   * @param t Normalized time [0, 1]
+   * @param metadata Metadata of the ephemeris that this record belongs to.
+   * @param data     Raw data of the record (starting with the record begin and end epoch).
    */
-  private def chebyshevUSeries(maxDegree: Int)(t: Double): Array[Double] = {
-    val U = Array.ofDim[Double](maxDegree)
-    U(0) = 1
-    U(1) = 2 * t
-    U(2) = 4 * t * t - 1
-    for (degree <- 4 to maxDegree)
-      U(degree - 1) = 2 * t * U(degree - 2) - U(degree - 3)
-    U
-  }
+  def this(metadata: Metadata, data: Array[Double])(implicit universe: Universe) =
+    this(metadata, DoubleBuffer.wrap(data))
 
-}
-
-class DataRecord(val metadata: Metadata, val data: Array[Double])(implicit universe: Universe) {
-  val begin = JulianDate(data(0), TDB)
+  val begin = JulianDate(buffer.get(0), TDB)
   // Beginning time of the record
-  val end = JulianDate(data(1), TDB)
+  val end = JulianDate(buffer.get(1), TDB)
   // Ending    time of the record
   val span = end relativeTo begin // Time step in this record [days]
+  private val beginJd = buffer.get(0)
+  private val spanJd = buffer.get(1) - beginJd
 
   def coefficients(time: Epoch, target: Int, components: Int = 3) = {
     // Entry point of the data
@@ -271,13 +402,237 @@ class DataRecord(val metadata: Metadata, val data: Array[Double])(implicit unive
         val offset = math.max(0, math.ceil(time.relativeTo(begin) / T_sub).toInt - 1)
         // Time of the beginning of the sub-granule
         val T_seg = begin + offset * T_sub
-        (2.0 * time.relativeTo(T_seg) / T_sub - 1.0, c + 3 * offset * n)
+        (2.0 * time.relativeTo(T_seg) / T_sub - 1.0, c + components * offset * n)
       } else {
         throw new RuntimeException("Number of granules must be >= 1: check header data.")
       }
 
     // Return the normalized time, and the sub-array containing the required coefficients
-    (tc, data.slice(pos, pos + components * n))
+    val a = Array.ofDim[Double](components * n)
+    var i = 0
+    while (i < a.length) {
+      a(i) = buffer.get(pos + i)
+      i += 1
+    }
+    (tc, a)
+  }
+
+  /**
+   * Evaluate the Chebyshev series of an entry in this record using the Clenshaw recurrence.
+   *
+   * The coefficients are read directly from the record buffer, no intermediate objects are allocated. The result is
+   * stored as {p_1 ... p_n, v_1 ... v_n} with p the values and v the time derivatives [1/s] of the n components.
+   *
+   * @param tdbJd      Julian date (TDB) at which to evaluate the series, must be within this record.
+   * @param target     Index of the entry in the metadata coefficient pointers.
+   * @param components Number of components of the entry (3 for states, 2 for nutations).
+   * @param out        Output array for the values and derivatives.
+   * @param offset     Index of the first element in the output array to write.
+   * @param scale      Factor applied to all the values and derivatives (for example for unit conversions).
+   * @param accumulate When true, the (scaled) result is added to the existing values in the output array.
+   */
+  def evaluate(tdbJd: Double, target: Int, components: Int, out: Array[Double], offset: Int,
+               scale: Double = 1.0, accumulate: Boolean = false) {
+    val ptr = metadata.coeffPtrArray(target)
+    // Entry point of the data
+    val c = ptr.entryPoint - 1
+    // Number of coefficients per variable
+    val n = ptr.nrCoefficients
+    // Number of granules in current record
+    val g = ptr.nrGranules
+    if (g < 1) throw new RuntimeException("Number of granules must be >= 1: check header data.")
+
+    // Find the granule that contains the interpolation time, and the normalized time in the granule
+    val T_sub = spanJd / g
+    val t = tdbJd - beginJd
+    val granule = granuleIndex(t, g, T_sub)
+    val tc = 2.0 * (t - granule * T_sub) / T_sub - 1.0
+
+    clenshaw(c + components * granule * n, n, components, tc, scale, scale * 2.0 / (T_sub * 86400.0), out, offset, 1, accumulate)
+  }
+
+  /**
+   * Evaluate the Chebyshev series of an entry in this record for a sequence of dates.
+   *
+   * The dates should be sorted, so that the coefficients of each granule are located only once for all the dates
+   * inside that granule. The results are stored in a struct-of-arrays layout; component k (the n values followed by
+   * the n derivatives) of date i is stored at out(i + k * stride).
+   *
+   * @param tdbJds     Julian dates (TDB) at which to evaluate the series, must be within this record.
+   * @param from       Index of the first date to evaluate.
+   * @param until      Index of the first date that is not evaluated.
+   * @param target     Index of the entry in the metadata coefficient pointers.
+   * @param components Number of components of the entry (3 for states, 2 for nutations).
+   * @param out        Output array for the values and derivatives.
+   * @param stride     Distance in the output array between two successive components of the same date.
+   * @param scale      Factor applied to all the values and derivatives (for example for unit conversions).
+   * @param accumulate When true, the (scaled) result is added to the existing values in the output array.
+   */
+  def evaluateRange(tdbJds: Array[Double], from: Int, until: Int, target: Int, components: Int,
+                    out: Array[Double], stride: Int, scale: Double, accumulate: Boolean) {
+    val ptr = metadata.coeffPtrArray(target)
+    val c = ptr.entryPoint - 1
+    val n = ptr.nrCoefficients
+    val g = ptr.nrGranules
+    if (g < 1) throw new RuntimeException("Number of granules must be >= 1: check header data.")
+
+    val T_sub = spanJd / g
+    val vScale = scale * 2.0 / (T_sub * 86400.0)
+    var i = from
+    while (i < until) {
+      // Locate the granule of this date, and use it for all the following dates in the same granule
+      val granule = granuleIndex(tdbJds(i) - beginJd, g, T_sub)
+      val granuleBegin = granule * T_sub
+      val granuleEnd = if (granule >= g - 1) Double.PositiveInfinity else granuleBegin + T_sub
+      val pos = c + components * granule * n
+      do {
+        val tc = 2.0 * (tdbJds(i) - beginJd - granuleBegin) / T_sub - 1.0
+        clenshaw(pos, n, components, tc, scale, vScale, out, i, stride, accumulate)
+        i += 1
+      } while (i < until && tdbJds(i) - beginJd <= granuleEnd)
+    }
+  }
+
+  /**
+   * Evaluate the Chebyshev series of several entries in this record at the same date.
+   *
+   * The Chebyshev polynomials (and their derivatives) are only recomputed when the number of coefficients or granules
+   * differs from the previous target, so the targets that share a layout should be adjacent (see
+   * [[be.angelcorp.celest.ephemeris.jplEphemeris.BodySet]]). The values and derivatives of target i are stored
+   * starting at out(2 * components * i), as {p_1 ... p_n, v_1 ... v_n}. No objects are allocated.
+   *
+   * @param tdbJd      Julian date (TDB) at which to evaluate the series, must be within this record.
+   * @param targets    Indices of the entries in the metadata coefficient pointers.
+   * @param components Number of components of the entries.
+   * @param out        Output array for the values and derivatives.
+   * @param scale      Factor applied to all the values and derivatives (for example for unit conversions).
+   * @param work       Work array for the Chebyshev polynomials, requires 2 * metadata.maxCoefficients elements.
+   * @param workOffset Index of the first element in the work array to use.
+   */
+  def evaluateAll(tdbJd: Double, targets: Array[Int], components: Int, out: Array[Double], scale: Double,
+                  work: Array[Double], workOffset: Int) {
+    val t = tdbJd - beginJd
+    var n = -1
+    var g = -1
+    var granule = 0
+    var vScale = 0.0
+    var index = 0
+    while (index < targets.length) {
+      val ptr = metadata.coeffPtrArray(targets(index))
+      if (ptr.nrCoefficients != n || ptr.nrGranules != g) {
+        n = ptr.nrCoefficients
+        g = ptr.nrGranules
+        if (g < 1) throw new RuntimeException("Number of granules must be >= 1: check header data.")
+        val T_sub = spanJd / g
+        granule = granuleIndex(t, g, T_sub)
+        vScale = scale * 2.0 / (T_sub * 86400.0)
+
+        // Chebyshev polynomials T(tc) and their derivatives dT(tc)/dtc, stored as {T_0 ... T_n-1, dT_0 ... dT_n-1}
+        val T = workOffset
+        val Tdot = workOffset + n
+        val tc = 2.0 * (t - granule * T_sub) / T_sub - 1.0
+        work(T) = 1.0
+        work(Tdot) = 0.0
+        if (n > 1) {
+          work(T + 1) = tc
+          work(Tdot + 1) = 1.0
+        }
+        var k = 2
+        while (k < n) {
+          work(T + k) = 2.0 * tc * work(T + k - 1) - work(T + k - 2)
+          work(Tdot + k) = 2.0 * work(T + k - 1) + 2.0 * tc * work(Tdot + k - 1) - work(Tdot + k - 2)
+          k += 1
+        }
+      }
+
+      val pos = ptr.entryPoint - 1 + components * granule * n
+      var i = 0
+      while (i < components) {
+        val base = pos + i * n
+        var p = 0.0
+        var v = 0.0
+        var k = n - 1
+        while (k >= 0) {
+          val a = buffer.get(base + k)
+          p += a * work(workOffset + k)
+          v += a * work(workOffset + n + k)
+          k -= 1
+        }
+        out(2 * components * index + i) = p * scale
+        out(2 * components * index + components + i) = v * vScale
+        i += 1
+      }
+      index += 1
+    }
+  }
+
+  /**
+   * Index of the granule that contains the specified time.
+   *
+   * @param t     Time since the beginning of the record [days].
+   * @param g     Number of granules in the record.
+   * @param T_sub Length of a single granule [days].
+   */
+  private def granuleIndex(t: Double, g: Int, T_sub: Double) =
+    if (g == 1) 0 else math.max(0, math.ceil(t / T_sub).toInt - 1)
+
+  /**
+   * Clenshaw recurrence for a Chebyshev series (b) and its derivative (d) with coefficients in this record.
+   *
+   * @param pos        Offset of the coefficients of the first component in the record.
+   * @param n          Number of coefficients per component.
+   * @param components Number of components.
+   * @param tc         Normalized time in the granule [-1, 1].
+   * @param scale      Scale factor applied to the values.
+   * @param vScale     Scale factor applied to the derivatives with respect to the normalized time.
+   * @param out        Output array.
+   * @param index      Index of the first value in the output array.
+   * @param stride     Distance between two successive values in the output array.
+   * @param accumulate When true, the results are added to the existing values in the output array.
+   */
+  private def clenshaw(pos: Int, n: Int, components: Int, tc: Double, scale: Double, vScale: Double,
+                       out: Array[Double], index: Int, stride: Int, accumulate: Boolean) {
+    val tc2 = 2.0 * tc
+    var i = 0
+    while (i < components) {
+      val base = pos + i * n
+      var b1 = 0.0
+      var b2 = 0.0
+      var d1 = 0.0
+      var d2 = 0.0
+      var k = n - 1
+      while (k > 0) {
+        val b0 = buffer.get(base + k) + tc2 * b1 - b2
+        val d0 = 2.0 * b1 + tc2 * d1 - d2
+        b2 = b1
+        b1 = b0
+        d2 = d1
+        d1 = d0
+        k -= 1
+      }
+      val p = (buffer.get(base) + tc * b1 - b2) * scale
+      val v = (b1 + tc * d1 - d2) * vScale
+
+      val pIndex = index + i * stride
+      val vIndex = index + (components + i) * stride
+      if (accumulate) {
+        out(pIndex) += p
+        out(vIndex) += v
+      } else {
+        out(pIndex) = p
+        out(vIndex) = v
+      }
+      i += 1
+    }
+  }
+
+  /** Copy of all the raw data in this record (including the record begin and end epoch). */
+  def data: Array[Double] = {
+    val view = buffer.duplicate()
+    view.rewind()
+    val array = Array.ofDim[Double](view.remaining())
+    view.get(array)
+    array
   }
 
 }
@@ -310,6 +665,32 @@ class Metadata(val recordEntries: Int,
                val coeffPtr: List[RecordMetadata],
                val headerID: Int) {
   val numConst = tags.size
+  /** Julian date (TDB) of the start of the ephemeris */
+  val startJd = range.start.jd
+  /** Entry points of the coefficients, indexed by body id */
+  val coeffPtrArray = coeffPtr.toArray
+  /** Largest number of coefficients per component of any entry */
+  val maxCoefficients = coeffPtr.foldLeft(0)((n, ptr) => math.max(n, ptr.nrCoefficients))
+}
+
+object Metadata {
+
+  /** Index of the nutations in the coefficient pointers, the only entry with two components instead of three. */
+  val nutationIndex = 11
+
+  /** Number of components (coordinates) of the entry with the given index in the coefficient pointers. */
+  def components(index: Int) = if (index == nutationIndex) 2 else 3
+
+  /**
+   * Minimum number of double entries in a record required to hold all the coefficients (the record can be padded).
+   *
+   * @param coeffPtr Entry points for the coefficients of the different bodies.
+   */
+  def coefficientEntries(coeffPtr: Seq[RecordMetadata]) =
+    coeffPtr.zipWithIndex.foldLeft(2) {
+      case (entries, (ptr, index)) => math.max(entries, ptr.entryPoint - 1 + ptr.nrCoefficients * ptr.nrGranules * components(index))
+    }
+
 }
 
 /**
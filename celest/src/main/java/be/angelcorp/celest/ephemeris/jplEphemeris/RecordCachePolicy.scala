@@ -0,0 +1,70 @@
+package be.angelcorp.celest.ephemeris.jplEphemeris
+
+import scala.concurrent.duration.FiniteDuration
+import com.google.common.cache.{Weigher, CacheBuilder}
+
+/**
+ * Policy for the cache of data records of a [[be.angelcorp.celest.ephemeris.jplEphemeris.BinaryEphemeris]].
+ *
+ * Records are weighed by their size in bytes, so that both a maximum number of records and a maximum size can be
+ * enforced (whichever is the most restrictive). The policy can be configured for the universe using
+ * [[be.angelcorp.celest.universe.modules.DefaultJplEphemeris]].
+ *
+ * {{{
+ *   // Keep at most 64MB of records, and release records unused for 10 minutes
+ *   RecordCachePolicy(maximumRecords = None, maximumBytes = Some(64L << 20), expireAfterAccess = Some(10.minutes))
+ *   // Load all the records of a small subset ephemeris up front
+ *   RecordCachePolicy(pinAll = true)
+ *   // Load the next 4 records in the background during a propagation
+ *   RecordCachePolicy(prefetchRecords = 4)
+ *   // Precompute the combined Earth and Moon coefficients of each record
+ *   RecordCachePolicy(derivedBodies = true)
+ * }}}
+ *
+ * @param maximumRecords    Maximum number of records in the cache (None for no limit on the number of records).
+ * @param maximumBytes      Maximum size of the records in the cache [bytes] (None for no limit on the size).
+ * @param expireAfterAccess Evict records that have not been accessed for the given duration (None to never expire).
+ * @param pinAll            Load all the records when the ephemeris is opened, and never evict any of them.
+ * @param recordStats       Keep track of the cache statistics (hits, misses, load times, evictions).
+ * @param prefetchRecords   Number of records to load in the background ahead of sequential access (0 to disable).
+ * @param derivedBodies     Precompute combined coefficients for the Earth and Moon (see [[be.angelcorp.celest.ephemeris.jplEphemeris.DerivedBodyCache]]).
+ */
+case class RecordCachePolicy(maximumRecords: Option[Long] = Some(100),
+                             maximumBytes: Option[Long] = None,
+                             expireAfterAccess: Option[FiniteDuration] = None,
+                             pinAll: Boolean = false,
+                             recordStats: Boolean = true,
+                             prefetchRecords: Int = 0,
+                             derivedBodies: Boolean = false) {
+
+  /**
+   * Maximum total weight of the records in the cache.
+   *
+   * @param recordSize Size of a single record [bytes].
+   * @return The maximum cache weight [bytes], or None when the cache is unbounded.
+   */
+  def maximumWeight(recordSize: Int): Option[Long] =
+    if (pinAll) None
+    else (maximumRecords.map(_ * recordSize) ++ maximumBytes).reduceOption(_ min _)
+
+  /**
+   * Create a cache builder configured according to this policy.
+   *
+   * @param recordSize Size of a single record [bytes].
+   */
+  def newBuilder(recordSize: Int): CacheBuilder[AnyRef, AnyRef] = {
+    var builder = CacheBuilder.newBuilder()
+    if (recordStats)
+      builder = builder.recordStats()
+    if (!pinAll)
+      expireAfterAccess.foreach(duration => builder = builder.expireAfterAccess(duration.length, duration.unit))
+    maximumWeight(recordSize) match {
+      case Some(weight) =>
+        builder.maximumWeight(weight).weigher[AnyRef, AnyRef](new Weigher[AnyRef, AnyRef] {
+          def weigh(key: AnyRef, value: AnyRef) = recordSize
+        })
+      case None => builder
+    }
+  }
+
+}
@@ -0,0 +1,87 @@
+package be.angelcorp.celest.ephemeris.jplEphemeris
+
+import java.util.Collections
+import java.util.concurrent.{ConcurrentHashMap, Executor, Executors}
+import com.google.common.util.concurrent.ThreadFactoryBuilder
+import org.slf4j.LoggerFactory
+
+/**
+ * Loads the records ahead of a sequential walk through an ephemeris on a background thread.
+ *
+ * Propagations walk through time almost monotonically. The prefetcher tracks the last record index accessed by every
+ * thread, and when a thread moves to an adjacent record, the next records in the same direction are warmed in the
+ * background. This way the caller thread does not stall on I/O when crossing a record boundary.
+ *
+ * A record that is already waiting to be warmed is not requested again. By default all the prefetchers share a
+ * single daemon thread ([[be.angelcorp.celest.ephemeris.jplEphemeris.RecordPrefetcher#sharedExecutor]]), so no
+ * thread has to be released when an ephemeris is no longer used.
+ *
+ * @param records     Number of records to warm ahead of the direction of travel.
+ * @param recordCount Total number of records in the ephemeris.
+ * @param warm        Function that loads the record with the given index (for example into a cache).
+ * @param executor    Executor that runs the background loads.
+ */
+class RecordPrefetcher(val records: Int, recordCount: Int, warm: Int => Unit,
+                       executor: Executor = RecordPrefetcher.sharedExecutor) {
+  private val logger = LoggerFactory.getLogger(getClass)
+
+  /** Last record index accessed by the current thread */
+  private val lastIndex = new ThreadLocal[Array[Int]] {
+    override def initialValue() = Array(-1)
+  }
+
+  /** Indices of the records that are waiting to be warmed */
+  private val pending = Collections.newSetFromMap(new ConcurrentHashMap[Integer, java.lang.Boolean]())
+
+  /**
+   * Signal that a record is accessed by the current thread.
+   *
+   * @param index Index of the accessed record.
+   */
+  def accessed(index: Int) {
+    val last = lastIndex.get()
+    val previous = last(0)
+    if (index != previous) {
+      last(0) = index
+      // Only prefetch for sequential access, random access has no direction of travel
+      if (previous >= 0 && math.abs(index - previous) == 1)
+        prefetch(index, index - previous)
+    }
+  }
+
+  /**
+   * Warm the records following the given record in the background.
+   *
+   * @param index     Index of the current record.
+   * @param direction Direction of travel through the records (+1 or -1).
+   */
+  private def prefetch(index: Int, direction: Int) {
+    var k = 1
+    while (k <= records) {
+      val record = index + k * direction
+      if (record >= 0 && record < recordCount && pending.add(record))
+        executor.execute(new Runnable {
+          def run() {
+            try {
+              warm(record)
+            } catch {
+              case e: Exception => logger.warn(s"Failed to prefetch ephemeris record $record", e)
+            } finally {
+              pending.remove(record)
+            }
+          }
+        })
+      k += 1
+    }
+  }
+
+}
+
+object RecordPrefetcher {
+
+  /** Background thread shared by all the record prefetchers */
+  lazy val sharedExecutor: Executor = Executors.newSingleThreadExecutor(
+    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ephemeris-prefetch-%d").build()
+  )
+
+}
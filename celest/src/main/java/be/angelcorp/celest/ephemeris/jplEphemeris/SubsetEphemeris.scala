@@ -8,6 +8,7 @@ import be.angelcorp.celest.frameGraph.ReferenceSystem
  *
  * Note that the old ephemeris is used for actually retrieving the data.
  * If you want to unload the old ephemeris, save this ephemeris object to disk (either ascii/binary) and reload it again.
+ * To also drop the bodies that are not required, see [[be.angelcorp.celest.ephemeris.jplEphemeris.BodySubsetEphemeris]].
  *
  * @param ephemeris    Backing ephemeris, provides the baseline records and metadata.
  * @param recordOffset Index of the first record to INCLUDE in this ephemeris.
@@ -18,7 +19,7 @@ class SubsetEphemeris[F <: ReferenceSystem](val ephemeris: JplEphemeris[F], val
   def frame = ephemeris.frame
 
   def records: Iterator[DataRecord] =
-    ephemeris.records.slice(recordOffset, recordOffset)
+    (recordOffset until recordLimit).iterator.map(ephemeris.getRecord)
 
   val metadata: Metadata = {
     val m = ephemeris.metadata
@@ -30,7 +31,7 @@ class SubsetEphemeris[F <: ReferenceSystem](val ephemeris: JplEphemeris[F], val
   }
 
   def getRecord(index: Int): DataRecord =
-    ephemeris.getRecord(index)
+    ephemeris.getRecord(index + recordOffset)
 
 }
 
@@ -14,8 +14,9 @@ import scala.collection.immutable.ListMap
 import org.slf4j.LoggerFactory
 import be.angelcorp.celest.universe.Universe
 import be.angelcorp.celest.util._
-import be.angelcorp.celest.time.JulianDate
+import be.angelcorp.celest.time.{Epoch, JulianDate}
 import be.angelcorp.celest.time.timeStandard.TimeStandards.TDB
+import be.angelcorp.celest.frameGraph.ReferenceSystem
 import be.angelcorp.celest.frameGraph.frames.ICRS
 
 package object jplEphemeris {
@@ -37,7 +38,7 @@ package object jplEphemeris {
   /**
    * Create a JplEphemeris object from a set of ascii data file readers.
    *
-   * - This loads all the data files in memory!
+   * - This loads all the data files in memory! Use [[asciiReader2binary]] to convert large ephemerides to binary form.
    * - Make sure you add all the data files in the correct temporal sequence.
    * - Make sure to start with the first data file (you cannot skip epochs you don't need)
    *
@@ -51,7 +52,7 @@ package object jplEphemeris {
     val metadata = ephemeris.metadata
     // Add all the additional data records to the ephemeris
     for (dataFile <- dataFiles)
-      ephemeris.addRecords(parser.ephemerisData(metadata, dataFile))
+      ephemeris.addRecords(new AsciiRecordReader(dataFile, metadata.recordEntries).records(metadata).toList)
     ephemeris
   }
 
@@ -63,9 +64,11 @@ package object jplEphemeris {
    * @param alignmentHint  Optional hint; Alignment (padding) strategy used for creating the binary ephemeris file.
    * @param endiannessHint Optional hint; Fix the endiannes of the binary ephemeris file.
    * @param tagCountHint   Optional hint; Fix the maximum number of tags embedded in the data file (usually 400).
+   * @param cachePolicy    Optional; Policy of the cache holding the data records of the ephemeris.
    */
   def fromBinary(path: Path, deNumber: Int,
-                 alignmentHint: Option[AlignmentStrategy] = None, endiannessHint: Option[ByteOrder] = None, tagCountHint: Option[Int] = None)(implicit universe: Universe) = {
+                 alignmentHint: Option[AlignmentStrategy] = None, endiannessHint: Option[ByteOrder] = None, tagCountHint: Option[Int] = None,
+                 cachePolicy: RecordCachePolicy = RecordCachePolicy())(implicit universe: Universe) = {
     // Open ephemeris file.
     val file = new RandomAccessFile(path.toFile, "r")
     // Map the first data from the file to a buffer
@@ -119,7 +122,38 @@ package object jplEphemeris {
     headerData.order(endianness)
 
     /** Determine the size and number of records in the data file */
-    val recordEntries: Int = 1018 // TODO: detect this number, as it is sometimes different
+    val recordEntries: Int = {
+      // Read the step size and the coefficient pointers
+      headerData.rewind()
+      val access = new RichByteBuffer(headerData, alignment)
+      access.buffer.position(84 * 3 + 6 * tagCount)
+      access.getAlignedDouble
+      access.getAlignedDouble
+      val ephemStep = access.getAlignedDouble
+      access.getAlignedInt
+      access.getAlignedDouble
+      access.getAlignedDouble
+      val coeffPtr = for (i <- 0 until 12) yield new RecordMetadata(access.getAlignedInt, access.getAlignedInt, access.getAlignedInt)
+      access.getAlignedInt
+      val libratPtr = new RecordMetadata(access.getAlignedInt, access.getAlignedInt, access.getAlignedInt)
+
+      // The records hold at least all the coefficients, but can be padded (eg to fit the header)
+      val required = Metadata.coefficientEntries(coeffPtr :+ libratPtr)
+      // The correct record size is found when the first data record spans exactly one step, and the second record starts where the first one ends
+      def consistent(entries: Int) = {
+        val first = 2 * entries * 8
+        val second = 3 * entries * 8
+        first + 16 <= headerData.limit() &&
+          headerData.getDouble(first + 8) - headerData.getDouble(first) == ephemStep &&
+          (second + 8 > headerData.limit() || headerData.getDouble(second) == headerData.getDouble(first + 8))
+      }
+      (required until required + 4096).find(consistent) match {
+        case Some(entries) => entries
+        case None =>
+          logger.warn(s"Could not detect the record size of the binary ephemeris, assuming $required entries per record")
+          required
+      }
+    }
     val recordSize: Int = recordEntries * 8
 
     // Read in the metadata
@@ -165,7 +199,7 @@ package object jplEphemeris {
         range, AU, EMRAT, coeffPtr.toList ::: List(libratPtr), DENUM)
     }
 
-    new BinaryEphemeris(metadata, file, endianness)
+    new BinaryEphemeris(metadata, file, endianness, cachePolicy)
   }
 
   /**
@@ -244,7 +278,7 @@ package object jplEphemeris {
    * @param alignment  Optional, alignment to use while saving (alignment/padding).
    */
   def toBinary(ephmeris: JplEphemeris[_], file: Path, endianness: ByteOrder = ByteOrder.LITTLE_ENDIAN, alignment: AlignmentStrategy = PackedAlignment.instance) {
-    val writeChannel = Files.newByteChannel(file, WRITE, CREATE)
+    val writeChannel = Files.newByteChannel(file, WRITE, CREATE, TRUNCATE_EXISTING)
 
     // Shorthand for the metadata
     val metadata = ephmeris.metadata
@@ -293,13 +327,41 @@ package object jplEphemeris {
 
     // RECORD 3 - N
     ephmeris.records.foreach(record => {
-      buffer.asDoubleBuffer().put(record.data)
+      buffer.asDoubleBuffer().put(record.buffer.duplicate())
       writeChannel.write(buffer)
       buffer.rewind()
     })
     writeChannel.close()
   }
 
+  /**
+   * Save a subset of an ephemeris object to disk in binary format.
+   *
+   * Only the coefficients required for the given bodies are retained, and only the records covering the given epoch
+   * range. The resulting file can be loaded using [[fromBinary]].
+   *
+   * {{{
+   *   // Ephemeris for only the Sun, Earth and Moon from 2020 to 2040
+   *   toBinarySubset(ephemeris, Paths.get("de405-sem.bin"), start, end, Seq(Sun(), Earth(), Moon()))
+   * }}}
+   *
+   * @param ephemeris  Ephemeris to save a subset of.
+   * @param file       File to save to.
+   * @param start      Initial (inclusive) epoch that the subset should contain.
+   * @param end        Final   (inclusive) epoch that the subset should contain.
+   * @param bodies     Bodies that the subset must be able to compute.
+   * @param nutations  Optional, retain the nutation coefficients.
+   * @param librations Optional, retain the libration coefficients.
+   * @param endianness Optional, endianness to use while saving (byte order).
+   * @param alignment  Optional, alignment to use while saving (alignment/padding).
+   */
+  def toBinarySubset[F <: ReferenceSystem](ephemeris: JplEphemeris[F], file: Path, start: Epoch, end: Epoch, bodies: Seq[JDEBody],
+                     nutations: Boolean = false, librations: Boolean = false,
+                     endianness: ByteOrder = ByteOrder.LITTLE_ENDIAN, alignment: AlignmentStrategy = PackedAlignment.instance)(implicit universe: Universe) {
+    val subset = BodySubsetEphemeris(SubsetEphemeris(ephemeris, start, end), bodies, nutations, librations)
+    toBinary(subset, file, endianness, alignment)
+  }
+
   /**
    * Convert an ascii form of the JPL ephemeris to the equivalent binary form.
    *
@@ -316,6 +378,9 @@ package object jplEphemeris {
   /**
    * Convert an ascii form of the JPL ephemeris to the equivalent binary form.
    *
+   * The data files are streamed record by record to the binary file, so only a single record is kept in memory at any
+   * time. Records that are repeated at the boundary of two consecutive data files are only written once.
+   *
    * @param header    Ascii header file reader.
    * @param dataFiles Ascii data file readers (can be Nil if the data is contained in the header).
    * @param output    Output file for the binary ephemeris.
@@ -326,27 +391,33 @@ package object jplEphemeris {
     val parser = new AsciiParser()
     // Create the ephemeris object from the header
     val ephemeris = parser.ephemeris(header)
+    val recordEntries = ephemeris.metadata.recordEntries
 
     // Write out the two header records
     toBinary(ephemeris, output, endianness, alignment)
 
     // Reopen the file to add the additional records
     val writeChannel = Files.newByteChannel(output, WRITE, APPEND)
-    val buffer = ByteBuffer.allocateDirect(ephemeris.metadata.recordEntries * 8)
+    val buffer = ByteBuffer.allocateDirect(recordEntries * 8)
     buffer.order(endianness)
-
-    // Add all the additional data records to the ephemeris
-    var lastRecord: Option[DataRecord] = None
-    for (dataFile <- dataFiles;
-         record <- parser.ephemerisData(ephemeris.metadata, dataFile)) {
-      lastRecord match {
-        case Some(rec) if rec.begin == record.begin => // Skip identical records
-        case _ => // Write the record:
-          buffer.asDoubleBuffer().put(record.data)
-          writeChannel.write(buffer)
-          buffer.rewind()
+    val doubleBuffer = buffer.asDoubleBuffer()
+
+    // Stream all the additional data records to the ephemeris file
+    val data = Array.ofDim[Double](recordEntries)
+    var lastBegin: Option[Double] = None
+    for (dataFile <- dataFiles) {
+      val reader = new AsciiRecordReader(dataFile, recordEntries)
+      while (reader.read(data)) {
+        lastBegin match {
+          case Some(begin) if begin == data(0) => // Skip identical records
+          case _ => // Write the record:
+            doubleBuffer.clear()
+            doubleBuffer.put(data)
+            buffer.clear()
+            while (buffer.hasRemaining) writeChannel.write(buffer)
+        }
+        lastBegin = Some(data(0))
       }
-      lastRecord = Some(record)
     }
     writeChannel.close()
   }
@@ -0,0 +1,264 @@
+package be.angelcorp.celest.ephemeris.spk
+
+import java.io.RandomAccessFile
+import java.nio.{ByteBuffer, ByteOrder}
+import java.nio.channels.FileChannel.MapMode
+import java.nio.file.Path
+import java.util.concurrent.ConcurrentHashMap
+import org.slf4j.LoggerFactory
+import be.angelcorp.celest.body.Body
+import be.angelcorp.celest.ephemeris.jplEphemeris._
+import be.angelcorp.celest.frameGraph.frames.ICRS
+import be.angelcorp.celest.state.PosVel
+import be.angelcorp.celest.time.Epoch
+import be.angelcorp.celest.universe.Universe
+
+/**
+ * Ephemeris that reads the Chebyshev segments (type 2 and 3) of a NAIF SPICE SPK file (DAF/BSP format).
+ *
+ * When the file is opened, the summaries of all the segments are read, and the data of each segment is memory mapped.
+ * The segments are indexed per target body (see [[be.angelcorp.celest.ephemeris.spk.SpkSegmentIndex]]).
+ *
+ * The state of a body relative to another is computed by chaining the segments through their center bodies (eg
+ * spacecraft -> Mars barycenter -> solar system barycenter). This chain is resolved once in a
+ * [[be.angelcorp.celest.ephemeris.spk.SpkQueryPlan]], which can be reused for all the subsequent queries:
+ *
+ * {{{
+ *   val spk  = SpkEphemeris(Paths.get("de430.bsp"))
+ *   val plan = spk.plan(target = 301, center = 399) // Moon relative to the Earth
+ *   val state = Array.ofDim[Double](6)
+ *   plan.stateInto(tdbJd, state, 0)
+ * }}}
+ *
+ * Only segments in the J2000 frame (NAIF frame id 1) are used, which is treated as ICRS.
+ *
+ * @param file Binary SPK file.
+ */
+class SpkEphemeris(val file: RandomAccessFile)(implicit val universe: Universe) {
+  private val logger = LoggerFactory.getLogger(getClass)
+
+  val frame = universe.instance[ICRS]
+
+  private val channel = file.getChannel
+
+  /** Size of a DAF record [bytes] */
+  private val recordSize = 1024
+
+  /** Header of the file: byte order, number of double (ND) and integer (NI) summary components, first summary record */
+  private val (endianness, nd, ni, firstSummary) = {
+    val header = channel.map(MapMode.READ_ONLY, 0, recordSize)
+    val idWord = ascii(header, 0, 8)
+    if (!idWord.startsWith("DAF/SPK") && !idWord.startsWith("NAIF/DAF"))
+      throw new IllegalArgumentException(s"Not a SPK file, file identification word is '$idWord'")
+    val endianness = ascii(header, 88, 8) match {
+      case "LTL-IEEE" => ByteOrder.LITTLE_ENDIAN
+      case "BIG-IEEE" => ByteOrder.BIG_ENDIAN
+      case _ => // Older files do not list the byte order, check which one results in a sensible ND
+        if (header.order(ByteOrder.LITTLE_ENDIAN).getInt(8) == 2) ByteOrder.LITTLE_ENDIAN else ByteOrder.BIG_ENDIAN
+    }
+    header.order(endianness)
+    (endianness, header.getInt(8), header.getInt(12), header.getInt(76))
+  }
+
+  /** All the supported segments in the file, in file order */
+  val segments: IndexedSeq[SpkSegment] = {
+    val summarySize = nd + (ni + 1) / 2 // [doubles]
+    val result = IndexedSeq.newBuilder[SpkSegment]
+    var order = 0
+    var record = firstSummary
+    while (record > 0) {
+      val summaries = channel.map(MapMode.READ_ONLY, (record - 1).toLong * recordSize, recordSize).order(endianness)
+      val next = summaries.getDouble(0).toInt
+      val count = summaries.getDouble(16).toInt
+      for (i <- 0 until count) {
+        val offset = (3 + i * summarySize) * 8
+        val start = summaries.getDouble(offset)
+        val end = summaries.getDouble(offset + 8)
+        val ints = offset + nd * 8
+        val target = summaries.getInt(ints)
+        val center = summaries.getInt(ints + 4)
+        val frameId = summaries.getInt(ints + 8)
+        val dataType = summaries.getInt(ints + 12)
+        val begin = summaries.getInt(ints + 16)
+        val last = summaries.getInt(ints + 20)
+
+        if ((dataType == 2 || dataType == 3) && frameId == 1) {
+          val size = (last - begin + 1).toLong * 8
+          if (size > Int.MaxValue)
+            throw new UnsupportedOperationException(s"SPK segment of body $target is larger than 2GB")
+          val data = channel.map(MapMode.READ_ONLY, (begin - 1).toLong * 8, size).order(endianness).asDoubleBuffer()
+          result += new SpkSegment(target, center, frameId, dataType, start, end, order, data)
+        } else {
+          logger.warn(s"Skipping SPK segment of body $target relative to $center (type $dataType, frame $frameId), only type 2/3 segments in frame 1 are supported")
+        }
+        order += 1
+      }
+      record = next
+    }
+    result.result()
+  }
+
+  /** Index of the segments of each target body */
+  val indices: Map[Int, SpkSegmentIndex] = segments.groupBy(_.target).map {
+    case (target, targetSegments) =>
+      // The chain through the center bodies must be fixed, so only the center of the latest segment is used
+      val center = targetSegments.maxBy(_.order).center
+      val (used, ignored) = targetSegments.partition(_.center == center)
+      if (ignored.nonEmpty)
+        logger.warn(s"Ignoring ${ignored.size} SPK segments of body $target that are not relative to body $center")
+      target -> new SpkSegmentIndex(target, center, used)
+  }
+
+  /** Query plans that have been resolved before */
+  private val plans = new ConcurrentHashMap[(Int, Int), SpkQueryPlan]()
+
+  /**
+   * Chain of segment indices from a body up to the root of the segment tree (usually the solar system barycenter).
+   *
+   * @return The indices from the body to the root, and the id of the root body.
+   */
+  private def chain(body: Int): (List[SpkSegmentIndex], Int) = {
+    var path = List.empty[SpkSegmentIndex]
+    var current = body
+    while (indices.contains(current)) {
+      val index = indices(current)
+      if (path.exists(_ eq index))
+        throw new IllegalStateException(s"The SPK segments of body $body are defined in a cycle")
+      path = index :: path
+      current = index.center
+    }
+    (path.reverse, current)
+  }
+
+  /**
+   * Resolve the chain of segments required to compute the state of a target body relative to a center body.
+   *
+   * @param target NAIF id of the target body.
+   * @param center NAIF id of the center body (0 for the solar system barycenter).
+   */
+  def plan(target: Int, center: Int = 0): SpkQueryPlan = {
+    val key = (target, center)
+    val cached = plans.get(key)
+    if (cached != null) cached
+    else {
+      val (targetChain, targetRoot) = chain(target)
+      val (centerChain, centerRoot) = chain(center)
+      if (targetRoot != centerRoot)
+        throw new SpkCoverageException(s"The SPK file does not connect body $target to body $center")
+
+      // Remove the common part of both chains, it cancels out
+      var targetPath = targetChain.reverse
+      var centerPath = centerChain.reverse
+      while (targetPath.nonEmpty && centerPath.nonEmpty && (targetPath.head eq centerPath.head)) {
+        targetPath = targetPath.tail
+        centerPath = centerPath.tail
+      }
+
+      // Segments are in [km] and [km/s]
+      val links = targetPath ++ centerPath
+      val scales = targetPath.map(_ => 1000.0) ++ centerPath.map(_ => -1000.0)
+      val plan = new SpkQueryPlan(target, center, links.toArray, scales.toArray)
+      plans.put(key, plan)
+      plan
+    }
+  }
+
+  /**
+   * Resolve the chain of segments required to compute the state of a body as in a JPL DE ephemeris.
+   *
+   * All the bodies are relative to the solar system barycenter, except for the geocentric moon (relative to the Earth).
+   *
+   * @param body Body for which the state is desired.
+   */
+  def plan(body: JDEBody): SpkQueryPlan = body match {
+    case MoonGEO() => plan(301, 399)
+    case _ => plan(SpkEphemeris.naifId(body))
+  }
+
+  /**
+   * Compute the state of a target body relative to a center body.
+   *
+   * @param epoch  Epoch for which the state is desired.
+   * @param target NAIF id of the target body.
+   * @param center NAIF id of the center body (0 for the solar system barycenter).
+   * @return State of the body in [m] and [m/s].
+   */
+  def interpolateState(epoch: Epoch, target: Int, center: Int): PosVel[ICRS] =
+    interpolateState(epoch, plan(target, center))
+
+  /**
+   * Compute the state of a body as in a JPL DE ephemeris.
+   *
+   * @param epoch Epoch for which the state is desired.
+   * @param body  Body for which the state is desired.
+   * @return State of the body in [m] and [m/s].
+   */
+  def interpolateState(epoch: Epoch, body: JDEBody): PosVel[ICRS] =
+    interpolateState(epoch, plan(body))
+
+  /**
+   * Compute the state of a body using a resolved query plan.
+   *
+   * @param epoch Epoch for which the state is desired.
+   * @param plan  Resolved chain of segments.
+   * @return State of the body in [m] and [m/s].
+   */
+  def interpolateState(epoch: Epoch, plan: SpkQueryPlan): PosVel[ICRS] = {
+    val state = Array.ofDim[Double](6)
+    plan.stateInto(epoch.jd, state, 0)
+    PosVel(state, frame)
+  }
+
+  /**
+   * Retrieve a body that computes its orbit using this SPK ephemeris.
+   *
+   * @param target NAIF id of the target body.
+   * @param μ      Gravitational parameter of the body [m^3/s^2] (not contained in a SPK file).
+   * @param center NAIF id of the center body (0 for the solar system barycenter).
+   */
+  def body(target: Int, μ: Double, center: Int = 0): Body[ICRS] = {
+    val bodyPlan = plan(target, center)
+    val gm = μ
+    new Body[ICRS] {
+      val μ = gm
+      def orbit(epoch: Epoch): PosVel[ICRS] = interpolateState(epoch, bodyPlan)
+    }
+  }
+
+  private def ascii(buffer: ByteBuffer, offset: Int, length: Int) =
+    new String((0 until length).map(i => buffer.get(offset + i).toChar).toArray).trim
+
+}
+
+object SpkEphemeris {
+
+  /**
+   * Open a SPK ephemeris file.
+   *
+   * @param path Path to the SPK file (eg de430.bsp).
+   */
+  def apply(path: Path)(implicit universe: Universe) =
+    new SpkEphemeris(new RandomAccessFile(path.toFile, "r"))
+
+  /**
+   * NAIF id of a body in a JPL DE ephemeris.
+   *
+   * Note that the planets of a DE ephemeris are their system barycenters, and the geocentric Moon maps to the Moon.
+   */
+  def naifId(body: JDEBody) = body match {
+    case Mercury() => 1
+    case Venus() => 2
+    case EMB() => 3
+    case Mars() => 4
+    case Jupiter() => 5
+    case Saturn() => 6
+    case Uranus() => 7
+    case Neptune() => 8
+    case Pluto() => 9
+    case Sun() => 10
+    case Earth() => 399
+    case Moon() | MoonGEO() => 301
+    case SSB() => 0
+  }
+
+}
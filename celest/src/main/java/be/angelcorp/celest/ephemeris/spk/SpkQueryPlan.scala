@@ -0,0 +1,37 @@
+package be.angelcorp.celest.ephemeris.spk
+
+/**
+ * Resolved chain of SPK segments to compute the state of a target body relative to a center body.
+ *
+ * The state is the sum of the states of the segment indices from the target up to the common ancestor, minus the sum
+ * of the states from the center up to the same ancestor. Only the segment lookup (binary search per link) remains for
+ * each query.
+ *
+ * @param target NAIF id of the target body.
+ * @param center NAIF id of the center body.
+ * @param links  Segment indices to evaluate.
+ * @param scales Scale factor for each of the segment indices (sign and unit conversion).
+ */
+class SpkQueryPlan(val target: Int, val center: Int, links: Array[SpkSegmentIndex], scales: Array[Double]) {
+
+  /** Number of segment evaluations required for each query */
+  def length = links.length
+
+  /**
+   * Compute the state of the target relative to the center, without allocating any intermediate objects.
+   *
+   * @param tdbJd  Julian date (TDB) for which the state is desired.
+   * @param out    Output array for the state {x, y, z, vx, vy, vz} [m] and [m/s].
+   * @param offset Index of the first element in the output array to write.
+   */
+  def stateInto(tdbJd: Double, out: Array[Double], offset: Int) {
+    val et = (tdbJd - 2451545.0) * 86400.0
+    java.util.Arrays.fill(out, offset, offset + 6, 0.0)
+    var i = 0
+    while (i < links.length) {
+      links(i).segment(et).stateInto(et, out, offset, scales(i), accumulate = true)
+      i += 1
+    }
+  }
+
+}
@@ -0,0 +1,154 @@
+package be.angelcorp.celest.ephemeris.spk
+
+import java.nio.DoubleBuffer
+
+/**
+ * A single Chebyshev segment of a SPICE SPK file (type 2 or type 3).
+ *
+ * The data of the segment is a sequence of fixed size records, followed by a directory of four values:
+ *
+ * {{{
+ *   | record 1 | record 2 | ... | record N | INIT | INTLEN | RSIZE | N |
+ * }}}
+ *
+ * Each record starts with the midpoint and radius of its time interval [s], followed by the Chebyshev coefficients for
+ * the position [km] (type 2), or position [km] and velocity [km/s] (type 3). The data buffer is only accessed using
+ * absolute get operations, so a segment can be shared between threads.
+ *
+ * @param target   NAIF id of the target body.
+ * @param center   NAIF id of the center body.
+ * @param frame    NAIF id of the reference frame (1 for J2000).
+ * @param dataType SPK segment type (2 or 3).
+ * @param start    Start of the segment coverage [s past J2000 TDB].
+ * @param end      End of the segment coverage [s past J2000 TDB].
+ * @param order    Order of the segment in the file, later segments take precedence over earlier ones.
+ * @param data     Raw data of the segment, including the trailing directory.
+ */
+class SpkSegment(val target: Int, val center: Int, val frame: Int, val dataType: Int,
+                 val start: Double, val end: Double, val order: Int, data: DoubleBuffer) {
+
+  private val size = data.limit()
+  /** Start epoch of the first record [s past J2000 TDB] */
+  private val init = data.get(size - 4)
+  /** Length of the interval covered by each record [s] */
+  private val intlen = data.get(size - 3)
+  /** Number of doubles in each record */
+  private val rsize = data.get(size - 2).toInt
+  /** Number of records */
+  private val records = data.get(size - 1).toInt
+  /** Number of coefficients per component */
+  private val n = if (dataType == 2) (rsize - 2) / 3 else (rsize - 2) / 6
+
+  if (dataType != 2 && dataType != 3)
+    throw new UnsupportedOperationException(s"SPK segment type $dataType is not supported, only types 2 and 3 are")
+
+  /** Check if the segment covers the given epoch [s past J2000 TDB]. */
+  def covers(et: Double) = start <= et && et <= end
+
+  /**
+   * Compute the state of the target relative to the center.
+   *
+   * The state is written as {x, y, z, vx, vy, vz} starting at the offset in the output array, in [km] and [km/s]
+   * multiplied by the scale factor.
+   *
+   * @param et         Epoch at which to compute the state [s past J2000 TDB].
+   * @param out        Output array for the state.
+   * @param offset     Index of the first element in the output array to write.
+   * @param scale      Factor applied to the state (for example -1000 to subtract a state in [m]).
+   * @param accumulate When true, the (scaled) state is added to the existing values in the output array.
+   */
+  def stateInto(et: Double, out: Array[Double], offset: Int, scale: Double = 1.0, accumulate: Boolean = false) {
+    val record = math.min(math.max(((et - init) / intlen).toInt, 0), records - 1)
+    val base = record * rsize
+    val mid = data.get(base)
+    val radius = data.get(base + 1)
+    val x = (et - mid) / radius
+    val pos = base + 2
+
+    // Evaluate the Chebyshev polynomials T and their derivatives dT/dx for all three components at once
+    var t0 = 1.0
+    var t1 = x
+    var d0 = 0.0
+    var d1 = 1.0
+    var px = data.get(pos)
+    var py = data.get(pos + n)
+    var pz = data.get(pos + 2 * n)
+    var vx = 0.0
+    var vy = 0.0
+    var vz = 0.0
+    if (n > 1) {
+      px += data.get(pos + 1) * t1
+      py += data.get(pos + n + 1) * t1
+      pz += data.get(pos + 2 * n + 1) * t1
+      vx += data.get(pos + 1)
+      vy += data.get(pos + n + 1)
+      vz += data.get(pos + 2 * n + 1)
+    }
+    var k = 2
+    while (k < n) {
+      val t2 = 2.0 * x * t1 - t0
+      val d2 = 2.0 * t1 + 2.0 * x * d1 - d0
+      val cx = data.get(pos + k)
+      val cy = data.get(pos + n + k)
+      val cz = data.get(pos + 2 * n + k)
+      px += cx * t2
+      py += cy * t2
+      pz += cz * t2
+      vx += cx * d2
+      vy += cy * d2
+      vz += cz * d2
+      t0 = t1
+      t1 = t2
+      d0 = d1
+      d1 = d2
+      k += 1
+    }
+
+    if (dataType == 3) {
+      // Type 3 has separate velocity coefficients
+      val vel = pos + 3 * n
+      vx = 0.0
+      vy = 0.0
+      vz = 0.0
+      t0 = 1.0
+      t1 = x
+      k = 0
+      while (k < n) {
+        val t = if (k == 0) 1.0 else if (k == 1) x else {
+          val t2 = 2.0 * x * t1 - t0
+          t0 = t1
+          t1 = t2
+          t2
+        }
+        vx += data.get(vel + k) * t
+        vy += data.get(vel + n + k) * t
+        vz += data.get(vel + 2 * n + k) * t
+        k += 1
+      }
+    } else {
+      // dx/dt = 1 / radius
+      vx /= radius
+      vy /= radius
+      vz /= radius
+    }
+
+    if (accumulate) {
+      out(offset) += scale * px
+      out(offset + 1) += scale * py
+      out(offset + 2) += scale * pz
+      out(offset + 3) += scale * vx
+      out(offset + 4) += scale * vy
+      out(offset + 5) += scale * vz
+    } else {
+      out(offset) = scale * px
+      out(offset + 1) = scale * py
+      out(offset + 2) = scale * pz
+      out(offset + 3) = scale * vx
+      out(offset + 4) = scale * vy
+      out(offset + 5) = scale * vz
+    }
+  }
+
+  override def toString = s"SpkSegment(target=$target, center=$center, type=$dataType, [$start, $end])"
+
+}
@@ -0,0 +1,66 @@
+package be.angelcorp.celest.ephemeris.spk
+
+/**
+ * All the segments of a single target body, indexed for a fast lookup by epoch.
+ *
+ * The segments are sorted by their start epoch, so the candidate segments can be found using a binary search. When
+ * segments overlap, the segment that appears last in the file is used (as in the SPICE toolkit). For non-overlapping
+ * segments, the last segment that was found is remembered, so the binary search is skipped for successive lookups in
+ * the same segment.
+ *
+ * @param target   NAIF id of the target body.
+ * @param center   NAIF id of the center body of all the segments.
+ * @param segments Segments of the target body relative to the center body.
+ */
+class SpkSegmentIndex(val target: Int, val center: Int, segments: Seq[SpkSegment]) {
+
+  private val sorted = segments.sortBy(_.start).toArray
+  private val starts = sorted.map(_.start)
+  /** Maximum end epoch of all the segments up to (and including) each index */
+  private val maximumEnd = sorted.scanLeft(Double.NegativeInfinity)((end, segment) => math.max(end, segment.end)).tail
+
+  /** True when no two segments overlap, so any segment covering an epoch is the one to use */
+  private val disjoint = sorted.indices.drop(1).forall(i => maximumEnd(i - 1) < starts(i))
+
+  /** Last segment that was found */
+  @volatile private var last: SpkSegment = sorted.head
+
+  /** Start of the coverage of this index [s past J2000 TDB] */
+  val start = starts.head
+  /** End of the coverage of this index [s past J2000 TDB] */
+  val end = maximumEnd.last
+
+  /**
+   * Find the segment to use for the given epoch.
+   *
+   * @param et Epoch to find the segment for [s past J2000 TDB].
+   * @throws SpkCoverageException When no segment covers the requested epoch.
+   */
+  def segment(et: Double): SpkSegment = {
+    val cached = last
+    if (disjoint && cached.covers(et)) cached
+    else {
+      // Index of the last segment that starts before (or at) the epoch
+      var i = java.util.Arrays.binarySearch(starts, et)
+      if (i < 0) i = -i - 2
+      else while (i + 1 < starts.length && starts(i + 1) == et) i += 1
+
+      // Scan back over all the segments that can still cover the epoch, and retain the one latest in the file
+      var found: SpkSegment = null
+      while (i >= 0 && maximumEnd(i) >= et) {
+        val candidate = sorted(i)
+        if (candidate.covers(et) && (found == null || candidate.order > found.order))
+          found = candidate
+        i -= 1
+      }
+      if (found == null)
+        throw new SpkCoverageException(s"No SPK segment for body $target covers epoch $et s past J2000 (coverage [$start, $end])")
+      last = found
+      found
+    }
+  }
+
+}
+
+/** Exception thrown when a SPK ephemeris does not contain data for the requested body or epoch. */
+class SpkCoverageException(message: String) extends RuntimeException(message)
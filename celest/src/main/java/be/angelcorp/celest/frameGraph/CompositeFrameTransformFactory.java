@@ -15,6 +15,7 @@
  */
 package be.angelcorp.celest.frameGraph;
 
+import be.angelcorp.celest.frameGraph.transformations.FlattenedTransformFactory;
 import be.angelcorp.celest.time.Epoch;
 
 /**
@@ -97,6 +98,16 @@ public class CompositeFrameTransformFactory<F0 extends ReferenceSystem,
         return inverseFactory;
     }
 
+    /**
+     * Get a factory that composes the complete chain of transforms of this factory into a single transform for each
+     * epoch (see {@link FlattenedTransformFactory}).
+     *
+     * @return A factory producing flattened transforms from F0 to F2.
+     */
+    public FlattenedTransformFactory<F0, F2> flatten() {
+        return new FlattenedTransformFactory<>(this);
+    }
+
     @Override
     public F2 toFrame() {
         return factory1.toFrame();
@@ -148,4 +148,15 @@ trait ReferenceFrameGraph {
    */
   def getTransformFactory[F <: ReferenceSystem, T <: ReferenceSystem](from: F, to: T): Option[ReferenceFrameTransformFactory[F, T]]
 
+  /**
+   * Get a precompiled handle for the transformations between two known ReferenceFrames. The path between the frames
+   * is resolved once, so the handle can be reused to create transformations at any epoch without searching the graph.
+   *
+   * @param from  Origin reference frame.
+   * @param to    Destination reference frame.
+   * @return A TransformHandle producing transformations between the two provided reference frameGraph, or None when
+   *         no transformation chain exists between them.
+   */
+  def getTransformHandle[F <: ReferenceSystem, T <: ReferenceSystem](from: F, to: T): Option[TransformHandle[F, T]]
+
 }
@@ -15,11 +15,12 @@
  */
 package be.angelcorp.celest.frameGraph
 
+import java.util.concurrent.ConcurrentHashMap
 import scala.collection.JavaConverters._
 import org.jgrapht.WeightedGraph
 import org.slf4j.LoggerFactory
 import org.jgrapht.alg.DijkstraShortestPath
-import be.angelcorp.celest.time.Epoch
+import be.angelcorp.celest.time.{MemoizedEpoch, Epoch}
 import org.jgrapht.graph.DefaultDirectedWeightedGraph
 
 
@@ -27,6 +28,9 @@ import org.jgrapht.graph.DefaultDirectedWeightedGraph
  * Implementation of the ReferenceFrameGraph. This is the graph that contains all the reference
  * frameGraph, and the possible transforms between them.
  *
+ * The shortest path between two frames, and the factory composed from it, are cached per (from, to) pair. The cache
+ * is cleared when a frame or transform is attached to the graph.
+ *
  * @param graph This is the JGraphT that actually describes the ReferenceFrames and there connections
  *
  * @author Simon Billemont
@@ -35,8 +39,28 @@ class ReferenceFrameGraphImpl(graph: WeightedGraph[ReferenceSystem, ReferenceFra
 
   val logger = LoggerFactory.getLogger(getClass)
 
+  /** Composed factories of the resolved paths (None when the frames are not connected) */
+  private val factories = new ConcurrentHashMap[(ReferenceSystem, ReferenceSystem), Option[ReferenceFrameTransformFactory[_, _]]]()
+
+  /** Number of modifications of the graph, used to detect stale paths */
+  @volatile private var modifications = 0L
+
+  /**
+   * Version of the graph, incremented each time a frame or transform is attached.
+   */
+  def version = modifications
+
+  /** Clear all the cached paths */
+  private def invalidate() {
+    synchronized {
+      modifications += 1
+      factories.clear()
+    }
+  }
+
   def attachFrame(frame: ReferenceSystem) {
     graph.addVertex(frame)
+    invalidate()
   }
 
 
@@ -45,8 +69,10 @@ class ReferenceFrameGraphImpl(graph: WeightedGraph[ReferenceSystem, ReferenceFra
       logger.debug("Tried to add transform between frame {} and {}, but frame {} does not exist in the graph", Array[Object](frame1, frame2, frame1))
     else if (!graph.containsVertex(frame2))
       logger.debug("Tried to add transform between frame {} and {}, but frame {} does not exist in the graph", Array[Object](frame1, frame2, frame2))
-    else
+    else {
       graph.addEdge(frame1, frame2, transform)
+      invalidate()
+    }
   }
 
   /**
@@ -74,31 +100,40 @@ class ReferenceFrameGraphImpl(graph: WeightedGraph[ReferenceSystem, ReferenceFra
    * @return A path describing all the nodes to visit (in sequence) that lead from the origin to the
    *         destination.
    */
-  def findPath(from: ReferenceSystem => Boolean, to: ReferenceSystem => Boolean): Option[Seq[ReferenceFrameTransformFactory[_, _]]] = {
-    val all_frames = graph.vertexSet()
+  def findPath(from: ReferenceSystem => Boolean, to: ReferenceSystem => Boolean): Option[Seq[ReferenceFrameTransformFactory[_, _]]] =
+    findFrames(from, to).flatMap(frames => findPath(frames._1, frames._2))
 
-    var to_instance: ReferenceSystem = null
+  /**
+   * Find the first frames matching the origin and destination predicates, stopping as soon as both are found.
+   */
+  private def findFrames(from: ReferenceSystem => Boolean, to: ReferenceSystem => Boolean): Option[(ReferenceSystem, ReferenceSystem)] = {
+    val frames = graph.vertexSet().iterator()
     var from_instance: ReferenceSystem = null
-    var from_found: Boolean = false
-    var to_found: Boolean = false
-    for (frame <- all_frames.asScala) {
-      if (!from_found && from(frame)) {
-        from_instance = frame
-        from_found = true
-      }
-      if (!to_found && to(frame)) {
-        to_instance = frame
-        to_found = true
-      }
-      // TODO, break early?
-      //      if (from_found && to_found)
-      //        break
+    var to_instance: ReferenceSystem = null
+    while ((from_instance == null || to_instance == null) && frames.hasNext) {
+      val frame = frames.next()
+      if (from_instance == null && from(frame)) from_instance = frame
+      if (to_instance == null && to(frame)) to_instance = frame
     }
+    if (from_instance == null || to_instance == null) None else Some((from_instance, to_instance))
+  }
 
-    if (from == null || to == null)
-      None
-    else
-      findPath(from_instance, to_instance)
+  /**
+   * Get the factory composed from the path between two frames, resolving the path only when it is not cached yet.
+   */
+  private def cachedTransformFactory(from: ReferenceSystem, to: ReferenceSystem): Option[ReferenceFrameTransformFactory[_, _]] = {
+    val key = (from, to)
+    val cached = factories.get(key)
+    if (cached != null) cached
+    else {
+      val version = modifications
+      val factory = findPath(from, to).flatMap(p => pathToTransformFactory(p).asInstanceOf[Option[ReferenceFrameTransformFactory[_, _]]])
+      // Do not cache a path resolved while the graph was being modified
+      synchronized {
+        if (version == modifications) factories.put(key, factory)
+      }
+      factory
+    }
   }
 
   def findReferenceFrame(frame_predicate: (ReferenceSystem) => Boolean): Option[ReferenceSystem] =
@@ -163,36 +198,33 @@ class ReferenceFrameGraphImpl(graph: WeightedGraph[ReferenceSystem, ReferenceFra
   def getTransform(from: (ReferenceSystem) => Boolean, to: (ReferenceSystem) => Boolean, epoch: Epoch): Option[ReferenceFrameTransform[_, _]] = {
     // Get the respective factory for the given input
     val factory = getTransformFactory(from, to)
-    // Create a new transform for the specific epoch
-    factory.map(_.transform(epoch))
+    // Create a new transform for the specific epoch, each time standard is only computed once for all the transforms
+    factory.map(_.transform(MemoizedEpoch(epoch)))
   }
 
   def getTransform[F <: ReferenceSystem, T <: ReferenceSystem](from: F, to: T, epoch: Epoch): Option[ReferenceFrameTransform[F, T]] = {
     // Get the respective factory for the given input
     val factory = getTransformFactory(from, to)
-    // Create a new transform for the specific epoch
-    factory.map(_.transform(epoch))
+    // Create a new transform for the specific epoch, each time standard is only computed once for all the transforms
+    factory.map(_.transform(MemoizedEpoch(epoch)))
   }
 
-  def getTransformFactory(from: (ReferenceSystem) => Boolean, to: (ReferenceSystem) => Boolean): Option[ReferenceFrameTransformFactory[_, _]] = {
-    // Find the path between the two first matching frameGraph
-    val path = findPath(from, to)
+  def getTransformFactory(from: (ReferenceSystem) => Boolean, to: (ReferenceSystem) => Boolean): Option[ReferenceFrameTransformFactory[_, _]] =
+  // Find the two first matching frameGraph, and the factory of the path between them
+    findFrames(from, to).flatMap(frames => cachedTransformFactory(frames._1, frames._2))
 
-    // Create the respective factory from the path
-    path.flatMap(p => pathToTransformFactory(p).asInstanceOf[Option[ReferenceFrameTransformFactory[_, _]]])
-  }
-
-  def getTransformFactory[F <: ReferenceSystem, T <: ReferenceSystem](from: F, to: T): Option[ReferenceFrameTransformFactory[F, T]] = {
-    // Find the path between the two first matching frameGraph
-    val path = findPath(from, to)
+  def getTransformFactory[F <: ReferenceSystem, T <: ReferenceSystem](from: F, to: T): Option[ReferenceFrameTransformFactory[F, T]] =
+    cachedTransformFactory(from, to).asInstanceOf[Option[ReferenceFrameTransformFactory[F, T]]]
 
-    // Create the respective factory from the path
-    path.flatMap(p => pathToTransformFactory(p).asInstanceOf[Some[ReferenceFrameTransformFactory[F, T]]])
+  def getTransformHandle[F <: ReferenceSystem, T <: ReferenceSystem](from: F, to: T): Option[TransformHandle[F, T]] = {
+    val version = modifications
+    getTransformFactory(from, to).map(factory => new TransformHandle(this, from, to, (version, factory)))
   }
 
   /**
    * Create an ReferenceFrameTransformFactory from a known path over various compatible ReferenceFrame nodes
-   * in the frame graph.
+   * in the frame graph. When the path consists of multiple transforms, the chain is flattened into a single
+   * transform for each epoch (see [[be.angelcorp.celest.frameGraph.transformations.FlattenedTransformFactory]]).
    *
    * @param path The path leading from one specific frame to another frame.
    * @return An ReferenceFrameTransformFactory to convert a state in the origin frame to the destination frame.
@@ -205,7 +237,10 @@ class ReferenceFrameGraphImpl(graph: WeightedGraph[ReferenceSystem, ReferenceFra
         type F1 = ReferenceSystem
         type F2 = ReferenceSystem
         factory.asInstanceOf[ReferenceFrameTransformFactory[F0, F1]].add(thisFactory.asInstanceOf[ReferenceFrameTransformFactory[F1, F2]])
-      })
+      }) match {
+        case composite: CompositeFrameTransformFactory[_, _, _] => composite.flatten()
+        case single => single
+      }
       Some(factory.asInstanceOf[ReferenceFrameTransformFactory[_ <: ReferenceSystem, _ <: ReferenceSystem]])
     } else None
   }
@@ -0,0 +1,61 @@
+package be.angelcorp.celest.frameGraph
+
+import be.angelcorp.celest.time.{MemoizedEpoch, Epoch}
+
+/**
+ * Precompiled transformation between two frames of a [[be.angelcorp.celest.frameGraph.ReferenceFrameGraphImpl]].
+ *
+ * The path between the frames is resolved and composed into a single factory once, after which the handle can be held
+ * and reused for every epoch (for example in each step of an integrator) without searching the frame graph:
+ *
+ * {{{
+ *   val itrsToIcrs = frames.getTransformHandle(itrs, icrs).get
+ *   val pv_icrs = itrsToIcrs.transform(epoch).transform(pv_itrs)
+ * }}}
+ *
+ * When frames or transforms are attached to the graph afterwards, the path is resolved again on the next use.
+ *
+ * @param graph     Frame graph containing both frames.
+ * @param fromFrame Origin reference frame.
+ * @param toFrame   Destination reference frame.
+ * @param initial   Factory of the path when the handle was created.
+ *
+ * @tparam F Transform from this ReferenceFrame.
+ * @tparam T Transform to this ReferenceFrame.
+ */
+class TransformHandle[F <: ReferenceSystem, T <: ReferenceSystem] private[frameGraph](graph: ReferenceFrameGraphImpl,
+                                                                                     val fromFrame: F,
+                                                                                     val toFrame: T,
+                                                                                     initial: (Long, ReferenceFrameTransformFactory[F, T])) {
+
+  /** Version of the graph for which the path was resolved, together with the composed factory */
+  @volatile private var resolved = initial
+
+  /**
+   * Factory producing transformations along the path from the origin to the destination frame.
+   *
+   * @throws IllegalStateException When the graph was modified so that both frames are no longer connected.
+   */
+  def factory: ReferenceFrameTransformFactory[F, T] = {
+    val current = resolved
+    val version = graph.version
+    if (current._1 == version) current._2
+    else {
+      val factory = graph.getTransformFactory(fromFrame, toFrame).getOrElse(
+        throw new IllegalStateException(s"No transformation from $fromFrame to $toFrame in the frame graph"))
+      resolved = (version, factory)
+      factory
+    }
+  }
+
+  /**
+   * Create the transformation from the origin to the destination frame valid at the given epoch.
+   *
+   * @param epoch The epoch at which the ReferenceFrameTransform must be valid.
+   */
+  def transform(epoch: Epoch): ReferenceFrameTransform[F, T] =
+    factory.transform(MemoizedEpoch(epoch))
+
+  override def toString = s"TransformHandle($fromFrame => $toFrame)"
+
+}
@@ -0,0 +1,66 @@
+package be.angelcorp.celest.frameGraph.frames.transforms
+
+import be.angelcorp.celest.data.eop.{ExcessLengthOfDay, PoleProvider}
+import be.angelcorp.celest.time.Epoch
+import be.angelcorp.celest.universe.Universe
+
+/**
+ * Source of [[be.angelcorp.celest.frameGraph.frames.transforms.EarthOrientationSnapshot]]s, the Earth orientation
+ * parameters at a specific epoch.
+ *
+ * Each thread keeps the last few snapshots, so that all the transformations of a single ITRS <=> GCRS transformation
+ * (polar motion, Earth rotation, nutation and precession) share the same snapshot. The nutation series is then only
+ * evaluated once per epoch, instead of once for the nutation and again for the equation of the equinoxes.
+ *
+ * @param nutation    Nutation model used to compute the nutation in longitude and obliquity.
+ * @param pole        Provider of the polar motion coordinates.
+ * @param lodProvider Provider for the excess length of day.
+ * @param table       When defined, the precession and nutation angles are interpolated from this table instead of
+ *                    evaluating the full series.
+ */
+class EarthOrientation(val nutation: IAU2000Nutation[_, _], val pole: PoleProvider, val lodProvider: ExcessLengthOfDay,
+                       val table: Option[PrecessionNutationTable] = None)
+                      (implicit val universe: Universe) {
+
+  /** The most recent snapshots of the current thread */
+  private val recent = new ThreadLocal[EarthOrientation.Recent] {
+    override def initialValue() = new EarthOrientation.Recent
+  }
+
+  /**
+   * Get the Earth orientation parameters at a given epoch.
+   *
+   * @param epoch Epoch of the Earth orientation parameters.
+   * @return The (possibly cached) snapshot of the Earth orientation at the epoch.
+   */
+  def snapshot(epoch: Epoch): EarthOrientationSnapshot = {
+    val cache = recent.get()
+    val snapshots = cache.snapshots
+    var i = 0
+    while (i < snapshots.length) {
+      val snapshot = snapshots(i)
+      if (snapshot != null && ((snapshot.epoch eq epoch) ||
+        (snapshot.epoch.jd == epoch.jd && snapshot.epoch.timeStandard == epoch.timeStandard)))
+        return snapshot
+      i += 1
+    }
+    val snapshot = new EarthOrientationSnapshot(epoch, this)
+    snapshots(cache.next) = snapshot
+    cache.next = (cache.next + 1) % snapshots.length
+    snapshot
+  }
+
+}
+
+object EarthOrientation {
+
+  /** Number of snapshots kept for each thread */
+  val cacheSize = 4
+
+  /** Snapshots of a single thread, replaced in round robin order */
+  private class Recent {
+    val snapshots = Array.ofDim[EarthOrientationSnapshot](cacheSize)
+    var next = 0
+  }
+
+}
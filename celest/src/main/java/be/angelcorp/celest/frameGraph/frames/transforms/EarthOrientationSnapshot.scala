@@ -0,0 +1,71 @@
+package be.angelcorp.celest.frameGraph.frames.transforms
+
+import be.angelcorp.celest.time.Epoch
+
+/**
+ * The Earth orientation parameters at a single epoch.
+ *
+ * All the quantities are computed at most once (and only when they are used): the precession angles, the nutation in
+ * longitude and obliquity, the fundamental arguments, the Earth rotation angle and Greenwich sidereal time, the excess
+ * length of day and the polar motion. Snapshots are obtained from [[be.angelcorp.celest.frameGraph.frames.transforms.EarthOrientation#snapshot]],
+ * which shares them between the transformations of the frame graph.
+ *
+ * @param epoch  Epoch of the Earth orientation parameters.
+ * @param source Models used to compute the Earth orientation parameters.
+ */
+class EarthOrientationSnapshot(val epoch: Epoch, source: EarthOrientation) {
+
+  /** Julian centuries TT from the J2000.0 epoch */
+  lazy val t = source.universe.timeContext.julianCenturiesTT(epoch)
+
+  /** Interpolated Δψ, Δε, ψA, ωA and χA, or null when the precession and nutation angles are not tabulated */
+  private lazy val tabulated = source.table match {
+    case Some(table) =>
+      val angles = new Array[Double](PrecessionNutationTable.angles)
+      table.angles(t, angles, 0)
+      angles
+    case None => null
+  }
+
+  /** Nutation in longitude (Δψ) and obliquity (Δε) [arcseconds] */
+  lazy val (Δψ, Δε) =
+    if (tabulated != null) (tabulated(0), tabulated(1))
+    else source.nutation.nutationParameters(t)
+
+  /** Mean obliquity of the ecliptic [arcseconds] (see [[be.angelcorp.celest.frameGraph.frames.transforms.IAU2000Nutation#ε_]]) */
+  lazy val ε_ = IAU2000Nutation.ε_(t)
+
+  /** Precession longitude of the equator referred to the ecliptic of epoch (ψA) [arcseconds] */
+  lazy val ψA = if (tabulated != null) tabulated(2) else IAU2006Precession.ψA(t)
+
+  /** Precession obliquity of the equator referred to the ecliptic of epoch (ωA) [arcseconds] */
+  lazy val ωA = if (tabulated != null) tabulated(3) else IAU2006Precession.ωA(t)
+
+  /** Precession of the ecliptic along the equator (χA) [arcseconds] */
+  lazy val χA = if (tabulated != null) tabulated(4) else IAU2006Precession.χA(t)
+
+  /** Earth rotation angle (ERA) [rad] */
+  lazy val θ_ERA = EarthRotation.θ_ERA(epoch)(source.universe)
+
+  /** Greenwich mean sidereal time (GMST) [rad] */
+  lazy val θ_GMST = EarthRotation.θ_GMST2000(θ_ERA, t)
+
+  /** Fundamental (Delaunay) arguments l, l', F, D and Ω [rad] (see [[be.angelcorp.celest.frameGraph.frames.transforms.IAU2000NutationEntry#fundamentalArguments]]) */
+  lazy val fundamentalArguments = IAU2000NutationEntry.fundamentalArguments(t)
+
+  /** Equation of the equinoxes, using the nutation in longitude, mean obliquity and fundamental arguments of this snapshot [rad] */
+  lazy val equationOfEquinoxes = EarthRotation.equationOfEquinoxes(t, Δψ, ε_, fundamentalArguments)
+
+  /** Greenwich apparent sidereal time (GAST) [rad] */
+  lazy val θ_GAST = θ_GMST + equationOfEquinoxes
+
+  /** Excess length of day [s] */
+  lazy val lod = source.lodProvider.lod(epoch)
+
+  /** Angular velocity of the Earth around its z-axis [rad/s] */
+  lazy val ω = EarthRotation.ω(lod)
+
+  /** Polar motion coordinates (x_p, y_p) [rad] */
+  lazy val (x_p, y_p) = source.pole.polarCoordinatesOn(epoch)
+
+}
@@ -20,7 +20,7 @@ import be.angelcorp.celest.math.geometry.{Vec3, Mat3}
 import be.angelcorp.celest.math.rotation.RotationMatrix._
 import be.angelcorp.celest.frameGraph._
 import be.angelcorp.celest.physics.Units._
-import be.angelcorp.celest.time.{Epochs, Epoch}
+import be.angelcorp.celest.time.Epoch
 import be.angelcorp.celest.universe.Universe
 import be.angelcorp.celest.frameGraph.transformations.{TransformationParameters, KinematicTransformationFactory}
 import be.angelcorp.celest.time.timeStandard.TimeStandards._
@@ -58,6 +58,72 @@ object EarthRotation {
     revolutions(revs % 1.0)
   }
 
+  /**
+   * Computes the Greenwich Mean Sidereal Time (GMST) angle from the Earth rotation angle.
+   *
+   * Based on reference [2] eqn 5.32.
+   *
+   * @param era The Earth rotation angle [rad].
+   * @param t   The julian centuries TT from the J2000.0 epoch.
+   * @return The Greenwich Mean Sidereal Time (GMST) angle [rad].
+   */
+  def θ_GMST2000(era: Double, t: Double): Double = {
+    val temp = arcSeconds(
+      0.014506 + 4612.156534 * t + 1.3915817 * pow(t, 2) - 0.00000044 * pow(t, 3) - 0.000029956 * pow(t, 4) - 0.0000000368 * pow(t, 5)
+    ) % (2 * Pi)
+    era + temp
+  }
+
+  /**
+   * The equation of the equinoxes, used to account for the motion of the equinox due to nutation (the difference
+   * between apparent and mean sidereal time at a specific epoch).
+   *
+   * @param t  Julian centuries since the J2000 epoch in TT (or TDB).
+   * @param Δψ Nutation in longitude at the same epoch [arcseconds].
+   * @return The difference between apparent and mean sidereal time [rad]
+   */
+  def equationOfEquinoxes(t: Double, Δψ: Double): Double =
+    equationOfEquinoxes(t, Δψ, IAU2000Nutation.ε_(t), IAU2000NutationEntry.fundamentalArguments(t))
+
+  /**
+   * The equation of the equinoxes, using a mean obliquity and fundamental arguments that were already computed for the
+   * same epoch (for example by an [[be.angelcorp.celest.frameGraph.frames.transforms.EarthOrientationSnapshot]]).
+   *
+   * @param t         Julian centuries since the J2000 epoch in TT (or TDB).
+   * @param Δψ        Nutation in longitude at the same epoch [arcseconds].
+   * @param ε_        Mean obliquity of the ecliptic at the same epoch [arcseconds].
+   * @param arguments Fundamental arguments (l, l', F, D, Ω) at the same epoch [rad] (see
+   *                  [[be.angelcorp.celest.frameGraph.frames.transforms.IAU2000NutationEntry#fundamentalArguments]]).
+   * @return The difference between apparent and mean sidereal time [rad]
+   */
+  def equationOfEquinoxes(t: Double, Δψ: Double, ε_ : Double, arguments: (Double, Double, Double, Double, Double)): Double = {
+    val (fa_l, fa_l2, fa_F, fa_D, fa_Ω) = arguments
+
+    val ε = arcSeconds(ε_)
+
+    // See [3] equation 2.14.
+    // This should be accurate enough. The IERS 2010 Conventions [2] document also lists a more accurate/longer series for improved accuracy.
+    arcSeconds(Δψ * cos(ε) + 0.00264096 * sin(fa_Ω)
+      + 0.00006352 * sin(2 * fa_Ω)
+      + 0.00001175 * sin(2 * fa_F - 2 * fa_D + 3 * fa_Ω)
+      + 0.00001121 * sin(2 * fa_F - 2 * fa_D + fa_Ω)
+      - 0.00000455 * sin(2 * fa_F - 2 * fa_D + 2 * fa_Ω)
+      + 0.00000202 * sin(2 * fa_F + 3 * fa_Ω)
+      + 0.00000198 * sin(2 * fa_F + fa_Ω)
+      - 0.00000172 * sin(3 * fa_Ω)
+      - 0.00000087 * t * sin(fa_Ω))
+  }
+
+  /**
+   * Earth angular velocity around its z-axis.
+   *
+   * See reference [1] eqn 11.
+   *
+   * @param lod Excess length of day [s].
+   * @return The rotation rate of the Earth [rad/s].
+   */
+  def ω(lod: Double) = 7.292115146706979E-5 * (1 - lod / 86400.0)
+
 }
 
 /**
@@ -69,6 +135,8 @@ object EarthRotation {
  *
  * @param nutation    Nutation model to be compatible with.
  * @param lodProvider Provider for the length of day (required for the Earth rotation speed derivative)
+ * @param orientation When defined, the GAST angle and length of day are read from the snapshots of these Earth
+ *                    orientation parameters, instead of evaluating the nutation model again.
  *
  *                    =References=
  *                    1) D. Vallado et al. ,<b>"Implementation Issues Surrounding the New IAU Reference Systems for Astrodynamics"</b>, 16th AAS/AIAA Space Flight Mechanics Conference, Florida, January 2006<br/>
@@ -76,7 +144,11 @@ object EarthRotation {
  *                    3) G. H. Kaplan, <b>"The IAU Resolutions on Astronomical Reference Systems, Time Scales, and Earth Rotation Models"</b>, 2005, U.S. Naval Observatory Circular No. 179, [online] http://arxiv.org/abs/astro-ph/0602086
  */
 class EarthRotationGAST[F0 <: ReferenceSystem, F1 <: ReferenceSystem]
-(val fromFrame: F0, val toFrame: F1, val nutation: IAU2000Nutation[_, _], val lodProvider: ExcessLengthOfDay)(implicit universe: Universe) extends KinematicTransformationFactory[F0, F1] {
+(val fromFrame: F0, val toFrame: F1, val nutation: IAU2000Nutation[_, _], val lodProvider: ExcessLengthOfDay,
+ val orientation: Option[EarthOrientation] = None)(implicit universe: Universe) extends KinematicTransformationFactory[F0, F1] {
+
+  /** Time standards and epochs of the universe */
+  private val timeContext = universe.timeContext
 
   /**
    * The equation of the equinoxes, used to account for the motion of the equinox due to nutation (the difference
@@ -86,22 +158,8 @@ class EarthRotationGAST[F0 <: ReferenceSystem, F1 <: ReferenceSystem]
    * @return The difference between apparent and mean sidereal time [rad]
    */
   def equationOfEquinoxes(t: Double) = {
-    val (fa_l, fa_l2, fa_F, fa_D, fa_Ω) = IAU2000NutationEntry.fundamentalArguments(t)
-
-    val ε = arcSeconds(IAU2000Nutation.ε_(t))
     val (dψ2000, dε2000) = nutation.nutationParameters(t)
-
-    // See [3] equation 2.14.
-    // This should be accurate enough. The IERS 2010 Conventions [2] document also lists a more accurate/longer series for improved accuracy.
-    arcSeconds(dψ2000 * cos(ε) + 0.00264096 * sin(fa_Ω)
-      + 0.00006352 * sin(2 * fa_Ω)
-      + 0.00001175 * sin(2 * fa_F - 2 * fa_D + 3 * fa_Ω)
-      + 0.00001121 * sin(2 * fa_F - 2 * fa_D + fa_Ω)
-      - 0.00000455 * sin(2 * fa_F - 2 * fa_D + 2 * fa_Ω)
-      + 0.00000202 * sin(2 * fa_F + 3 * fa_Ω)
-      + 0.00000198 * sin(2 * fa_F + fa_Ω)
-      - 0.00000172 * sin(3 * fa_Ω)
-      - 0.00000087 * t * sin(fa_Ω))
+    EarthRotation.equationOfEquinoxes(t, dψ2000)
   }
 
   def cost(epoch: Epoch): Double = 100.0
@@ -114,12 +172,16 @@ class EarthRotationGAST[F0 <: ReferenceSystem, F1 <: ReferenceSystem]
    * @param epoch The respective epoch to compute earth rotation transformation at.
    * @return The earth rotation transformation matrix and angular velocity.
    */
-  def rotationAngle(epoch: Epoch) = {
-    // Rotation rate [rad], see reference [1] eqn 11
-    val ω = 7.292115146706979E-5 * (1 - lodProvider.lod(epoch) / 86400.0)
-
-    // Rotation matrix,                             Angular velocity [rad]
-    (Mat3.rotateZ(-θ_GAST2000(epoch)), Vec3(0, 0, ω))
+  def rotationAngle(epoch: Epoch) = orientation match {
+    case Some(eo) =>
+      val snapshot = eo.snapshot(epoch)
+      (Mat3.rotateZ(-snapshot.θ_GAST), Vec3(0, 0, snapshot.ω))
+    case None =>
+      // Rotation rate [rad], see reference [1] eqn 11
+      val ω = EarthRotation.ω(lodProvider.lod(epoch))
+
+      // Rotation matrix,                             Angular velocity [rad]
+      (Mat3.rotateZ(-θ_GAST2000(epoch)), Vec3(0, 0, ω))
   }
 
   /**
@@ -129,7 +191,7 @@ class EarthRotationGAST[F0 <: ReferenceSystem, F1 <: ReferenceSystem]
    * @return The Greenwich Mean Sidereal Time (GMST) angle [rad].
    */
   def θ_GMST2000(epoch: Epoch): Double =
-    θ_GMST2000(epoch, epoch.inTimeStandard(TT).relativeTo(Epochs.J2000) / 36525)
+    θ_GMST2000(epoch, timeContext.julianCenturiesTT(epoch))
 
 
   /**
@@ -141,13 +203,8 @@ class EarthRotationGAST[F0 <: ReferenceSystem, F1 <: ReferenceSystem]
    * @param t The julian centuries TT from the J2000.0 epoch of the given epoch.
    * @return The Greenwich Mean Sidereal Time (GMST) angle [rad].
    */
-  private def θ_GMST2000(epoch: Epoch, t: Double): Double = {
-    val era = EarthRotation.θ_ERA(epoch)
-    val temp = arcSeconds(
-      0.014506 + 4612.156534 * t + 1.3915817 * pow(t, 2) - 0.00000044 * pow(t, 3) - 0.000029956 * pow(t, 4) - 0.0000000368 * pow(t, 5)
-    ) % (2 * Pi)
-    era + temp
-  }
+  private def θ_GMST2000(epoch: Epoch, t: Double): Double =
+    EarthRotation.θ_GMST2000(EarthRotation.θ_ERA(epoch), t)
 
   /**
    * Calculates the Greenwich apparent sidereal time (GAST) at the specific epoch.
@@ -157,7 +214,7 @@ class EarthRotationGAST[F0 <: ReferenceSystem, F1 <: ReferenceSystem]
    */
   def θ_GAST2000(epoch: Epoch) = {
     // Julian centuries TT from the J2000.0 epoch
-    val t = epoch.inTimeStandard(TT).relativeTo(Epochs.J2000) / 36525
+    val t = timeContext.julianCenturiesTT(epoch)
 
     /** Greenwich apparent sidereal time (GAST) [rad], see reference [3] eqn 2.13 */
     θ_GMST2000(epoch, t) + equationOfEquinoxes(t)
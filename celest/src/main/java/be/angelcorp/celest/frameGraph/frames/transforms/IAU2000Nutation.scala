@@ -21,10 +21,9 @@ import be.angelcorp.celest.math.geometry.Mat3
 import scala.math._
 import be.angelcorp.celest.physics.Units._
 import be.angelcorp.celest.frameGraph.ReferenceSystem
-import be.angelcorp.celest.time.{Epochs, Epoch}
+import be.angelcorp.celest.time.Epoch
 import be.angelcorp.celest.universe.Universe
 import be.angelcorp.celest.frameGraph.transformations.ConstantRotationTransformFactory
-import be.angelcorp.celest.time.timeStandard.TimeStandards.TT
 
 /**
  * IAU 2000 nutation theory (IAU2000A/IAU2000B), optionally with slight IAU 2006 adjustments).
@@ -37,6 +36,10 @@ import be.angelcorp.celest.time.timeStandard.TimeStandards.TT
  *
  * @param coefficients Coefficients for the nutation in longitude and obliquity.
  * @param IAU2006Corrections True to apply the IAU2006 model corrections.
+ * @param orientation When defined, the nutation angles of the rotation matrix are read from the snapshots of these
+ *                    Earth orientation parameters (which should use the same coefficients).
+ * @param table When defined (and no Earth orientation parameters are used), the nutation angles are interpolated from
+ *              this table instead of evaluating the full series (the table should use the same coefficients).
  *
  *                           =References=
  *                           1) D. Vallado et al. ,<b>"Implementation Issues Surrounding the New IAU Reference Systems for Astrodynamics"</b>, 16th AAS/AIAA Space Flight Mechanics Conference, Florida, January 2006<br/>
@@ -48,23 +51,34 @@ import be.angelcorp.celest.time.timeStandard.TimeStandards.TT
  */
 class IAU2000Nutation[F0 <: ReferenceSystem, F1 <: ReferenceSystem]
 (val fromFrame: F0, val toFrame: F1,
- coefficients: List[IAU2000NutationEntry], IAU2006Corrections: Boolean = true)(implicit universe: Universe)
+ val coefficients: List[IAU2000NutationEntry], val IAU2006Corrections: Boolean = true,
+ val orientation: Option[EarthOrientation] = None,
+ val table: Option[PrecessionNutationTable] = None)(implicit universe: Universe)
   extends ConstantRotationTransformFactory[F0, F1] {
 
+  /** Time standards and epochs of the universe */
+  private val timeContext = universe.timeContext
+
+  /** Column oriented form of the coefficients, used to evaluate the nutation series */
+  val series = IAU2000NutationSeries(coefficients)
+
   def cost(epoch: Epoch): Double = 100.0
 
-  def rotationMatrix(epoch: Epoch) = {
-    // Julian centuries TT from the J2000.0 epoch
-    val t = epoch.inTimeStandard(TT).relativeTo(Epochs.J2000) / 36525.0
+  def rotationMatrix(epoch: Epoch) = orientation match {
+    case Some(eo) =>
+      val snapshot = eo.snapshot(epoch)
+      IAU2000Nutation.rotationMatrix(snapshot.Δψ, snapshot.Δε, snapshot.ε_)
+    case None =>
+      // Julian centuries TT from the J2000.0 epoch
+      val t = timeContext.julianCenturiesTT(epoch)
 
-    // Nutation angles according to this theory
-    val (dψ2000, dε2000) = nutationParameters(t)
+      // Nutation angles according to this theory
+      val (dψ2000, dε2000) = nutationParameters(t)
 
-    // The mean obliquity of the ecliptic
-    val ε_ = IAU2000Nutation.ε_(t)
+      // The mean obliquity of the ecliptic
+      val ε_ = IAU2000Nutation.ε_(t)
 
-    // Compute the nutation matrix
-    Mat3.rotateX(arcSeconds(-(ε_ + dε2000))) dot Mat3.rotateZ(arcSeconds(-dψ2000)) dot Mat3.rotateX(arcSeconds(ε_))
+      IAU2000Nutation.rotationMatrix(dψ2000, dε2000, ε_)
   }
 
   /**
@@ -75,7 +89,7 @@ class IAU2000Nutation[F0 <: ReferenceSystem, F1 <: ReferenceSystem]
    */
   def nutationParameters(epoch: Epoch): (Double, Double) = {
     // Julian centuries TT from the J2000.0 epoch
-    val t = epoch.inTimeStandard(TT).relativeTo(Epochs.J2000) / 36525.0
+    val t = timeContext.julianCenturiesTT(epoch)
     nutationParameters(t)
   }
 
@@ -85,14 +99,21 @@ class IAU2000Nutation[F0 <: ReferenceSystem, F1 <: ReferenceSystem]
    * @param t Julian centuries since the J2000 epoch in TT (or TDB).
    * @return The nutation parameters longitude (Δψ) and obliquity (Δε) [arcseconds]
    */
-  def nutationParameters(t: Double): (Double, Double) = {
-    // Compute the fundamental arguments
+  def nutationParameters(t: Double): (Double, Double) = table match {
+    case Some(tab) => tab.nutation(t)
+    case None => seriesNutationParameters(t)
+  }
 
-    /** Longitude referred to the ecliptic of date t  */
-    val (dψ, dε) = coefficients.foldLeft((0.0, 0.0))((nut, entry) => {
-      val (δΔψ, δΔε) = entry.nutationContribution(t)
-      ((nut._1 + δΔψ) % 1296000.0, (nut._2 + δΔε) % 1296000.0) // % 1296000.0 == mod 2 pi
-    })
+  /**
+   * Calculate the nutation (luni-solar + planetary) in longitude (Δψ), and obliquity (Δε) according to either the
+   * IAU2000A/B nutation, always using the full series (even when the nutation of this model is tabulated).
+   *
+   * @param t Julian centuries since the J2000 epoch in TT (or TDB).
+   * @return The nutation parameters longitude (Δψ) and obliquity (Δε) [arcseconds]
+   */
+  def seriesNutationParameters(t: Double): (Double, Double) = {
+    // Sum of the contributions of all the series terms
+    val (dψ, dε) = series.nutation(t)
 
     val (dΔψ_FCN, dΔε_FCN) = if (IAU2006Corrections) {
       /* Factor correcting for secular variation of J2. */
@@ -119,6 +140,17 @@ object IAU2000Nutation {
   val ξ0 = arcSeconds(-0.0166170)
   val η0 = arcSeconds(-0.0068192)
 
+  /**
+   * Compute the nutation matrix.
+   *
+   * @param Δψ Nutation in longitude [arcseconds].
+   * @param Δε Nutation in obliquity [arcseconds].
+   * @param ε_ Mean obliquity of the ecliptic [arcseconds].
+   * @return The rotation matrix from the true to the mean equator and equinox of date.
+   */
+  def rotationMatrix(Δψ: Double, Δε: Double, ε_ : Double) =
+    Mat3.rotateX(arcSeconds(-(ε_ + Δε))) dot Mat3.rotateZ(arcSeconds(-Δψ)) dot Mat3.rotateX(arcSeconds(ε_))
+
   /**
    * Find the corrections equivalent for the equinox based transformation (this) based on the CIO coordinates dX dY.
    *
@@ -0,0 +1,137 @@
+package be.angelcorp.celest.frameGraph.frames.transforms
+
+import scala.math._
+
+/**
+ * Column oriented form of the IAU 2000 nutation series, for fast evaluation of the nutation in longitude (Δψ) and
+ * obliquity (Δε).
+ *
+ * Every column of the series (amplitude or argument multiplier) is stored as a primitive array, with the argument
+ * multipliers as integers. The fourteen fundamental arguments are computed once per evaluation, instead of once for
+ * every term as is done by [[be.angelcorp.celest.frameGraph.frames.transforms.IAU2000NutationEntry#nutationContribution]].
+ *
+ * The arguments and contributions of each term are summed in exactly the same order as for the individual
+ * [[be.angelcorp.celest.frameGraph.frames.transforms.IAU2000NutationEntry]]s, so the result is bit-for-bit identical to
+ * folding over the entries.
+ *
+ * {{{
+ *   val series = IAU2000NutationSeries( IAU2000NutationLoader.IERS2010 )
+ *   val (dψ, dε) = series.nutation(t)
+ * }}}
+ *
+ * @param ls         Sin(arg) coefficients of the nutation in longitude [arcseconds].
+ * @param lst        t * Sin(arg) coefficients of the nutation in longitude [arcseconds].
+ * @param lc         Cos(arg) coefficients of the nutation in longitude [arcseconds].
+ * @param lct        t * Cos(arg) coefficients of the nutation in longitude [arcseconds].
+ * @param os         Sin(arg) coefficients of the nutation in obliquity [arcseconds].
+ * @param ost        t * Sin(arg) coefficients of the nutation in obliquity [arcseconds].
+ * @param oc         Cos(arg) coefficients of the nutation in obliquity [arcseconds].
+ * @param oct        t * Cos(arg) coefficients of the nutation in obliquity [arcseconds].
+ * @param multipliers Argument multipliers, one column per fundamental argument in the order l, l', F, D, Ω, L_Me, L_Ve,
+ *                    L_E, L_Ma, L_J, L_Sa, L_U, L_Ne, p_A.
+ */
+class IAU2000NutationSeries(val ls: Array[Double], val lst: Array[Double], val lc: Array[Double], val lct: Array[Double],
+                            val os: Array[Double], val ost: Array[Double], val oc: Array[Double], val oct: Array[Double],
+                            val multipliers: Array[Array[Int]]) {
+
+  require(multipliers.length == IAU2000NutationSeries.arguments, "The series requires a multiplier column for each of the 14 fundamental arguments")
+  require((Seq(lst, lc, lct, os, ost, oc, oct) ++ multipliers).forall(_.length == ls.length), "All the columns of the series must have the same length")
+
+  /** Number of terms in the series */
+  def size = ls.length
+
+  /**
+   * Calculate the nutation in longitude (Δψ), and obliquity (Δε) of this series, without any IAU 2006 adjustments.
+   *
+   * @param t Julian centuries since the J2000 epoch in TT (or TDB).
+   * @return The nutation parameters longitude (Δψ) and obliquity (Δε) [arcseconds]
+   */
+  def nutation(t: Double): (Double, Double) = {
+    val out = new Array[Double](2)
+    nutation(t, out, 0)
+    (out(0), out(1))
+  }
+
+  /**
+   * Calculate the nutation in longitude (Δψ), and obliquity (Δε) of this series, without any IAU 2006 adjustments.
+   *
+   * @param t      Julian centuries since the J2000 epoch in TT (or TDB).
+   * @param out    Output array for the nutation in longitude (Δψ) and obliquity (Δε) [arcseconds].
+   * @param offset Index in the output array of the nutation in longitude, the obliquity is stored at offset + 1.
+   */
+  def nutation(t: Double, out: Array[Double], offset: Int) {
+    val (fa_l, fa_lp, fa_F, fa_D, fa_Ω) = IAU2000NutationEntry.fundamentalArguments(t)
+    val (lMe, lVe, lE, lMa, lJ, lSa, lU, lNe, pA) = IAU2000NutationEntry.planetaryArguments(t)
+
+    val l = multipliers(0)
+    val lp = multipliers(1)
+    val F = multipliers(2)
+    val D = multipliers(3)
+    val Ω = multipliers(4)
+    val L_Me = multipliers(5)
+    val L_Ve = multipliers(6)
+    val L_E = multipliers(7)
+    val L_Ma = multipliers(8)
+    val L_J = multipliers(9)
+    val L_Sa = multipliers(10)
+    val L_U = multipliers(11)
+    val L_Ne = multipliers(12)
+    val p_A = multipliers(13)
+
+    var dψ = 0.0
+    var dε = 0.0
+    var i = 0
+    val n = size
+    while (i < n) {
+      // Same order of operations as IAU2000NutationEntry.argument
+      val lunisolar = l(i) * fa_l + lp(i) * fa_lp + F(i) * fa_F + D(i) * fa_D + Ω(i) * fa_Ω
+      val planetary = p_A(i) * pA + L_Ne(i) * lNe + L_U(i) * lU + L_Sa(i) * lSa + L_J(i) * lJ + L_Ma(i) * lMa + L_E(i) * lE + L_Ve(i) * lVe + L_Me(i) * lMe
+      val arg = lunisolar + planetary
+
+      val sinArg = sin(arg)
+      val cosArg = cos(arg)
+      dψ += (ls(i) + lst(i) * t) * sinArg + (lc(i) + lct(i) * t) * cosArg
+      dε += (os(i) + ost(i) * t) * sinArg + (oc(i) + oct(i) * t) * cosArg
+
+      // Equal to an unconditional "% 1296000.0" (mod 2 pi), which leaves smaller values unchanged
+      if (abs(dψ) >= 1296000.0) dψ %= 1296000.0
+      if (abs(dε) >= 1296000.0) dε %= 1296000.0
+      i += 1
+    }
+
+    out(offset) = dψ
+    out(offset + 1) = dε
+  }
+
+}
+
+object IAU2000NutationSeries {
+
+  /** Number of fundamental arguments (luni-solar and planetary) of the series */
+  val arguments = 14
+
+  /**
+   * Create the column oriented form of a list of nutation series entries.
+   *
+   * @param entries Terms of the nutation series.
+   * @throws IllegalArgumentException When an argument multiplier of an entry is not an integer.
+   */
+  def apply(entries: Seq[IAU2000NutationEntry]): IAU2000NutationSeries = {
+    val terms = entries.toIndexedSeq
+    def column(f: IAU2000NutationEntry => Double) = terms.map(f).toArray
+    def multiplier(f: IAU2000NutationEntry => Double) = terms.map(e => {
+      val m = f(e)
+      if (m != m.toInt)
+        throw new IllegalArgumentException(s"Nutation series argument multiplier $m is not an integer")
+      m.toInt
+    }).toArray
+
+    new IAU2000NutationSeries(
+      column(_.ls), column(_.lst), column(_.lc), column(_.lct),
+      column(_.os), column(_.ost), column(_.oc), column(_.oct),
+      Array(multiplier(_.l), multiplier(_.lp), multiplier(_.F), multiplier(_.D), multiplier(_.Ω),
+        multiplier(_.L_Me), multiplier(_.L_Ve), multiplier(_.L_E), multiplier(_.L_Ma), multiplier(_.L_J),
+        multiplier(_.L_Sa), multiplier(_.L_U), multiplier(_.L_Ne), multiplier(_.p_A)))
+  }
+
+}
@@ -19,12 +19,11 @@ package be.angelcorp.celest.frameGraph.frames.transforms
 import be.angelcorp.celest.math.geometry.Mat3
 
 import scala.math._
-import be.angelcorp.celest.time.{Epochs, Epoch}
+import be.angelcorp.celest.time.Epoch
 import be.angelcorp.celest.universe.Universe
 import be.angelcorp.celest.frameGraph._
 import be.angelcorp.celest.physics.Units._
 import be.angelcorp.celest.frameGraph.transformations.ConstantRotationTransformFactory
-import be.angelcorp.celest.time.timeStandard.TimeStandards.TT
 
 /**
  * IAU 2006 precession theory. Computes the precession of the ecliptic for the MOD (mean of date) to J2000 (or EME2000) reference frame. This implementation is based on [1] and [2]
@@ -36,22 +35,38 @@ import be.angelcorp.celest.time.timeStandard.TimeStandards.TT
  * 2) G. Petit, B. Luzum (eds.).,<b>"IERS Conventions (2010)"</b>, IERS Technical Note 36, Frankfurt am Main: Verlag des Bundesamts für Kartographie und Geodäsie, 2010. 179 pp., ISBN 3-89888-989-6<br/>
  * 3) N. Capitaine, P.T. Wallace, and J. Chapront, <b>"Expressions for IAU 2000 precession quantities"</b>, Astron. Astrophys., 2003, 412(2), pp. 567-586, doi:10.1051/0004-6361:20031539
  *
+ * @param orientation When defined, the precession angles are read from the snapshots of these Earth orientation parameters.
+ * @param table       When defined (and no Earth orientation parameters are used), the precession angles are
+ *                    interpolated from this table.
+ *
  * @author Simon Billemont
  */
-class IAU2006Precession[F0 <: ReferenceSystem, F1 <: ReferenceSystem](val fromFrame: F0, val toFrame: F1)(implicit universe: Universe)
+class IAU2006Precession[F0 <: ReferenceSystem, F1 <: ReferenceSystem](val fromFrame: F0, val toFrame: F1,
+                                                                       val orientation: Option[EarthOrientation] = None,
+                                                                       val table: Option[PrecessionNutationTable] = None)(implicit universe: Universe)
   extends ConstantRotationTransformFactory[F0, F1] {
 
+  /** Time standards and epochs of the universe */
+  private val timeContext = universe.timeContext
+
   /**
    * Finds the precession matrix at a given date according to the IAU 2006 Precession model.
    */
-  def rotationMatrix(epoch: Epoch) = {
-    // Julian centuries TT from the J2000.0 epoch
-    val t = epoch.inTimeStandard(TT).relativeTo(Epochs.J2000) / 36525.0
-
-    Mat3.rotateX(arcSeconds(-IAU2006Precession.ε0)) dot
-      Mat3.rotateZ(arcSeconds(IAU2006Precession.ψA(t))) dot
-      Mat3.rotateX(arcSeconds(IAU2006Precession.ωA(t))) dot
-      Mat3.rotateZ(arcSeconds(-IAU2006Precession.χA(t)))
+  def rotationMatrix(epoch: Epoch) = orientation match {
+    case Some(eo) =>
+      val snapshot = eo.snapshot(epoch)
+      IAU2006Precession.rotationMatrix(snapshot.ψA, snapshot.ωA, snapshot.χA)
+    case None =>
+      // Julian centuries TT from the J2000.0 epoch
+      val t = timeContext.julianCenturiesTT(epoch)
+
+      table match {
+        case Some(tab) =>
+          val (ψA, ωA, χA) = tab.precession(t)
+          IAU2006Precession.rotationMatrix(ψA, ωA, χA)
+        case None =>
+          IAU2006Precession.rotationMatrix(IAU2006Precession.ψA(t), IAU2006Precession.ωA(t), IAU2006Precession.χA(t))
+      }
   }
 
   def cost(epoch: Epoch) = 100.0
@@ -63,6 +78,17 @@ object IAU2006Precession {
   /** Ecliptic constant in [arcseconds], reference [2] section 5.6.2 */
   val ε0 = 84381.406
 
+  /**
+   * Compute the precession matrix from the precession angles.
+   *
+   * @param ψA Longitude of the equator referred to the ecliptic of epoch [arcseconds].
+   * @param ωA Obliquity of the equator referred to the ecliptic of epoch [arcseconds].
+   * @param χA Precession of the ecliptic along the equator [arcseconds].
+   * @return The rotation matrix from the mean equator and equinox of date to J2000.
+   */
+  def rotationMatrix(ψA: Double, ωA: Double, χA: Double) =
+    Mat3.rotateX(arcSeconds(-ε0)) dot Mat3.rotateZ(arcSeconds(ψA)) dot Mat3.rotateX(arcSeconds(ωA)) dot Mat3.rotateZ(arcSeconds(-χA))
+
   /**
    * Ecliptic pole x.
    *
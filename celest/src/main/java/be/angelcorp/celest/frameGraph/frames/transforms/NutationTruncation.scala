@@ -0,0 +1,103 @@
+package be.angelcorp.celest.frameGraph.frames.transforms
+
+import scala.math._
+
+/**
+ * Truncation of an IAU 2000 nutation series, keeping only the terms with an amplitude above a given threshold.
+ *
+ * The amplitude of a term is the largest value that it can contribute to the nutation in longitude or obliquity within
+ * the span |t| <= span (the time dependent coefficients included). The sum of the amplitudes of all the removed terms
+ * is a worst-case bound on the error of the truncated series with respect to the full series. The truncation can be
+ * configured for the universe using [[be.angelcorp.celest.universe.modules.DefaultFrames]].
+ *
+ * {{{
+ *   val truncated = NutationTruncation.milliArcsecond( IAU2000NutationLoader.IERS2010 )
+ *   println( s"${truncated.size} terms, error <= ${truncated.longitudeError} arcseconds" )
+ * }}}
+ *
+ * @param threshold Minimum amplitude of a term in the truncated series [arcseconds] (0 to keep the full series).
+ * @param span      Time span in which the amplitudes and error bounds are valid, |t| <= span [Julian centuries from J2000].
+ */
+case class NutationTruncation(threshold: Double = 0.0, span: Double = 1.0) {
+
+  require(threshold >= 0, "The amplitude threshold cannot be negative")
+  require(span >= 0, "The time span cannot be negative")
+
+  /**
+   * Truncate a nutation series.
+   *
+   * @param entries Terms of the full nutation series.
+   * @return The terms above the amplitude threshold, and the error bounds of the truncated series.
+   */
+  def apply(entries: List[IAU2000NutationEntry]): TruncatedNutationSeries = {
+    val (kept, removed) = entries.partition(entry => NutationTruncation.amplitude(entry, span) >= threshold)
+    val longitudeError = removed.map(NutationTruncation.longitudeAmplitude(_, span)).sum
+    val obliquityError = removed.map(NutationTruncation.obliquityAmplitude(_, span)).sum
+    new TruncatedNutationSeries(kept, this, entries.size, longitudeError, obliquityError)
+  }
+
+}
+
+object NutationTruncation {
+
+  /** Keep all the terms of the series */
+  val full = NutationTruncation()
+
+  /** Keep the terms with an amplitude of at least 0.1 milliarcsecond */
+  val tenthMilliArcsecond = NutationTruncation(threshold = 1E-4)
+
+  /** Keep the terms with an amplitude of at least 1 milliarcsecond */
+  val milliArcsecond = NutationTruncation(threshold = 1E-3)
+
+  /**
+   * Largest contribution of a term to the nutation in longitude or obliquity.
+   *
+   * @param entry Term of the nutation series.
+   * @param span  Time span, |t| <= span [Julian centuries from J2000].
+   * @return Amplitude of the term [arcseconds].
+   */
+  def amplitude(entry: IAU2000NutationEntry, span: Double) =
+    max(longitudeAmplitude(entry, span), obliquityAmplitude(entry, span))
+
+  /**
+   * Largest contribution of a term to the nutation in longitude (Δψ).
+   *
+   * @param entry Term of the nutation series.
+   * @param span  Time span, |t| <= span [Julian centuries from J2000].
+   * @return Amplitude of the term in longitude [arcseconds].
+   */
+  def longitudeAmplitude(entry: IAU2000NutationEntry, span: Double) =
+    hypot(abs(entry.ls) + abs(entry.lst) * span, abs(entry.lc) + abs(entry.lct) * span)
+
+  /**
+   * Largest contribution of a term to the nutation in obliquity (Δε).
+   *
+   * @param entry Term of the nutation series.
+   * @param span  Time span, |t| <= span [Julian centuries from J2000].
+   * @return Amplitude of the term in obliquity [arcseconds].
+   */
+  def obliquityAmplitude(entry: IAU2000NutationEntry, span: Double) =
+    hypot(abs(entry.os) + abs(entry.ost) * span, abs(entry.oc) + abs(entry.oct) * span)
+
+}
+
+/**
+ * Nutation series truncated by a [[be.angelcorp.celest.frameGraph.frames.transforms.NutationTruncation]].
+ *
+ * @param coefficients   Terms of the truncated series.
+ * @param truncation     Truncation used to create this series.
+ * @param fullSize       Number of terms in the full series.
+ * @param longitudeError Worst-case error in the nutation in longitude (Δψ) with respect to the full series [arcseconds].
+ * @param obliquityError Worst-case error in the nutation in obliquity (Δε) with respect to the full series [arcseconds].
+ */
+class TruncatedNutationSeries(val coefficients: List[IAU2000NutationEntry], val truncation: NutationTruncation,
+                              val fullSize: Int, val longitudeError: Double, val obliquityError: Double) {
+
+  /** Number of terms in the truncated series */
+  def size = coefficients.size
+
+  override def toString =
+    s"$size of $fullSize nutation terms (amplitude >= ${truncation.threshold} arcseconds), " +
+      s"error <= $longitudeError arcseconds in longitude and <= $obliquityError arcseconds in obliquity for |t| <= ${truncation.span} centuries"
+
+}
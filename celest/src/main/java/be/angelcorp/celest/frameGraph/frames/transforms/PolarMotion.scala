@@ -11,6 +11,8 @@ import be.angelcorp.celest.data.eop.PoleProvider
  *
  * Generally transforms between [[be.angelcorp.celest.frameGraph.frames.ITRS]] <=> [[be.angelcorp.celest.frameGraph.frames.TIRS]]
  *
+ * When the Earth orientation is given, the polar coordinates are read from its snapshots instead of the pole provider.
+ *
  * </p>
  * =References=
  * 1) D. Vallado et al. ,<b>"Implementation Issues Surrounding the New IAU Reference Systems for Astrodynamics"</b>, 16th AAS/AIAA Space Flight Mechanics Conference, Florida, January 2006<br/>
@@ -18,13 +20,19 @@ import be.angelcorp.celest.data.eop.PoleProvider
  *
  * @author Simon Billemont
  */
-class PolarMotion[F0 <: ReferenceSystem, F1 <: ReferenceSystem](val fromFrame: F0, val toFrame: F1, val eop: PoleProvider)
+class PolarMotion[F0 <: ReferenceSystem, F1 <: ReferenceSystem](val fromFrame: F0, val toFrame: F1, val eop: PoleProvider,
+                                                                 val orientation: Option[EarthOrientation] = None)
   extends ConstantRotationTransformFactory[F0, F1] {
 
   def cost(epoch: Epoch) = 0
 
   def rotationMatrix(epoch: Epoch) = {
-    val (x_p, y_p) = eop.polarCoordinatesOn(epoch)
+    val (x_p, y_p) = orientation match {
+      case Some(eo) =>
+        val snapshot = eo.snapshot(epoch)
+        (snapshot.x_p, snapshot.y_p)
+      case None => eop.polarCoordinatesOn(epoch)
+    }
     Mat3.rotateX(-y_p) dot Mat3.rotateY(-x_p)
   }
 
@@ -0,0 +1,226 @@
+package be.angelcorp.celest.frameGraph.frames.transforms
+
+import java.util.concurrent.ConcurrentHashMap
+
+import org.slf4j.LoggerFactory
+
+import scala.math._
+
+/**
+ * Interpolation table of the precession and nutation angles: the nutation in longitude (Δψ) and obliquity (Δε), and the
+ * precession angles ψA, ωA and χA.
+ *
+ * The angles vary smoothly over several hours, so instead of evaluating the full nutation series for every epoch,
+ * they are interpolated by a Chebyshev series. The time axis is divided into segments of equal length, and a segment
+ * is built (thread-safe) the first time that it is used. The coefficients are fitted on the Chebyshev nodes of the
+ * segment, after which the interpolation is verified against the full series on the Chebyshev extrema. When the error
+ * exceeds the tolerance of the policy, the segment falls back to the full series.
+ *
+ * Looking up a segment first checks the segment of the last lookup, successive epochs almost always fall in the same
+ * segment. Only the requested angles are interpolated, so the nutation does not evaluate the precession and vice versa.
+ *
+ * @param nutation Nutation model that provides the full nutation series.
+ * @param policy   Length, number of nodes and tolerance of the interpolation segments.
+ */
+class PrecessionNutationTable(val nutation: IAU2000Nutation[_, _], val policy: TabulationPolicy = TabulationPolicy()) {
+
+  private val logger = LoggerFactory.getLogger(getClass)
+
+  /** Number of Chebyshev nodes per segment */
+  private val n = policy.nodes
+  /** Length of a segment [Julian centuries] */
+  private val length = policy.segmentLength / 36525.0
+
+  /** Chebyshev nodes in [-1, 1] */
+  private val nodes = Array.tabulate(n)(k => cos(Pi * (k + 0.5) / n))
+  /** Cosine terms of the discrete cosine transform, (m, k) stored at m * n + k */
+  private val cosines = Array.tabulate(n * n)(i => cos(Pi * (i / n) * (i % n + 0.5) / n))
+
+  /** Coefficients of the segments, angle q and coefficient m at q * n + m (empty when the full series is used) */
+  private val segments = new ConcurrentHashMap[java.lang.Long, Array[Double]]()
+
+  /** Segment of the last lookup (a reference is written atomically, so it is safe to share between threads) */
+  @volatile private var last: PrecessionNutationTable.Segment = null
+
+  /** Number of segments that are currently built */
+  def size = segments.size
+
+  /**
+   * Interpolate the nutation in longitude (Δψ), and obliquity (Δε).
+   *
+   * @param t Julian centuries since the J2000 epoch in TT (or TDB).
+   * @return The nutation parameters longitude (Δψ) and obliquity (Δε) [arcseconds]
+   */
+  def nutation(t: Double): (Double, Double) = {
+    val index = floor(t / length).toLong
+    val coefficients = segment(index)
+    if (coefficients.isEmpty) {
+      nutation.seriesNutationParameters(t)
+    } else {
+      val x = 2.0 * (t - index * length) / length - 1.0
+      (evaluate(coefficients, 0, x), evaluate(coefficients, 1, x))
+    }
+  }
+
+  /**
+   * Interpolate the precession angles ψA, ωA and χA.
+   *
+   * @param t Julian centuries since the J2000 epoch in TT (or TDB).
+   * @return The precession angles ψA, ωA and χA [arcseconds]
+   */
+  def precession(t: Double): (Double, Double, Double) = {
+    val index = floor(t / length).toLong
+    val coefficients = segment(index)
+    if (coefficients.isEmpty) {
+      (IAU2006Precession.ψA(t), IAU2006Precession.ωA(t), IAU2006Precession.χA(t))
+    } else {
+      val x = 2.0 * (t - index * length) / length - 1.0
+      (evaluate(coefficients, 2, x), evaluate(coefficients, 3, x), evaluate(coefficients, 4, x))
+    }
+  }
+
+  /**
+   * Interpolate all the precession and nutation angles.
+   *
+   * @param t      Julian centuries since the J2000 epoch in TT (or TDB).
+   * @param out    Output array for Δψ, Δε, ψA, ωA and χA [arcseconds].
+   * @param offset Index in the output array of the first angle (Δψ).
+   */
+  def angles(t: Double, out: Array[Double], offset: Int) {
+    val index = floor(t / length).toLong
+    val coefficients = segment(index)
+    if (coefficients.isEmpty) {
+      series(t, out, offset)
+    } else {
+      val x = 2.0 * (t - index * length) / length - 1.0
+      var q = 0
+      while (q < PrecessionNutationTable.angles) {
+        out(offset + q) = evaluate(coefficients, q, x)
+        q += 1
+      }
+    }
+  }
+
+  /**
+   * Evaluate the precession and nutation angles using the full series.
+   *
+   * @param t      Julian centuries since the J2000 epoch in TT (or TDB).
+   * @param out    Output array for Δψ, Δε, ψA, ωA and χA [arcseconds].
+   * @param offset Index in the output array of the first angle (Δψ).
+   */
+  def series(t: Double, out: Array[Double], offset: Int) {
+    val (dψ, dε) = nutation.seriesNutationParameters(t)
+    out(offset) = dψ
+    out(offset + 1) = dε
+    out(offset + 2) = IAU2006Precession.ψA(t)
+    out(offset + 3) = IAU2006Precession.ωA(t)
+    out(offset + 4) = IAU2006Precession.χA(t)
+  }
+
+  /** Get the coefficients of a segment, building the segment when required */
+  private def segment(index: Long): Array[Double] = {
+    val previous = last
+    if (previous != null && previous.index == index) previous.coefficients
+    else {
+      val existing = segments.get(index)
+      val coefficients =
+        if (existing != null) existing
+        else {
+          val created = build(index)
+          val concurrent = segments.putIfAbsent(index, created)
+          if (concurrent != null) concurrent else created
+        }
+      last = new PrecessionNutationTable.Segment(index, coefficients)
+      coefficients
+    }
+  }
+
+  /**
+   * Fit the Chebyshev coefficients of a segment, and verify them against the full series.
+   *
+   * @param index Index of the segment, starting at t = index * length.
+   * @return The coefficients of the segment, or an empty array when the full series should be used.
+   */
+  private def build(index: Long): Array[Double] = {
+    val start = index * length
+    val angles = PrecessionNutationTable.angles
+    val values = Array.ofDim[Double](angles * n)
+    val exact = Array.ofDim[Double](angles)
+
+    // Sample the full series at the Chebyshev nodes
+    var k = 0
+    while (k < n) {
+      series(start + (nodes(k) + 1.0) / 2.0 * length, exact, 0)
+      var q = 0
+      while (q < angles) {
+        values(q * n + k) = exact(q)
+        q += 1
+      }
+      k += 1
+    }
+
+    // Fit the coefficients (discrete cosine transform)
+    val coefficients = Array.ofDim[Double](angles * n)
+    var q = 0
+    while (q < angles) {
+      var m = 0
+      while (m < n) {
+        var sum = 0.0
+        var k = 0
+        while (k < n) {
+          sum += values(q * n + k) * cosines(m * n + k)
+          k += 1
+        }
+        coefficients(q * n + m) = (if (m == 0) 1.0 else 2.0) * sum / n
+        m += 1
+      }
+      q += 1
+    }
+
+    // Verify the interpolation in between the nodes (on the Chebyshev extrema, including the segment boundaries)
+    var error = 0.0
+    var j = 0
+    while (j <= n) {
+      val x = cos(Pi * j / n)
+      series(start + (x + 1.0) / 2.0 * length, exact, 0)
+      var q = 0
+      while (q < angles) {
+        error = max(error, abs(evaluate(coefficients, q, x) - exact(q)))
+        q += 1
+      }
+      j += 1
+    }
+
+    if (error > policy.tolerance) {
+      logger.warn(s"Precession-nutation interpolation error of $error arcseconds exceeds the tolerance of ${policy.tolerance} arcseconds for t = [$start, ${start + length}], using the full series instead")
+      new Array[Double](0)
+    } else coefficients
+  }
+
+  /** Evaluate the Chebyshev series of a single angle (Clenshaw recurrence) */
+  private def evaluate(coefficients: Array[Double], q: Int, x: Double) = {
+    val pos = q * n
+    val x2 = 2.0 * x
+    var b1 = 0.0
+    var b2 = 0.0
+    var j = n - 1
+    while (j > 0) {
+      val b0 = coefficients(pos + j) + x2 * b1 - b2
+      b2 = b1
+      b1 = b0
+      j -= 1
+    }
+    coefficients(pos) + x * b1 - b2
+  }
+
+}
+
+object PrecessionNutationTable {
+
+  /** Number of tabulated angles (Δψ, Δε, ψA, ωA and χA) */
+  val angles = 5
+
+  /** Coefficients of the segment with the given index */
+  private class Segment(val index: Long, val coefficients: Array[Double])
+
+}
@@ -0,0 +1,31 @@
+package be.angelcorp.celest.frameGraph.frames.transforms
+
+/**
+ * Policy for the interpolation tables of the precession and nutation angles (see
+ * [[be.angelcorp.celest.frameGraph.frames.transforms.PrecessionNutationTable]]).
+ *
+ * The angles are interpolated using a Chebyshev series on consecutive segments of equal length. Each segment is
+ * checked against the full precession and nutation series when it is built; when the interpolation error exceeds the
+ * tolerance, the full series is used for that segment instead. The policy can be configured for the universe using
+ * [[be.angelcorp.celest.universe.modules.DefaultFrames]].
+ *
+ * {{{
+ *   // Interpolate within 1 μas, using 12 nodes every 8 days
+ *   TabulationPolicy()
+ *   // Cheaper but less accurate table
+ *   TabulationPolicy(segmentLength = 16.0, nodes = 10, tolerance = 1E-4)
+ * }}}
+ *
+ * @param segmentLength Length of a single interpolation segment [days].
+ * @param nodes         Number of Chebyshev nodes in a segment (degree of the interpolating polynomial + 1).
+ * @param tolerance     Maximum interpolation error of the angles with respect to the full series [arcseconds].
+ */
+case class TabulationPolicy(segmentLength: Double = 8.0,
+                            nodes: Int = 12,
+                            tolerance: Double = 1E-6) {
+
+  require(segmentLength > 0, "The length of an interpolation segment must be positive")
+  require(nodes >= 2, "An interpolation segment requires at least two nodes")
+  require(tolerance >= 0, "The interpolation tolerance cannot be negative")
+
+}
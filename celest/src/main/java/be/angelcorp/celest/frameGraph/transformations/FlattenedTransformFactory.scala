@@ -0,0 +1,46 @@
+package be.angelcorp.celest.frameGraph.transformations
+
+import be.angelcorp.celest.frameGraph.{BasicReferenceFrameTransformFactory, ReferenceFrameTransform, ReferenceFrameTransformFactory, ReferenceSystem}
+import be.angelcorp.celest.time.Epoch
+
+/**
+ * Factory that flattens the transformations of another factory (typically a chain of
+ * [[be.angelcorp.celest.frameGraph.CompositeFrameTransformFactory]]s) into a single
+ * [[be.angelcorp.celest.frameGraph.transformations.KinematicTransformation]].
+ *
+ * For a given epoch, all the transformations of the chain are composed into one set of
+ * [[be.angelcorp.celest.frameGraph.transformations.TransformationParameters]] (see
+ * [[be.angelcorp.celest.frameGraph.transformations.TransformationParameters#compose]]). Applying the resulting
+ * transformation costs a single rotation and cross product, regardless of the length of the chain. When a part of the
+ * chain cannot be described by transformation parameters, the original (nested) transformation is returned.
+ *
+ * @param factory Factory producing the transformations to flatten.
+ *
+ * @tparam F0 Transform from this ReferenceFrame.
+ * @tparam F1 Transform to this ReferenceFrame.
+ */
+class FlattenedTransformFactory[F0 <: ReferenceSystem, F1 <: ReferenceSystem](val factory: ReferenceFrameTransformFactory[F0, F1])
+  extends BasicReferenceFrameTransformFactory[F0, F1] {
+
+  /** {@inheritDoc} */
+  override def cost(epoch: Epoch) = factory.cost(epoch)
+
+  /** {@inheritDoc} */
+  override def transform(epoch: Epoch): ReferenceFrameTransform[F0, F1] = {
+    val transform = factory.transform(epoch)
+    TransformationParameters.of(transform) match {
+      case Some(parameters) => new KinematicTransformation(this, epoch, parameters)
+      case None => transform
+    }
+  }
+
+  /** {@inheritDoc} */
+  override def inverse = new FlattenedTransformFactory(factory.inverse)
+
+  /** {@inheritDoc} */
+  override def fromFrame: F0 = factory.fromFrame
+
+  /** {@inheritDoc} */
+  override def toFrame: F1 = factory.toFrame
+
+}
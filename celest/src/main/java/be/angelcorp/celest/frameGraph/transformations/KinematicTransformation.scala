@@ -82,7 +82,7 @@ class KinematicTransformation[F0 <: ReferenceSystem, F1 <: ReferenceSystem](val
   }
 
   override def transformOrientation(orientation: Rotation): Rotation =
-    throw new UnsupportedOperationException("Not implemented yet")
+    orientation.applyTo(parameters.rotation)
 
   /**
    * Transforms the position in frame F0 to the frame F1 using:
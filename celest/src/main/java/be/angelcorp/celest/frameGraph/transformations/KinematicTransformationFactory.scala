@@ -16,10 +16,11 @@
 package be.angelcorp.celest.frameGraph.transformations
 
 import be.angelcorp.celest.frameGraph.BasicReferenceFrameTransformFactory
+import be.angelcorp.celest.frameGraph.CompositeFrameTransform
 import be.angelcorp.celest.frameGraph.ReferenceFrameTransform
 import be.angelcorp.celest.frameGraph.ReferenceSystem
-import be.angelcorp.celest.math.geometry.Vec3
-import be.angelcorp.celest.math.rotation.Rotation
+import be.angelcorp.celest.math.geometry.{Mat3, Vec3}
+import be.angelcorp.celest.math.rotation.{RotationMatrix, Rotation}
 import be.angelcorp.celest.time.Epoch
 
 /**
@@ -137,4 +138,77 @@ case class TransformationParameters(epoch: Epoch,
                                     acceleration: Vec3,
                                     rotation: Rotation,
                                     rotationRate: Vec3,
-                                    rotationAcceleration: Vec3)
\ No newline at end of file
+                                    rotationAcceleration: Vec3)
+object TransformationParameters {
+
+  /**
+   * Parameters of a transformation that leaves all the states unchanged.
+   *
+   * @param epoch Epoch at which the parameters are valid.
+   */
+  def identity(epoch: Epoch) =
+    new TransformationParameters(epoch, Vec3.zero, Vec3.zero, Vec3.zero, new RotationMatrix(Mat3.identity()), Vec3.zero, Vec3.zero)
+
+  /**
+   * Compose the parameters of two sequential transformations (first F0 => F1, then F1 => F2) into the parameters of a
+   * single transformation F0 => F2.
+   * <p/>
+   * With the parameters of the second transformation expressed in F0 (\( \vec{e} = \tilde{R}_1^T \delta\vec{r}_2 \),
+   * \( \vec{f} = \tilde{R}_1^T \delta\vec{v}_2 \), \( \vec{u} = \tilde{R}_1^T \vec{\omega}_2 \), ...), the
+   * composed parameters are:
+   * <p/>
+   * $$ \tilde{R} = \tilde{R}_2 \tilde{R}_1 $$
+   * $$ \delta\vec{r} = \delta\vec{r}_1 + \vec{e} $$
+   * $$ \delta\vec{v} = \delta\vec{v}_1 + \vec{f} - \vec{\omega}_1 \times \vec{e} $$
+   * $$ \delta\vec{a} = \delta\vec{a}_1 + \vec{g} - 2 \vec{\omega}_1 \times \vec{f} +
+   * \vec{\omega}_1 \times \left( \vec{\omega}_1 \times \vec{e} \right) - \vec{\alpha}_1 \times \vec{e} $$
+   * $$ \vec{\omega} = \vec{\omega}_1 + \vec{u} $$
+   * $$ \vec{\alpha} = \vec{\alpha}_1 + \vec{\beta} + \vec{u} \times \vec{\omega}_1 $$
+   * <p/>
+   * This follows from substituting the position, velocity and acceleration transformations of
+   * [[be.angelcorp.celest.frameGraph.transformations.KinematicTransformation]] into each other.
+   *
+   * @param first  Parameters of the first transformation (F0 => F1).
+   * @param second Parameters of the second transformation (F1 => F2).
+   * @return Parameters of the combined transformation (F0 => F2).
+   */
+  def compose(first: TransformationParameters, second: TransformationParameters) = {
+    val r1 = first.rotation.toMatrix.mtx
+    val r1t = r1.transpose
+    val e = r1t * second.translation
+    val f = r1t * second.velocity
+    val g = r1t * second.acceleration
+    val u = r1t * second.rotationRate
+    val beta = r1t * second.rotationAcceleration
+    val w1 = first.rotationRate
+
+    new TransformationParameters(first.epoch,
+      first.translation + e,
+      first.velocity + f - w1.cross(e),
+      first.acceleration + g - (w1 * 2).cross(f) + w1.cross(w1.cross(e)) - first.rotationAcceleration.cross(e),
+      new RotationMatrix(second.rotation.toMatrix.mtx dot r1),
+      w1 + u,
+      first.rotationAcceleration + beta + u.cross(w1))
+  }
+
+  /**
+   * Find the parameters that describe a transformation, when it is a kinematic transformation, a constant rotation,
+   * a translation, or a composition of these.
+   *
+   * @param transform Transformation to describe.
+   * @return The parameters of the transformation, or None when the transformation cannot be described by parameters.
+   */
+  def of(transform: ReferenceFrameTransform[_, _]): Option[TransformationParameters] = transform match {
+    case kinematic: KinematicTransformation[_, _] =>
+      Some(kinematic.parameters)
+    case rotation: ConstantRotationTransform[_, _, _] =>
+      Some(new TransformationParameters(rotation.epoch, Vec3.zero, Vec3.zero, Vec3.zero, new RotationMatrix(rotation.M), Vec3.zero, Vec3.zero))
+    case translation: TranslationTransform[_, _, _] =>
+      Some(identity(translation.epoch).copy(translation = translation.dx))
+    case composite: CompositeFrameTransform[_, _, _] =>
+      for (p0 <- of(composite.transform0); p1 <- of(composite.transform1)) yield compose(p0, p1)
+    case _ =>
+      None
+  }
+
+}
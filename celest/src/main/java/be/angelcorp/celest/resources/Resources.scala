@@ -2,7 +2,7 @@ package be.angelcorp.celest.resources
 
 import be.angelcorp.celest.universe.Universe
 
-import scala.util.Try
+import scala.util.{Failure, Try}
 
 object Resources {
 
@@ -12,4 +12,15 @@ object Resources {
   def findArchive( description: ResourceDescription )(implicit universe: Universe): Try[ArchiveResource] =
     universe.instance[ResourceResolver].findArchive( description )
 
+  /**
+   * Finds a resource that is bundled with celest (on the classpath), these resources do not require a repository.
+   *
+   * @param path Path of the resource on the classpath, for example "be/angelcorp/celest/time/timeStandard/fairhead-bretagnon.txt".
+   */
+  def bundled( path: String ): Try[Resource] =
+    Option( getClass.getClassLoader.getResource( path ) ) match {
+      case Some( url ) => Try( new InputStreamResource( url.openStream(), url.toURI ) )
+      case None => Failure( new ResourceNotFound( s"The bundled resource $path was not found on the classpath." ) )
+    }
+
 }
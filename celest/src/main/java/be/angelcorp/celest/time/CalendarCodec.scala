@@ -0,0 +1,317 @@
+package be.angelcorp.celest.time
+
+import java.nio.ByteBuffer
+import be.angelcorp.celest.time.timeStandard.{LeapSecondTable, UTCTime, TimeStandard}
+
+/**
+ * Allocation-free parsing and formatting of calendar dates, for bulk input and output of epochs.
+ *
+ * The following formats are supported (the 'T' separator can also be a space, and the trailing 'Z' is optional):
+ *
+ * <ul>
+ * <li>ISO-8601 and CCSDS ASCII time code A: `YYYY-MM-DDThh:mm:ss.ddd...Z`</li>
+ * <li>CCSDS ASCII time code B (day of year): `YYYY-DDDThh:mm:ss.ddd...Z`</li>
+ * </ul>
+ *
+ * Dates are read from and written to a [[java.lang.CharSequence]] or an ASCII [[java.nio.ByteBuffer]] (using absolute
+ * positions, so the position of the buffer is not changed). The Julian date is returned as a pair of doubles (the Julian
+ * date of 0h, and the fraction of the day), written in a caller supplied array:
+ *
+ * {{{
+ *   val jd = Array.ofDim[Double](2)
+ *   CalendarCodec.parse("2012-06-30T23:59:60.5Z", utc, jd, 0)
+ *   val text = new java.lang.StringBuilder
+ *   CalendarCodec.format(jd(0), jd(1), utc, 3, text) // 2012-06-30T23:59:60.500Z
+ * }}}
+ *
+ * When the time standard is a [[be.angelcorp.celest.time.timeStandard.UTCTime]], days that end in a leap second (as
+ * found in its [[be.angelcorp.celest.time.timeStandard.LeapSecondTable]]) are longer, and the seconds field can reach
+ * 60. The fraction of such a day is relative to its actual length, following the convention of the IAU SOFA routines
+ * iauDtf2d and iauD2dtf. These quasi Julian dates are the Julian dates used by UTCTime, so they can be converted
+ * directly using [[be.angelcorp.celest.time.timeStandard.TimeScales]] or
+ * [[be.angelcorp.celest.time.timeStandard.UTCTime#offsetToTT]].
+ */
+object CalendarCodec {
+
+  /** Powers of ten */
+  private val pow10 = Array.tabulate(19)(i => math.pow(10, i))
+
+  /** Number of days in each month of a common year */
+  private val monthLengths = Array(31, 28, 31, 30, 31, 30, 31, 31, 30, 31, 30, 31)
+
+  /**
+   * Parse a calendar date from a character sequence.
+   *
+   * @param text         Text containing the date.
+   * @param timeStandard Time standard of the date.
+   * @param out          Output array for the Julian date of 0h and the fraction of the day.
+   * @param offset       Index in the output array of the Julian date of 0h.
+   */
+  def parse(text: CharSequence, timeStandard: TimeStandard, out: Array[Double], offset: Int) {
+    parse(text, null, 0, text.length, timeStandard, out, offset)
+  }
+
+  /**
+   * Parse a calendar date from a range of a character sequence.
+   *
+   * @param text         Text containing the date.
+   * @param start        Index of the first character of the date.
+   * @param end          Index after the last character of the date.
+   * @param timeStandard Time standard of the date.
+   * @param out          Output array for the Julian date of 0h and the fraction of the day.
+   * @param offset       Index in the output array of the Julian date of 0h.
+   */
+  def parse(text: CharSequence, start: Int, end: Int, timeStandard: TimeStandard, out: Array[Double], offset: Int) {
+    parse(text, null, start, end, timeStandard, out, offset)
+  }
+
+  /**
+   * Parse a calendar date from a range of an ASCII byte buffer.
+   *
+   * @param bytes        Buffer containing the date.
+   * @param start        Index of the first byte of the date.
+   * @param end          Index after the last byte of the date.
+   * @param timeStandard Time standard of the date.
+   * @param out          Output array for the Julian date of 0h and the fraction of the day.
+   * @param offset       Index in the output array of the Julian date of 0h.
+   */
+  def parse(bytes: ByteBuffer, start: Int, end: Int, timeStandard: TimeStandard, out: Array[Double], offset: Int) {
+    parse(null, bytes, start, end, timeStandard, out, offset)
+  }
+
+  /**
+   * Format a Julian date as an ISO-8601 / CCSDS ASCII A date, or CCSDS ASCII B date.
+   *
+   * @param jd1          First part of the Julian date.
+   * @param jd2          Second part of the Julian date.
+   * @param timeStandard Time standard of the date.
+   * @param digits       Number of decimals of the seconds (0 to 9).
+   * @param out          Output to append the date to.
+   * @param dayOfYear    Format the date using the day of year (CCSDS ASCII B).
+   */
+  def format(jd1: Double, jd2: Double, timeStandard: TimeStandard, digits: Int, out: java.lang.StringBuilder, dayOfYear: Boolean = false) {
+    format(jd1, jd2, timeStandard, digits, dayOfYear, out, null)
+  }
+
+  /**
+   * Format a Julian date as an ISO-8601 / CCSDS ASCII A date, or CCSDS ASCII B date into an ASCII byte buffer (at
+   * its current position).
+   *
+   * @param jd1          First part of the Julian date.
+   * @param jd2          Second part of the Julian date.
+   * @param timeStandard Time standard of the date.
+   * @param digits       Number of decimals of the seconds (0 to 9).
+   * @param out          Output buffer.
+   * @param dayOfYear    Format the date using the day of year (CCSDS ASCII B).
+   */
+  def format(jd1: Double, jd2: Double, timeStandard: TimeStandard, digits: Int, out: ByteBuffer, dayOfYear: Boolean) {
+    format(jd1, jd2, timeStandard, digits, dayOfYear, null, out)
+  }
+
+  /**
+   * Julian day number of a Gregorian calendar date (Fliegel and Van Flandern).
+   *
+   * @param year  Year.
+   * @param month Month (1-12).
+   * @param day   Day of the month (1-31).
+   */
+  def julianDayNumber(year: Int, month: Int, day: Int): Int = {
+    val a = (month - 14) / 12
+    (1461 * (year + 4800 + a)) / 4 + (367 * (month - 2 - 12 * a)) / 12 - (3 * ((year + 4900 + a) / 100)) / 4 + day - 32075
+  }
+
+  /** True when the year is a leap year in the Gregorian calendar */
+  private def isLeapYear(year: Int) = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0
+
+  /** Number of days in a month of the Gregorian calendar */
+  private def daysInMonth(year: Int, month: Int) =
+    if (month == 2 && isLeapYear(year)) 29 else monthLengths(month - 1)
+
+  /** Length of the UTC day starting at the given Julian date of 0h [s] */
+  private def dayLength(leapSeconds: LeapSecondTable, jd0h: Double): Double =
+    if (leapSeconds == null) 86400.0
+    else {
+      val next = jd0h + 1.0
+      val index = leapSeconds.index(next)
+      if (leapSeconds.start(index) == next) 86400.0 + leapSeconds.leapSecond(index) else 86400.0
+    }
+
+  private def leapSecondsOf(timeStandard: TimeStandard) = timeStandard match {
+    case utc: UTCTime => utc.leapSeconds
+    case _ => null
+  }
+
+  private def charAt(text: CharSequence, bytes: ByteBuffer, i: Int): Char =
+    if (text != null) text.charAt(i) else (bytes.get(i) & 0xFF).toChar
+
+  private def error(text: CharSequence, bytes: ByteBuffer, start: Int, end: Int, position: Int, expected: String) = {
+    val date = new java.lang.StringBuilder
+    var i = start
+    while (i < end) {
+      date.append(charAt(text, bytes, i))
+      i += 1
+    }
+    new IllegalArgumentException(s"Invalid date '$date', expected $expected at index ${position - start}")
+  }
+
+  /** Read a fixed number of digits starting at index i */
+  private def digits(text: CharSequence, bytes: ByteBuffer, start: Int, end: Int, i: Int, count: Int, name: String): Int = {
+    if (i + count > end) throw error(text, bytes, start, end, i, name)
+    var value = 0
+    var k = 0
+    while (k < count) {
+      val d = charAt(text, bytes, i + k) - '0'
+      if (d < 0 || d > 9) throw error(text, bytes, start, end, i + k, name)
+      value = 10 * value + d
+      k += 1
+    }
+    value
+  }
+
+  /** Check that the character at index i is c */
+  private def expect(text: CharSequence, bytes: ByteBuffer, start: Int, end: Int, i: Int, c: Char) {
+    if (i >= end || charAt(text, bytes, i) != c) throw error(text, bytes, start, end, i, "'" + c + "'")
+  }
+
+  private def parse(text: CharSequence, bytes: ByteBuffer, start: Int, end: Int, timeStandard: TimeStandard, out: Array[Double], offset: Int) {
+    val leapSeconds = leapSecondsOf(timeStandard)
+
+    // Date
+    val year = digits(text, bytes, start, end, start, 4, "year")
+    expect(text, bytes, start, end, start + 4, '-')
+    var i = start + 5
+    // Distinguish between YYYY-MM-DD and YYYY-DDD
+    val jdn =
+      if (i + 2 >= end || charAt(text, bytes, i + 2) != '-') {
+        val doy = digits(text, bytes, start, end, i, 3, "day of year")
+        if (doy < 1 || doy > (if (isLeapYear(year)) 366 else 365)) throw error(text, bytes, start, end, i, "day of year")
+        i += 3
+        julianDayNumber(year, 1, 1) + doy - 1
+      } else {
+        val month = digits(text, bytes, start, end, i, 2, "month")
+        if (month < 1 || month > 12) throw error(text, bytes, start, end, i, "month")
+        val day = digits(text, bytes, start, end, i + 3, 2, "day")
+        if (day < 1 || day > daysInMonth(year, month)) throw error(text, bytes, start, end, i + 3, "day")
+        i += 5
+        julianDayNumber(year, month, day)
+      }
+    val jd0h = jdn - 0.5
+    val length = dayLength(leapSeconds, jd0h)
+
+    // Time
+    var seconds = 0.0
+    if (i < end && charAt(text, bytes, i) != 'Z') {
+      val separator = charAt(text, bytes, i)
+      if (separator != 'T' && separator != ' ') throw error(text, bytes, start, end, i, "'T'")
+      val hour = digits(text, bytes, start, end, i + 1, 2, "hour")
+      if (hour > 23) throw error(text, bytes, start, end, i + 1, "hour")
+      expect(text, bytes, start, end, i + 3, ':')
+      val minute = digits(text, bytes, start, end, i + 4, 2, "minute")
+      if (minute > 59) throw error(text, bytes, start, end, i + 4, "minute")
+      expect(text, bytes, start, end, i + 6, ':')
+      val second = digits(text, bytes, start, end, i + 7, 2, "second")
+      i += 9
+      var fraction = 0.0
+      if (i < end && charAt(text, bytes, i) == '.') {
+        i += 1
+        var value = 0L
+        var count = 0
+        var c = if (i < end) charAt(text, bytes, i) else ' '
+        while (c >= '0' && c <= '9') {
+          // Digits beyond the resolution of a double are ignored
+          if (count < 18) {
+            value = 10 * value + (c - '0')
+            count += 1
+          }
+          i += 1
+          c = if (i < end) charAt(text, bytes, i) else ' '
+        }
+        fraction = value / pow10(count)
+      }
+      seconds = 3600.0 * hour + 60.0 * minute + second + fraction
+      // The seconds can only reach 60 during a leap second
+      if (second >= 60 && !(hour == 23 && minute == 59 && seconds < length))
+        throw error(text, bytes, start, end, i, "second")
+    }
+    if (i < end && charAt(text, bytes, i) == 'Z') i += 1
+    if (i != end) throw error(text, bytes, start, end, i, "end of date")
+
+    out(offset) = jd0h
+    out(offset + 1) = seconds / length
+  }
+
+  private def format(jd1: Double, jd2: Double, timeStandard: TimeStandard, digits: Int, dayOfYear: Boolean,
+                     text: java.lang.StringBuilder, bytes: ByteBuffer) {
+    require(digits >= 0 && digits <= 9, "The number of decimals must be between 0 and 9")
+    def put(c: Char) {
+      if (text != null) text.append(c) else bytes.put(c.toByte)
+    }
+    def putDigits(value: Long, count: Int) {
+      var k = count - 1
+      while (k >= 0) {
+        put(('0' + (value / pow10(k).toLong) % 10).toChar)
+        k -= 1
+      }
+    }
+
+    // Split in the Julian date of 0h, and the fraction of the day
+    val leapSeconds = leapSecondsOf(timeStandard)
+    val d1 = math.floor(jd1 + 0.5)
+    var jd0h = d1 - 0.5
+    var fraction = (jd1 + 0.5 - d1) + jd2
+    val days = math.floor(fraction)
+    jd0h += days
+    fraction -= days
+
+    // Round the seconds in the day to the requested number of decimals
+    val scale = pow10(digits).toLong
+    val lengthTicks = math.round(dayLength(leapSeconds, jd0h) * scale)
+    var ticks = math.round(fraction * lengthTicks)
+    if (ticks >= lengthTicks) {
+      // Rounded up to the next day
+      ticks -= lengthTicks
+      jd0h += 1.0
+    }
+
+    // Calendar date of the day (inverse of Fliegel and Van Flandern)
+    val jdn = (jd0h + 0.5).toInt
+    var l = jdn + 68569
+    val n = (4 * l) / 146097
+    l = l - (146097 * n + 3) / 4
+    val i = (4000 * (l + 1)) / 1461001
+    l = l - (1461 * i) / 4 + 31
+    val j = (80 * l) / 2447
+    val day = l - (2447 * j) / 80
+    l = j / 11
+    val month = j + 2 - 12 * l
+    val year = 100 * (n - 49) + i + l
+
+    putDigits(year, 4)
+    put('-')
+    if (dayOfYear) {
+      putDigits(jdn - julianDayNumber(year, 1, 1) + 1, 3)
+    } else {
+      putDigits(month, 2)
+      put('-')
+      putDigits(day, 2)
+    }
+    put('T')
+
+    val minuteTicks = 60L * scale
+    val dayTicks = 86400L * scale
+    // Ticks beyond the last minute of the day are a leap second
+    val minuteOfDay = math.min(ticks / minuteTicks, dayTicks / minuteTicks - 1)
+    val secondsTicks = ticks - minuteOfDay * minuteTicks
+    putDigits(minuteOfDay / 60, 2)
+    put(':')
+    putDigits(minuteOfDay % 60, 2)
+    put(':')
+    putDigits(secondsTicks / scale, 2)
+    if (digits > 0) {
+      put('.')
+      putDigits(secondsTicks % scale, digits)
+    }
+    put('Z')
+  }
+
+}
@@ -16,7 +16,7 @@
 package be.angelcorp.celest.time
 
 import java.util._
-import be.angelcorp.celest.time.timeStandard.TimeStandard
+import be.angelcorp.celest.time.timeStandard.{TimeScales, TimeStandard}
 import be.angelcorp.celest.time.dateStandard.DateStandard
 import be.angelcorp.celest.time.TimeUtils._
 import be.angelcorp.celest.time.timeStandard.TimeStandards._
@@ -145,15 +145,8 @@ case class JulianDate(jd: Double, timeStandard: TimeStandard)(implicit universe:
   def inTimeStandard(timeStandard: TimeStandard) =
     if (this.timeStandard.equals(timeStandard))
       this
-    else {
-      /* First convert this to TT form */
-      val offset = this.timeStandard.offsetToTT(this)
-      val this_tt = new JulianDate(jd, TT).addS(offset)
-
-      /* Then convert the TT jd form to the requested type */
-      val offset2 = timeStandard.offsetFromTT(this_tt)
-      new JulianDate(this_tt.jd, timeStandard).addS(offset2)
-    }
+    else
+      new JulianDate(TimeScales.convert(jd, this.timeStandard, timeStandard), timeStandard)
 
   override def hashCode() = jd.hashCode ^ timeStandard.hashCode
 
@@ -0,0 +1,109 @@
+package be.angelcorp.celest.time
+
+import java.util.GregorianCalendar
+import be.angelcorp.celest.time.timeStandard.{TimeScales, TimeStandard}
+
+/**
+ * An epoch that remembers its representation in every [[be.angelcorp.celest.time.timeStandard.TimeStandard]] it has
+ * been converted to.
+ *
+ * Within a single step of a propagation the same instant is often needed in several time standards (TT for nutation
+ * and precession, TDB for the ephemerides, UT1 for the Earth rotation, UTC for the EOP data), and often more than once.
+ * A memoized epoch converts to each time standard only on the first request. All the epochs returned by
+ * [[be.angelcorp.celest.time.MemoizedEpoch#inTimeStandard]] share the same memory, and are always converted from the
+ * original epoch (so that round-off does not accumulate over chained conversions):
+ *
+ * {{{
+ *   val epoch = MemoizedEpoch(JulianDate(2451545.0, TT))
+ *   epoch.inTimeStandard(UT1).inTimeStandard(TDB) // Converted from TT to UT1 and from TT to TDB
+ *   epoch.inTimeStandard(TDB)                      // Cached
+ * }}}
+ *
+ * The memory is a small lock-free list of the converted epochs. Concurrent conversions to the same time standard may
+ * both compute the result, but only one of them is remembered.
+ *
+ * @param jd           Julian date of the epoch.
+ * @param timeStandard Time standard that the epoch is given in.
+ * @param memory       Memory of the converted epochs, shared by all representations of the same instant.
+ */
+final class MemoizedEpoch private(val jd: Double, val timeStandard: TimeStandard, memory: MemoizedEpoch.Memory) extends Epoch {
+
+  def add(dt: Double) = MemoizedEpoch(jd + dt, timeStandard)
+
+  def date = {
+    val dateArr = TimeUtils.invjday(jd)
+    val calender = new GregorianCalendar(dateArr._1, dateArr._2, dateArr._3, dateArr._4, dateArr._5, math.round(dateArr._6).toInt)
+    calender.getTime
+  }
+
+  def inTimeStandard(timeStandard: TimeStandard): MemoizedEpoch =
+    if (this.timeStandard eq timeStandard) this
+    else memory(timeStandard)
+
+  def relativeTo(epoch: Epoch) = jd - epoch.jd
+
+  override def compareTo(other: Epoch) = jd.compareTo(other.jd)
+
+  override def equals(other: Any) = other match {
+    case that: MemoizedEpoch => jd == that.jd && timeStandard == that.timeStandard
+    case _ => false
+  }
+
+  override def hashCode() = jd.hashCode ^ timeStandard.hashCode
+
+  override def toString = "%fJD %s".format(jd, timeStandard.getClass.getSimpleName)
+
+}
+
+object MemoizedEpoch {
+
+  /**
+   * Create a memoized epoch.
+   *
+   * @param jd           Julian date of the epoch.
+   * @param timeStandard Time standard that the epoch is given in.
+   */
+  def apply(jd: Double, timeStandard: TimeStandard): MemoizedEpoch = new Memory(jd, timeStandard).origin
+
+  /**
+   * Create a memoized copy of an epoch (or return the epoch itself when it is already memoized).
+   *
+   * @param epoch Epoch to memoize.
+   */
+  def apply(epoch: Epoch): MemoizedEpoch = epoch match {
+    case memoized: MemoizedEpoch => memoized
+    case _ => apply(epoch.jd, epoch.timeStandard)
+  }
+
+  /** Node of the list of converted epochs */
+  private final class Entry(val epoch: MemoizedEpoch, val next: Entry)
+
+  /**
+   * Memory of the representations of a single instant.
+   *
+   * @param jd           Julian date of the original epoch.
+   * @param timeStandard Time standard of the original epoch.
+   */
+  private final class Memory(jd: Double, timeStandard: TimeStandard) {
+
+    /** The original epoch */
+    val origin = new MemoizedEpoch(jd, timeStandard, this)
+
+    /** Converted epochs, in order of the most recent conversion */
+    @volatile private var entries = new Entry(origin, null)
+
+    def apply(target: TimeStandard): MemoizedEpoch = {
+      var entry = entries
+      while (entry != null) {
+        if (entry.epoch.timeStandard eq target) return entry.epoch
+        entry = entry.next
+      }
+      val converted = new MemoizedEpoch(TimeScales.convert(jd, timeStandard, target), target, this)
+      // Benign race: a concurrent conversion may be dropped from the memory, but the result remains valid
+      entries = new Entry(converted, entries)
+      converted
+    }
+
+  }
+
+}
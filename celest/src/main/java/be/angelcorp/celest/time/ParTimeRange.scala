@@ -0,0 +1,74 @@
+package be.angelcorp.celest.time
+
+import scala.collection.parallel.SeqSplitter
+import scala.collection.parallel.immutable.ParSeq
+
+/**
+ * Parallel version of a [[be.angelcorp.celest.time.TimeRange]].
+ *
+ * The range is split by index into chunks of balanced size, and each chunk computes its epochs from the start of the
+ * range (start + step &times; index), so the workers share no mutable state.
+ *
+ * {{{
+ *   val states = TimeRange(start, end, step).par.map(epoch => ephemeris.interpolateState(epoch))
+ * }}}
+ *
+ * This class is based on [[scala.collection.parallel.immutable.ParRange]].
+ *
+ * @param range Sequential range to parallelize.
+ */
+class ParTimeRange(val range: TimeRange) extends ParSeq[Epoch] with Serializable {
+  self =>
+
+  override def seq = range
+
+  @inline final def length = range.length
+
+  @inline final def apply(idx: Int) = range.apply(idx)
+
+  def splitter = new ParTimeRangeIterator(0, length)
+
+  /**
+   * Splitter over the index range [from, until) of the time range.
+   *
+   * @param from  First index (inclusive).
+   * @param until Last index (exclusive).
+   */
+  class ParTimeRangeIterator(from: Int, until: Int) extends SeqSplitter[Epoch] {
+    private var index = from
+
+    final def remaining = until - index
+
+    final def hasNext = index < until
+
+    final def next() = if (hasNext) {
+      val epoch = range.apply(index)
+      index += 1
+      epoch
+    } else Iterator.empty.next()
+
+    def dup = new ParTimeRangeIterator(index, until)
+
+    def split = {
+      val left = remaining
+      if (left < 2) Seq(new ParTimeRangeIterator(index, until))
+      else Seq(
+        new ParTimeRangeIterator(index, index + left / 2),
+        new ParTimeRangeIterator(index + left / 2, until)
+      )
+    }
+
+    def psplit(sizes: Int*) = {
+      var start = index
+      for (size <- sizes) yield {
+        val end = math.min(start + math.max(size, 0), until)
+        val splitter = new ParTimeRangeIterator(start, end)
+        start = end
+        splitter
+      }
+    }
+
+    override def toString = "ParTimeRangeIterator(over: " + range + " [" + index + ", " + until + "))"
+  }
+
+}
@@ -0,0 +1,71 @@
+package be.angelcorp.celest.time
+
+import be.angelcorp.celest.time.EpochAnnotations._
+import be.angelcorp.celest.time.timeStandard.{TimeStandardAnnotations, TimeStandard}
+import be.angelcorp.celest.universe.Universe
+
+/**
+ * The time standards and reference epochs of a universe, resolved from the injector only once.
+ *
+ * Retrieving an instance from the universe builds a Guice key and queries the injector every time. This context
+ * resolves each time standard and epoch on first use, and afterwards returns it as a plain field, so it can be used in
+ * hot code such as the nutation and precession models.
+ *
+ * The context of a universe is available as [[be.angelcorp.celest.universe.Universe#timeContext]]. The shorthand
+ * functions in [[be.angelcorp.celest.time.timeStandard.TimeStandards]] and [[be.angelcorp.celest.time.Epochs]] route
+ * through it.
+ *
+ * @param universe Universe to resolve the time standards and epochs from.
+ */
+class TimeContext(universe: Universe) {
+
+  /** See [[be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.TT]] */
+  lazy val TT: TimeStandard = universe.instance[TimeStandard, TimeStandardAnnotations.TT]
+  /** See [[be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.TDT]] */
+  lazy val TDT: TimeStandard = universe.instance[TimeStandard, TimeStandardAnnotations.TDT]
+  /** See [[be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.TAI]] */
+  lazy val TAI: TimeStandard = universe.instance[TimeStandard, TimeStandardAnnotations.TAI]
+  /** See [[be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.TCB]] */
+  lazy val TCB: TimeStandard = universe.instance[TimeStandard, TimeStandardAnnotations.TCB]
+  /** See [[be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.TCG]] */
+  lazy val TCG: TimeStandard = universe.instance[TimeStandard, TimeStandardAnnotations.TCG]
+  /** See [[be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.TDB]] */
+  lazy val TDB: TimeStandard = universe.instance[TimeStandard, TimeStandardAnnotations.TDB]
+  /** See [[be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.UTC]] */
+  lazy val UTC: TimeStandard = universe.instance[TimeStandard, TimeStandardAnnotations.UTC]
+  /** See [[be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.UT1]] */
+  lazy val UT1: TimeStandard = universe.instance[TimeStandard, TimeStandardAnnotations.UT1]
+  /** See [[be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.GPS]] */
+  lazy val GPS: TimeStandard = universe.instance[TimeStandard, TimeStandardAnnotations.GPS]
+
+  /** See [[be.angelcorp.celest.time.EpochAnnotations.J2000]] */
+  lazy val J2000: Epoch = universe.instance[Epoch, J2000]
+  /** See [[be.angelcorp.celest.time.EpochAnnotations.J1950]] */
+  lazy val J1950: Epoch = universe.instance[Epoch, J1950]
+  /** See [[be.angelcorp.celest.time.EpochAnnotations.J1900]] */
+  lazy val J1900: Epoch = universe.instance[Epoch, J1900]
+  /** See [[be.angelcorp.celest.time.EpochAnnotations.B1950]] */
+  lazy val B1950: Epoch = universe.instance[Epoch, B1950]
+  /** See [[be.angelcorp.celest.time.EpochAnnotations.TAI_EPOCH]] */
+  lazy val TAI_EPOCH: Epoch = universe.instance[Epoch, TAI_EPOCH]
+  /** See [[be.angelcorp.celest.time.EpochAnnotations.TT_EPOCH]] */
+  lazy val TT_EPOCH: Epoch = universe.instance[Epoch, TT_EPOCH]
+  /** See [[be.angelcorp.celest.time.EpochAnnotations.TCG_EPOCH]] */
+  lazy val TCG_EPOCH: Epoch = universe.instance[Epoch, TCG_EPOCH]
+  /** See [[be.angelcorp.celest.time.EpochAnnotations.TCB_EPOCH]] */
+  lazy val TCB_EPOCH: Epoch = universe.instance[Epoch, TCB_EPOCH]
+  /** See [[be.angelcorp.celest.time.EpochAnnotations.TDB_EPOCH]] */
+  lazy val TDB_EPOCH: Epoch = universe.instance[Epoch, TDB_EPOCH]
+
+  /** Julian date of the J2000 epoch (TT) */
+  lazy val j2000Jd = J2000.jd
+
+  /**
+   * Number of Julian centuries TT since the J2000 epoch.
+   *
+   * @param epoch Epoch to compute the number of centuries for.
+   */
+  def julianCenturiesTT(epoch: Epoch) =
+    (epoch.inTimeStandard(TT).jd - j2000Jd) / 36525.0
+
+}
@@ -25,10 +25,21 @@ class TimeRange(val start: Epoch, val end: Epoch, val step: Double)
   with Iterable[Epoch]
   with Seq[Epoch]
   with IndexedSeq[Epoch]
-  //with scala.collection.CustomParallelizable[Epoch, ParTimeRange]
+  with scala.collection.CustomParallelizable[Epoch, ParTimeRange]
   with Serializable {
 
-  //override def par = new ParTimeRange(this)
+  override def par = new ParTimeRange(this)
+
+  /**
+   * Create a Java spliterator over the epochs of this range, for use with fork-join and Java streams:
+   *
+   * {{{
+   *   java.util.stream.StreamSupport.stream(range.spliterator, true)
+   * }}}
+   *
+   * @return A spliterator that splits the range by index into balanced halves.
+   */
+  def spliterator: java.util.Spliterator[Epoch] = new TimeRangeSpliterator(this, 0, length)
 
   private def gap = end.relativeTo(start)
 
@@ -297,7 +308,6 @@ object TimeRange {
     count(start, end, step, isInclusive = false)
 
   class Inclusive(start: Epoch, end: Epoch, step: Double) extends TimeRange(start, end, step) {
-    //    override def par = new ParRange(this)
     override def isInclusive = true
 
     override protected def copy(start: Epoch, end: Epoch, step: Double): TimeRange = new Inclusive(start, end, step)
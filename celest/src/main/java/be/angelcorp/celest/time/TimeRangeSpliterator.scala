@@ -0,0 +1,48 @@
+package be.angelcorp.celest.time
+
+import java.util.Spliterator
+import java.util.function.Consumer
+
+/**
+ * Java spliterator over the index range [from, until) of a [[be.angelcorp.celest.time.TimeRange]].
+ *
+ * Splitting halves the remaining indices, and each epoch is computed from the start of the range
+ * (start + step &times; index), so split parts share no mutable state.
+ *
+ * @param range Range to iterate over.
+ * @param from  First index (inclusive).
+ * @param until Last index (exclusive).
+ */
+class TimeRangeSpliterator(range: TimeRange, from: Int, until: Int) extends Spliterator[Epoch] {
+  private var index = from
+
+  override def tryAdvance(action: Consumer[_ >: Epoch]) =
+    if (index < until) {
+      action.accept(range.apply(index))
+      index += 1
+      true
+    } else false
+
+  override def forEachRemaining(action: Consumer[_ >: Epoch]) {
+    while (index < until) {
+      action.accept(range.apply(index))
+      index += 1
+    }
+  }
+
+  override def trySplit(): Spliterator[Epoch] = {
+    val mid = index + (until - index) / 2
+    if (mid <= index) null
+    else {
+      val prefix = new TimeRangeSpliterator(range, index, mid)
+      index = mid
+      prefix
+    }
+  }
+
+  override def estimateSize() = (until - index).toLong
+
+  override def characteristics() =
+    Spliterator.ORDERED | Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.IMMUTABLE | Spliterator.NONNULL
+
+}
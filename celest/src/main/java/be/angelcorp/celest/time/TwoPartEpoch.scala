@@ -0,0 +1,134 @@
+package be.angelcorp.celest.time
+
+import java.util.GregorianCalendar
+import be.angelcorp.celest.physics.Units._
+import be.angelcorp.celest.time.timeStandard.{TimeScales, TimeStandard}
+
+/**
+ * A high resolution epoch, stored as an integer Julian day number and the number of seconds since the start of that
+ * Julian day (noon).
+ *
+ * A [[be.angelcorp.celest.time.JulianDate]] stores the Julian date in a single double, which limits its resolution to
+ * about 40 µs for contemporary dates. Every small step added to it is rounded to that resolution, and relative times
+ * between close epochs suffer from cancellation. This epoch keeps the seconds in the day separately (resolution of
+ * about 10 ps), and performs the arithmetic in [[be.angelcorp.celest.time.TwoPartEpoch#add]],
+ * [[be.angelcorp.celest.time.TwoPartEpoch#addS]], [[be.angelcorp.celest.time.TwoPartEpoch#relativeToS]] and
+ * [[be.angelcorp.celest.time.TwoPartEpoch#compareTo]] on the two parts separately:
+ *
+ * {{{
+ *   val t0 = TwoPartEpoch(Epochs.J2000)
+ *   val t1 = t0.addS(1E-6)
+ *   t1.relativeToS(t0) // 1E-6 (exact)
+ * }}}
+ *
+ * Use the companion object to construct an epoch, it normalizes the seconds to the range [0, 86400).
+ *
+ * @param day          Julian day number, the epoch is (day + seconds / 86400) in Julian date.
+ * @param seconds      Seconds since the start of the Julian day [s].
+ * @param timeStandard Time standard that the epoch is given in.
+ */
+final class TwoPartEpoch private(val day: Long, val seconds: Double, val timeStandard: TimeStandard) extends Epoch {
+
+  def add(dt: Double) = {
+    val days = math.floor(dt)
+    TwoPartEpoch(day + days.toLong, seconds + (dt - days) * julianDay, timeStandard)
+  }
+
+  override def addS(dt: Double) = TwoPartEpoch(day, seconds + dt, timeStandard)
+
+  def date = {
+    val dateArr = TimeUtils.invjday(jd)
+    val calender = new GregorianCalendar(dateArr._1, dateArr._2, dateArr._3, dateArr._4, dateArr._5, math.round(dateArr._6).toInt)
+    calender.getTime
+  }
+
+  def jd = day + seconds / julianDay
+
+  def inTimeStandard(timeStandard: TimeStandard) =
+    if (this.timeStandard.equals(timeStandard)) this
+    else TwoPartEpoch(day, seconds + TimeScales.offset(day, seconds / julianDay, this.timeStandard, timeStandard), timeStandard)
+
+  def relativeTo(epoch: Epoch) = relativeToS(epoch) / julianDay
+
+  override def relativeToS(epoch: Epoch) = epoch match {
+    case other: TwoPartEpoch => (day - other.day) * julianDay + (seconds - other.seconds)
+    case _ => (day - epoch.jd) * julianDay + seconds
+  }
+
+  override def fractionInDay = {
+    val fraction = seconds / julianDay + 0.5
+    if (fraction >= 1.0) fraction - 1.0 else fraction
+  }
+
+  override def compareTo(epoch: Epoch) = epoch match {
+    case other: TwoPartEpoch =>
+      if (day != other.day) java.lang.Long.compare(day, other.day)
+      else java.lang.Double.compare(seconds, other.seconds)
+    case _ => java.lang.Double.compare(relativeToS(epoch), 0.0)
+  }
+
+  override def equals(other: Any) = other match {
+    case that: TwoPartEpoch => day == that.day && seconds == that.seconds && timeStandard == that.timeStandard
+    case _ => false
+  }
+
+  override def hashCode() = day.hashCode ^ seconds.hashCode ^ timeStandard.hashCode
+
+  override def toString = "%d + %.9fs JD %s".format(day, seconds, timeStandard.getClass.getSimpleName)
+
+}
+
+object TwoPartEpoch {
+
+  /**
+   * Create an epoch from a Julian day number and the seconds in that day. The seconds can be outside of the day, they
+   * are normalized to the range [0, 86400).
+   *
+   * @param day          Julian day number.
+   * @param seconds      Seconds since the start of the Julian day [s].
+   * @param timeStandard Time standard that the epoch is given in.
+   */
+  def apply(day: Long, seconds: Double, timeStandard: TimeStandard): TwoPartEpoch =
+    if (seconds >= 0.0 && seconds < julianDay)
+      new TwoPartEpoch(day, seconds, timeStandard)
+    else {
+      val days = math.floor(seconds / julianDay)
+      val remainder = seconds - days * julianDay
+      // Guard against rounding of the remainder to a full day
+      if (remainder >= julianDay) new TwoPartEpoch(day + days.toLong + 1, remainder - julianDay, timeStandard)
+      else if (remainder < 0.0) new TwoPartEpoch(day + days.toLong - 1, remainder + julianDay, timeStandard)
+      else new TwoPartEpoch(day + days.toLong, remainder, timeStandard)
+    }
+
+  /**
+   * Create an epoch from a two-part Julian date (jd = jd1 + jd2).
+   *
+   * @param jd1          First part of the Julian date.
+   * @param jd2          Second part of the Julian date.
+   * @param timeStandard Time standard that the epoch is given in.
+   */
+  def apply(jd1: Double, jd2: Double, timeStandard: TimeStandard): TwoPartEpoch = {
+    val day1 = math.floor(jd1)
+    val day2 = math.floor(jd2)
+    apply(day1.toLong + day2.toLong, ((jd1 - day1) + (jd2 - day2)) * julianDay, timeStandard)
+  }
+
+  /**
+   * Create an epoch from a Julian date.
+   *
+   * @param jd           Julian date.
+   * @param timeStandard Time standard that the epoch is given in.
+   */
+  def apply(jd: Double, timeStandard: TimeStandard): TwoPartEpoch = apply(jd, 0.0, timeStandard)
+
+  /**
+   * Create a high resolution copy of an existing epoch.
+   *
+   * @param epoch Epoch to copy.
+   */
+  def apply(epoch: Epoch): TwoPartEpoch = epoch match {
+    case twoPart: TwoPartEpoch => twoPart
+    case _ => apply(epoch.jd, epoch.timeStandard)
+  }
+
+}
@@ -16,9 +16,13 @@ import be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.TAI
  */
 class GPSTime @Inject()(@TAI tai: TimeStandard) extends TimeStandard {
 
-  override def offsetFromTT(jd_tt: Epoch) = tai.offsetFromTT(jd_tt) - 19
+  override def offsetFromTT(jd_tt: Epoch) = offsetFromTT(jd_tt.jd, 0.0)
 
-  override def offsetToTT(jd_gps: Epoch) = -offsetFromTT(jd_gps)
+  override def offsetToTT(jd_gps: Epoch) = offsetToTT(jd_gps.jd, 0.0)
+
+  override def offsetFromTT(jd1: Double, jd2: Double) = tai.offsetFromTT(jd1, jd2) - 19
+
+  override def offsetToTT(jd1: Double, jd2: Double) = -offsetFromTT(jd1, jd2)
 
 }
 
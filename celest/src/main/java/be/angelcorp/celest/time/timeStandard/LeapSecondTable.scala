@@ -0,0 +1,209 @@
+package be.angelcorp.celest.time.timeStandard
+
+import java.util
+import scala.io.Source
+import scala.collection.mutable
+import be.angelcorp.celest.resources.Resources
+import be.angelcorp.celest.time.dateStandard.DateStandards
+
+/**
+ * Table of TAI - UTC, stored as sorted primitive arrays.
+ *
+ * Each row of the table starts at a UTC Julian date (breakpoint), from which on TAI - UTC is given by:
+ *
+ * <pre>
+ * TAI-UTC = a + (JD - b) &times; c [s]
+ * </pre>
+ *
+ * Before 1972 UTC drifted with respect to TAI (c != 0), since 1972 only integer leap seconds are used (c = 0). Before
+ * the first breakpoint TAI - UTC is zero.
+ *
+ * Looking up a row is a binary search over the breakpoints, preceded by a check on the row of the last lookup. Almost
+ * all queries fall in the same row as the previous query, so these lookups take constant time.
+ *
+ * The table can be loaded from a USNO tai-utc.dat file ([[be.angelcorp.celest.time.timeStandard.LeapSecondTable#fromTaiUtc]])
+ * or an IERS Leap_Second.dat file ([[be.angelcorp.celest.time.timeStandard.LeapSecondTable#fromLeapSecondDat]]). The
+ * table used by the universe is configured in [[be.angelcorp.celest.universe.modules.DefaultTime]].
+ *
+ * @param breakpoints UTC Julian dates at which each row starts, in ascending order.
+ * @param a           Constant part of TAI - UTC for each row [s].
+ * @param b           Reference Julian date of the drift in each row [jd].
+ * @param c           Drift of TAI - UTC for each row [s / day].
+ */
+class LeapSecondTable(breakpoints: Array[Double], a: Array[Double], b: Array[Double], c: Array[Double]) {
+  require(breakpoints.length == a.length && a.length == b.length && b.length == c.length,
+    "All the columns of the leap second table must have the same length")
+  require((1 until breakpoints.length).forall(i => breakpoints(i - 1) < breakpoints(i)),
+    "The breakpoints of the leap second table must be in ascending order")
+
+  /** Index of the row of the last lookup (an int is written atomically, so it is safe to share between threads) */
+  @volatile private var lastIndex = -1
+
+  /** Number of rows in the table. */
+  def size = breakpoints.length
+
+  /** UTC Julian date at which the given row starts (negative infinity for the row before the table). */
+  def start(index: Int) = if (index < 0) Double.NegativeInfinity else breakpoints(index)
+
+  /** UTC Julian date at which the given row ends (positive infinity for the last row). */
+  def end(index: Int) = if (index + 1 >= breakpoints.length) Double.PositiveInfinity else breakpoints(index + 1)
+
+  /**
+   * Find the row of the table that contains the given date.
+   *
+   * @param jd Julian date [jd].
+   * @return Index of the row containing the date, or -1 when the date is before the first row.
+   */
+  def index(jd: Double): Int = {
+    val last = lastIndex
+    if (last >= 0 && jd >= breakpoints(last) && jd < end(last)) last
+    else {
+      val search = util.Arrays.binarySearch(breakpoints, jd)
+      val index = if (search >= 0) search else -search - 2
+      lastIndex = index
+      index
+    }
+  }
+
+  /**
+   * TAI - UTC in the given row of the table.
+   *
+   * @param index Index of the row of the table (see [[be.angelcorp.celest.time.timeStandard.LeapSecondTable#index]]).
+   * @param jd    Julian date to evaluate the drift on [jd].
+   * @return TAI - UTC [s].
+   */
+  def taiMinusUtc(index: Int, jd: Double): Double =
+    if (index < 0) 0.0 else a(index) + (jd - b(index)) * c(index)
+
+  /**
+   * TAI - UTC on the given date.
+   *
+   * @param jd Julian date [jd].
+   * @return TAI - UTC [s].
+   */
+  def taiMinusUtc(jd: Double): Double = taiMinusUtc(index(jd), jd)
+
+  /**
+   * Size of the leap second inserted at the start of the given row, or zero when no leap second is inserted.
+   *
+   * @param index Index of the row of the table.
+   * @return The length of the leap second [s].
+   */
+  def leapSecond(index: Int): Double =
+    if (index <= 0) 0.0
+    else taiMinusUtc(index, breakpoints(index)) - taiMinusUtc(index - 1, breakpoints(index))
+
+  /** Rows of the table as (breakpoint [jd], a [s], b [jd], c [s/day]). */
+  def rows: Seq[(Double, Double, Double, Double)] =
+    for (i <- 0 until size) yield (breakpoints(i), a(i), b(i), c(i))
+
+}
+
+object LeapSecondTable {
+
+  /** Julian date of MJD 0 */
+  private val mjd0 = DateStandards.MJD.toJD(0)
+
+  /**
+   * Create a table from its rows.
+   *
+   * @param rows Rows of the table as (breakpoint [jd], a [s], b [jd], c [s/day]).
+   */
+  def apply(rows: Seq[(Double, Double, Double, Double)]): LeapSecondTable = {
+    val sorted = rows.sortBy(_._1)
+    new LeapSecondTable(sorted.map(_._1).toArray, sorted.map(_._2).toArray, sorted.map(_._3).toArray, sorted.map(_._4).toArray)
+  }
+
+  /** Classpath location of the bundled USNO tai-utc.dat file */
+  val taiUtcResource = "be/angelcorp/celest/time/timeStandard/tai-utc.dat"
+
+  /**
+   * Built-in table of TAI - UTC, loaded from a bundled copy of ftp://maia.usno.navy.mil/ser7/tai-utc.dat (up to the
+   * leap second of 2017 JAN 1).
+   */
+  lazy val builtin = fromTaiUtc(Resources.bundled(taiUtcResource).get.openSource())
+
+  /**
+   * Row for TAI - UTC for dates between 1 Jan 1961 and 1 Jan 1972
+   *
+   * <pre>
+   * TAI-UTC= a + (MJD - b) &times; c S
+   * </pre>
+   *
+   * @param jd Start of the row [jd]
+   * @param a  Time bias [s]
+   * @param b  Date bias [MJD]
+   * @param c  Time bias derivative [s / Julian day]
+   */
+  private def drift(jd: Double, a: Double, b: Double, c: Double) = (jd, a, mjd0 + b, c)
+
+  /**
+   * Row for TAI - UTC for a constant bias
+   *
+   * @param jd Start of the row [jd]
+   * @param a  Time bias [s]
+   */
+  private def leap(jd: Double, a: Double) = (jd, a, 0.0, 0.0)
+
+  /**
+   * Load a table from a USNO tai-utc.dat file, for example:
+   *
+   * {{{
+   *  1968 FEB  1 =JD 2439887.5  TAI-UTC=   4.2131700 S + (MJD - 39126.) X 0.002592 S
+   *  1972 JAN  1 =JD 2441317.5  TAI-UTC=  10.0       S + (MJD - 41317.) X 0.0      S
+   * }}}
+   *
+   * @param content Content of the tai-utc.dat file.
+   */
+  def fromTaiUtc(content: Source): LeapSecondTable = apply(
+    content.getLines().map(_.trim).filterNot(_.isEmpty).map(line => {
+      def valueAfter(label: String) = {
+        val start = line.indexOf(label)
+        if (start < 0) throw new IllegalArgumentException(s"Missing '$label' in tai-utc.dat line: $line")
+        // Some columns are directly followed by their unit, e.g. "X 0.0011232S"
+        line.substring(start + label.length).trim.takeWhile(c => Character.isDigit(c) || c == '.' || c == '-' || c == '+').toDouble
+      }
+      drift(valueAfter("=JD"), valueAfter("TAI-UTC="), valueAfter("MJD -"), valueAfter(" X "))
+    }).toList
+  )
+
+  /**
+   * Load a table from an IERS Leap_Second.dat file, for example:
+   *
+   * {{{
+   *  #    MJD        Date        TAI-UTC (s)
+   *  #           day month year
+   *      41317.0    1  1 1972       10
+   *      41499.0    1  7 1972       11
+   * }}}
+   *
+   * This file only lists the integer leap seconds since 1972, the rows of the built-in table before the first entry
+   * of the file (the UTC drift between 1961 and 1972) are retained.
+   *
+   * @param content Content of the Leap_Second.dat file.
+   */
+  def fromLeapSecondDat(content: Source): LeapSecondTable = {
+    val rows = mutable.ListBuffer[(Double, Double, Double, Double)]()
+    for (line <- content.getLines().map(_.trim) if !line.isEmpty && !line.startsWith("#")) {
+      val entries = line.split( """\s+""")
+      if (entries.length < 5) throw new IllegalArgumentException(s"Invalid Leap_Second.dat line: $line")
+      rows += leap(mjd0 + entries(0).toDouble, entries(4).toDouble)
+    }
+    val first = rows.map(_._1).reduceOption(_ min _).getOrElse(Double.PositiveInfinity)
+    apply(builtin.rows.filter(_._1 < first) ++ rows)
+  }
+
+  /**
+   * Load a table from either a tai-utc.dat or a Leap_Second.dat file.
+   *
+   * @param content Content of the leap second file.
+   */
+  def load(content: Source): LeapSecondTable = {
+    val lines = content.getLines().toList
+    if (lines.exists(_.contains("TAI-UTC=")))
+      fromTaiUtc(Source.fromString(lines.mkString("\n")))
+    else
+      fromLeapSecondDat(Source.fromString(lines.mkString("\n")))
+  }
+
+}
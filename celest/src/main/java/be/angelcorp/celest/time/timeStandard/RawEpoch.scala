@@ -0,0 +1,33 @@
+package be.angelcorp.celest.time.timeStandard
+
+import java.util.GregorianCalendar
+import be.angelcorp.celest.time.{TimeUtils, Epoch}
+
+/**
+ * Lightweight epoch without a universe, used to call the epoch based methods of a
+ * [[be.angelcorp.celest.time.timeStandard.TimeStandard]] from the primitive Julian date conversions.
+ *
+ * @param jd           Julian date of the epoch.
+ * @param timeStandard Time standard that the epoch is given in.
+ */
+private[timeStandard] class RawEpoch(val jd: Double, val timeStandard: TimeStandard) extends Epoch {
+
+  def add(dt: Double) = new RawEpoch(jd + dt, timeStandard)
+
+  def date = {
+    val dateArr = TimeUtils.invjday(jd)
+    val calender = new GregorianCalendar(dateArr._1, dateArr._2, dateArr._3, dateArr._4, dateArr._5, math.round(dateArr._6).toInt)
+    calender.getTime
+  }
+
+  def inTimeStandard(timeStandard: TimeStandard) =
+    if (this.timeStandard.equals(timeStandard)) this
+    else new RawEpoch(TimeScales.convert(jd, this.timeStandard, timeStandard), timeStandard)
+
+  def relativeTo(epoch: Epoch) = jd - epoch.jd
+
+  override def compareTo(other: Epoch) = jd.compareTo(other.jd)
+
+  override def toString = "%fJD %s".format(jd, timeStandard.getClass.getSimpleName)
+
+}
@@ -1,7 +1,5 @@
 package be.angelcorp.celest.time.timeStandard
 
-import be.angelcorp.celest.time.Epoch
-
 /**
  * <p>
  * Conversions based on:<br>
@@ -12,8 +10,6 @@ import be.angelcorp.celest.time.Epoch
  *
  * @author Simon Billemont
  */
-class TAITime extends TimeStandard {
-  override def offsetFromTT(jd_tt: Epoch) = -32.184
-
-  override def offsetToTT(jd_tai: Epoch) = 32.184
+class TAITime extends FixedOffsetFromTT {
+  override def fixedOffsetFromTT = -32.184
 }
@@ -3,6 +3,7 @@ package be.angelcorp.celest.time.timeStandard
 import javax.inject.Inject
 import be.angelcorp.celest.time.EpochAnnotations.TT_EPOCH
 import be.angelcorp.celest.time.Epoch
+import be.angelcorp.celest.physics.Units
 import be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.TDB
 
 /**
@@ -21,15 +22,23 @@ class TCBTime @Inject()(@TDB tdb: TimeStandard, @TT_EPOCH tt_epoch: Epoch) exten
   val Lb = +1.55051976772E-8
   val TDB0 = -6.55E-5
 
-  override def offsetFromTT(jd_tt: Epoch) = {
+  private val tt_epoch_jd = tt_epoch.jd
+
+  override def offsetFromTT(jd_tt: Epoch) = offsetFromTT(jd_tt.jd, 0.0)
+
+  override def offsetToTT(jd_tcb: Epoch) = offsetToTT(jd_tcb.jd, 0.0)
+
+  override def offsetFromTT(jd1: Double, jd2: Double) = {
     // See [1] equation 3-50
-    val TCB_TDB = Lb * jd_tt.relativeToS(tt_epoch) + TDB0
-    val jd_tdb = jd_tt.addS(TCB_TDB)
-    TCB_TDB + tdb.offsetFromTT(jd_tdb)
+    val TCB_TDB = Lb * ((jd1 - tt_epoch_jd) + jd2) * Units.julianDay + TDB0
+    TCB_TDB + tdb.offsetFromTT(jd1, jd2 + TCB_TDB / Units.julianDay)
   }
 
-  override def offsetToTT(jd_tcb: Epoch) = {
-    //TODO: Appropriation, need a rootfinder or something similar
-    -offsetFromTT(jd_tcb)
+  override def offsetToTT(jd1: Double, jd2: Double) = {
+    // Solve TT = TCB - (TCB - TT)(TT) by fixed point iteration, the rate of TCB - TT is about Lb, so the error
+    // reduces by a factor 1E-8 in every iteration
+    var offset = offsetFromTT(jd1, jd2)
+    offset = offsetFromTT(jd1, jd2 - offset / Units.julianDay)
+    -offsetFromTT(jd1, jd2 - offset / Units.julianDay)
   }
 }
@@ -3,6 +3,7 @@ package be.angelcorp.celest.time.timeStandard
 import javax.inject.Inject
 import be.angelcorp.celest.time.EpochAnnotations.TT_EPOCH
 import be.angelcorp.celest.time.Epoch
+import be.angelcorp.celest.physics.Units
 
 /**
  * Geocentric Coordinate Time.
@@ -25,8 +26,14 @@ class TCGTime @Inject()(@TT_EPOCH tt_epoch: Epoch) extends TimeStandard {
    */
   private val L_g = 6.969290134E-10
 
-  def offsetFromTT(JD_tt: Epoch) = L_g * JD_tt.relativeToS(tt_epoch)
+  private val tt_epoch_jd = tt_epoch.jd
 
-  def offsetToTT(JD_tcg: Epoch) = -L_g * JD_tcg.relativeToS(tt_epoch)
+  def offsetFromTT(JD_tt: Epoch) = offsetFromTT(JD_tt.jd, 0.0)
+
+  def offsetToTT(JD_tcg: Epoch) = offsetToTT(JD_tcg.jd, 0.0)
+
+  override def offsetFromTT(jd1: Double, jd2: Double) = L_g * ((jd1 - tt_epoch_jd) + jd2) * Units.julianDay
+
+  override def offsetToTT(jd1: Double, jd2: Double) = -offsetFromTT(jd1, jd2)
 
 }
@@ -0,0 +1,113 @@
+package be.angelcorp.celest.time.timeStandard
+
+import java.util.concurrent.atomic.AtomicReferenceArray
+import be.angelcorp.celest.physics.Units
+
+/**
+ * Tabulated model of TDB - TT, using Chebyshev polynomials fitted to a [[be.angelcorp.celest.time.timeStandard.TDBSeries]].
+ *
+ * The span of the model is divided in segments of equal length. The first time a segment is used, the series is sampled
+ * on the Chebyshev nodes of the segment and the coefficients are computed (in a thread-safe way). Afterwards, every
+ * evaluation in that segment costs one short Chebyshev series, regardless of the number of terms in the full series.
+ * Dates outside of the span evaluate the full series.
+ *
+ * The inverse ([[be.angelcorp.celest.time.timeStandard.TDBChebyshevModel#ttMinusTdb]]) solves
+ * TT = TDB - (TDB - TT)(TT) by fixed point iteration. The rate of TDB - TT is below 1E-9, so two iterations are exact
+ * to machine precision.
+ *
+ * @param series        Series that is tabulated.
+ * @param start         Start of the tabulated span, Julian date in TT [jd].
+ * @param end           End of the tabulated span, Julian date in TT [jd].
+ * @param segmentLength Length of a single segment [day].
+ * @param coefficients  Number of Chebyshev coefficients in each segment.
+ */
+class TDBChebyshevModel(val series: TDBSeries = TDBSeries.fairheadBretagnon,
+                        val start: Double = 2415020.5,
+                        val end: Double = 2488069.5,
+                        val segmentLength: Double = 16.0,
+                        val coefficients: Int = 12) {
+  require(end > start, "The end of the tabulated span must be after the start")
+  require(segmentLength > 0, "The segment length must be positive")
+  require(coefficients >= 1, "At least one Chebyshev coefficient is required")
+
+  /** Number of segments in the span. */
+  val segments = math.ceil((end - start) / segmentLength).toInt
+
+  /** Coefficients of each segment, null until first used */
+  private val table = new AtomicReferenceArray[Array[Double]](segments)
+
+  /** Chebyshev nodes in [-1, 1] */
+  private val nodes = Array.tabulate(coefficients)(k => math.cos(math.Pi * (k + 0.5) / coefficients))
+
+  /**
+   * Evaluate TDB - TT.
+   *
+   * @param jd1 First part of the Julian date in TT.
+   * @param jd2 Second part of the Julian date in TT.
+   * @return TDB - TT [s].
+   */
+  def tdbMinusTt(jd1: Double, jd2: Double): Double = {
+    val t = (jd1 - start) + jd2
+    val index = math.floor(t / segmentLength).toInt
+    if (t < 0 || index >= segments)
+      series(jd1, jd2)
+    else {
+      val c = segment(index)
+      val x = 2.0 * (t - index * segmentLength) / segmentLength - 1.0
+      // Clenshaw recurrence
+      val x2 = 2.0 * x
+      var b1 = 0.0
+      var b2 = 0.0
+      var j = coefficients - 1
+      while (j > 0) {
+        val b0 = c(j) + x2 * b1 - b2
+        b2 = b1
+        b1 = b0
+        j -= 1
+      }
+      c(0) + x * b1 - b2
+    }
+  }
+
+  /**
+   * Evaluate TT - TDB for a date in TDB (the exact inverse of
+   * [[be.angelcorp.celest.time.timeStandard.TDBChebyshevModel#tdbMinusTt]]).
+   *
+   * @param jd1 First part of the Julian date in TDB.
+   * @param jd2 Second part of the Julian date in TDB.
+   * @return TT - TDB [s].
+   */
+  def ttMinusTdb(jd1: Double, jd2: Double): Double = {
+    var offset = tdbMinusTt(jd1, jd2)
+    offset = tdbMinusTt(jd1, jd2 - offset / Units.julianDay)
+    -tdbMinusTt(jd1, jd2 - offset / Units.julianDay)
+  }
+
+  /** Get (or fit) the coefficients of a segment */
+  private def segment(index: Int): Array[Double] = {
+    val c = table.get(index)
+    if (c != null) c
+    else {
+      val fitted = fit(index)
+      // Another thread may have fitted the same segment, keep the first result
+      if (table.compareAndSet(index, null, fitted)) fitted else table.get(index)
+    }
+  }
+
+  /** Fit the Chebyshev coefficients of a segment to the series (discrete cosine transform) */
+  private def fit(index: Int): Array[Double] = {
+    val n = coefficients
+    val segmentStart = index * segmentLength
+    val values = Array.tabulate(n)(k => series(start, segmentStart + (nodes(k) + 1.0) / 2.0 * segmentLength))
+    Array.tabulate(n)(m => {
+      var sum = 0.0
+      var k = 0
+      while (k < n) {
+        sum += values(k) * math.cos(math.Pi * m * (k + 0.5) / n)
+        k += 1
+      }
+      (if (m == 0) 1.0 else 2.0) * sum / n
+    })
+  }
+
+}
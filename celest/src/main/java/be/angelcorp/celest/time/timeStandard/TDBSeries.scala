@@ -0,0 +1,128 @@
+package be.angelcorp.celest.time.timeStandard
+
+import be.angelcorp.celest.resources.Resources
+
+import scala.io.Source
+import scala.collection.mutable
+
+/**
+ * Series expansion of TDB - TT in the form of Fairhead and Bretagnon:
+ *
+ * <pre>
+ * TDB - TT = &Sigma; A<sub>i</sub> T<sup>n<sub>i</sub></sup> sin( &omega;<sub>i</sub> T + &phi;<sub>i</sub> )
+ * </pre>
+ *
+ * with T the Julian centuries TT since J2000. The terms are stored column wise in primitive arrays.
+ *
+ * <p>
+ * The complete series ([[be.angelcorp.celest.time.timeStandard.TDBSeries#fairheadBretagnon]], 787 terms) is bundled
+ * with celest, and reproduces the SOFA routine iauDtdb (geocentric, with the JPL mass adjustments). The
+ * [[be.angelcorp.celest.time.timeStandard.TDBSeries#truncated]] series only holds the largest terms, and agrees with
+ * the full series to about 10 µs between 1600 and 2200. Other series can be loaded with
+ * [[be.angelcorp.celest.time.timeStandard.TDBSeries#load]].
+ * </p>
+ * <p>
+ * [1] G. Kaplan, <b>"The IAU Resolutions on Astronomical Reference Systems, Time Scales, and Earth Rotation Models"</b>,
+ * USNO Circular 179, 2005, equation 2.6<br>
+ * [2] L. Fairhead and P. Bretagnon, <b>"An analytical formula for the time transformation TB-TT"</b>, A&amp;A 229,
+ * 1990, 240-247
+ * </p>
+ *
+ * @param power     Power of T of each term.
+ * @param amplitude Amplitude of each term [s].
+ * @param frequency Frequency of each term [rad / Julian century].
+ * @param phase     Phase of each term [rad].
+ */
+class TDBSeries(power: Array[Int], amplitude: Array[Double], frequency: Array[Double], phase: Array[Double]) {
+  require(power.length == amplitude.length && amplitude.length == frequency.length && frequency.length == phase.length,
+    "All the columns of the TDB series must have the same length")
+
+  /** Number of terms in the series. */
+  def size = power.length
+
+  /**
+   * Evaluate TDB - TT.
+   *
+   * @param jd1 First part of the Julian date in TT.
+   * @param jd2 Second part of the Julian date in TT.
+   * @return TDB - TT [s].
+   */
+  def apply(jd1: Double, jd2: Double): Double = {
+    val T = ((jd1 - TDBSeries.j2000) + jd2) / 36525.0
+    var result = 0.0
+    // Sum from the smallest to the largest terms (the terms are sorted by decreasing amplitude)
+    var i = power.length - 1
+    while (i >= 0) {
+      var term = amplitude(i) * math.sin(frequency(i) * T + phase(i))
+      var p = power(i)
+      while (p > 0) {
+        term *= T
+        p -= 1
+      }
+      result += term
+      i -= 1
+    }
+    result
+  }
+
+}
+
+object TDBSeries {
+
+  /** J2000 epoch in TT [jd] */
+  private val j2000 = 2451545.0
+
+  /**
+   * Create a series from its terms, the terms are sorted by decreasing amplitude.
+   *
+   * @param terms Terms of the series as (power of T, amplitude [s], frequency [rad/century], phase [rad]).
+   */
+  def apply(terms: Seq[(Int, Double, Double, Double)]): TDBSeries = {
+    val sorted = terms.sortBy(t => -math.abs(t._2))
+    new TDBSeries(sorted.map(_._1).toArray, sorted.map(_._2).toArray, sorted.map(_._3).toArray, sorted.map(_._4).toArray)
+  }
+
+  /** Classpath location of the bundled Fairhead and Bretagnon series */
+  val fairheadBretagnonResource = "be/angelcorp/celest/time/timeStandard/fairhead-bretagnon.txt"
+
+  /**
+   * The complete series of Fairhead and Bretagnon [2] (787 terms), as used by the SOFA routine iauDtdb, including the
+   * adjustments for the JPL planetary masses.
+   */
+  lazy val fairheadBretagnon = load(Resources.bundled(fairheadBretagnonResource).get.openSource())
+
+  /** Largest terms of the Fairhead and Bretagnon series, see [1]. */
+  lazy val truncated = apply(Seq(
+    (0, 0.001657, 628.3076, 6.2401),
+    (0, 0.000022, 575.3385, 4.2970),
+    (0, 0.000014, 1256.6152, 6.1969),
+    (0, 0.000005, 606.9777, 4.0212),
+    (0, 0.000005, 52.9691, 0.4444),
+    (0, 0.000002, 21.3299, 5.5431),
+    (1, 0.000010, 628.3076, 4.2490)
+  ))
+
+  /**
+   * Load a series from a text file with one term per line, as whitespace separated columns:
+   *
+   * {{{
+   *   # power  amplitude [s]  frequency [rad/century]  phase [rad]
+   *   0        1656.674564E-6  628.3075849991          6.240054195
+   *   1        10.2156724E-6   628.3075849991          4.249032005
+   * }}}
+   *
+   * Empty lines and lines starting with '#' are ignored.
+   *
+   * @param content Content of the series file.
+   */
+  def load(content: Source): TDBSeries = {
+    val terms = mutable.ListBuffer[(Int, Double, Double, Double)]()
+    for (line <- content.getLines().map(_.trim) if !line.isEmpty && !line.startsWith("#")) {
+      val entries = line.split( """\s+""")
+      if (entries.length < 4) throw new IllegalArgumentException(s"Invalid TDB series line: $line")
+      terms += ((entries(0).toInt, entries(1).toDouble, entries(2).toDouble, entries(3).toDouble))
+    }
+    apply(terms)
+  }
+
+}
@@ -24,13 +24,19 @@ import scala.math._
  */
 class TDBTime @Inject()(@J2000 j2000_epoch: Epoch) extends TimeStandard {
 
-  def offsetFromTT(JD_tt: Epoch) = {
-    val J2000_offset = JD_tt.relativeTo(j2000_epoch)
+  private val j2000_jd = j2000_epoch.jd
+
+  def offsetFromTT(JD_tt: Epoch) = offsetFromTT(JD_tt.jd, 0.0)
+
+  def offsetToTT(JD_tdb: Epoch) = offsetToTT(JD_tdb.jd, 0.0)
+
+  override def offsetFromTT(jd1: Double, jd2: Double) = {
+    val J2000_offset = (jd1 - j2000_jd) + jd2
     val M = (357.53 + 0.98560028 * J2000_offset) * (Pi / 180.0)
     val ΔM_λ = (246.11 + 0.90255617 * J2000_offset) * (Pi / 180.0)
     0.001658 * sin(M) + 0.000014 * sin(ΔM_λ)
   }
 
-  def offsetToTT(JD_tdb: Epoch) = -offsetFromTT(JD_tdb)
+  override def offsetToTT(jd1: Double, jd2: Double) = -offsetFromTT(jd1, jd2)
 
 }
@@ -1,7 +1,5 @@
 package be.angelcorp.celest.time.timeStandard
 
-import be.angelcorp.celest.time.Epoch
-
 /**
  * <p>
  * Conversions based on:<br>
@@ -12,8 +10,6 @@ import be.angelcorp.celest.time.Epoch
  *
  * @author Simon Billemont
  */
-class TTTime extends TimeStandard {
-  override def offsetFromTT(jd_tt: Epoch) = 0
-
-  override def offsetToTT(jd_tt: Epoch) = 0
+class TTTime extends FixedOffsetFromTT {
+  override def fixedOffsetFromTT = 0.0
 }
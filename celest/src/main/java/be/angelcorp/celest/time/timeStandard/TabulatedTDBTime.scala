@@ -0,0 +1,35 @@
+package be.angelcorp.celest.time.timeStandard
+
+import be.angelcorp.celest.time.Epoch
+
+/**
+ * Barycentric Dynamical Time, using a tabulated model of TDB - TT.
+ *
+ * <p>
+ * Contrary to [[be.angelcorp.celest.time.timeStandard.TDBTime]] (two terms, about 10 µs accurate), this time standard
+ * evaluates a [[be.angelcorp.celest.time.timeStandard.TDBChebyshevModel]] fitted to the complete Fairhead and Bretagnon
+ * series (well below 1 µs from the SOFA routine iauDtdb), and uses the exact inverse of the model for the conversion
+ * to TT. To use it in a universe, bind it as the [[be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.TDB]]
+ * time standard:
+ * </p>
+ *
+ * {{{
+ *   bind(classOf[TimeStandard]).annotatedWith(classOf[TDB]).toInstance(new TabulatedTDBTime())
+ * }}}
+ *
+ * @param model Tabulated model of TDB - TT.
+ */
+class TabulatedTDBTime(val model: TDBChebyshevModel) extends TimeStandard {
+
+  /** Create TDB using the bundled Fairhead and Bretagnon series, tabulated between 1900 and 2100. */
+  def this() = this(new TDBChebyshevModel())
+
+  def offsetFromTT(JD_tt: Epoch) = offsetFromTT(JD_tt.jd, 0.0)
+
+  def offsetToTT(JD_tdb: Epoch) = offsetToTT(JD_tdb.jd, 0.0)
+
+  override def offsetFromTT(jd1: Double, jd2: Double) = model.tdbMinusTt(jd1, jd2)
+
+  override def offsetToTT(jd1: Double, jd2: Double) = model.ttMinusTdb(jd1, jd2)
+
+}
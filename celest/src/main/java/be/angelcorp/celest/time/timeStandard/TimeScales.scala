@@ -0,0 +1,177 @@
+package be.angelcorp.celest.time.timeStandard
+
+import be.angelcorp.celest.physics.Units
+
+/**
+ * Primitive conversions of Julian dates between time standards.
+ *
+ * The conversions work directly on (two-part) Julian dates, without creating any intermediate
+ * [[be.angelcorp.celest.time.Epoch]] objects:
+ *
+ * {{{
+ *   val out = Array.ofDim[Double](2)
+ *   TimeScales.convert(2451545.0, 0.25, TimeStandards.UTC, TimeStandards.TDB, out)
+ *   // JD_tdb = out(0) + out(1)
+ * }}}
+ *
+ * The conversion chain for each (from, to) pair is determined once, and cached on the source time standard. Identical
+ * time standards are not converted at all, and constant offsets to TT (such as TAI and TT itself) are folded into a
+ * single precomputed offset. All other conversions pass through TT using the primitive
+ * [[be.angelcorp.celest.time.timeStandard.TimeStandard#offsetToTT]] and
+ * [[be.angelcorp.celest.time.timeStandard.TimeStandard#offsetFromTT]] methods.
+ */
+object TimeScales {
+
+  /** Stateless TT time standard, used by the epoch based fallbacks of the primitive conversions. */
+  private[timeStandard] val TT: TimeStandard = new TTTime
+
+  /**
+   * Convert a two-part Julian date between two time standards.
+   *
+   * The first part is copied unchanged, the time standard offset is added to the second part. This keeps the
+   * resolution of the date when the first part holds the (large) day number and the second part the fraction.
+   *
+   * @param jd1  First part of the Julian date, in the source time standard.
+   * @param jd2  Second part of the Julian date, in the source time standard.
+   * @param from Time standard of the given Julian date.
+   * @param to   Time standard to convert the Julian date to.
+   * @param out  Array to store the two-part Julian date in the target time standard in (at least two elements).
+   */
+  def convert(jd1: Double, jd2: Double, from: TimeStandard, to: TimeStandard, out: Array[Double]) {
+    conversion(from, to).convert(jd1, jd2, out)
+  }
+
+  /**
+   * Convert a Julian date between two time standards.
+   *
+   * @param jd   Julian date in the source time standard.
+   * @param from Time standard of the given Julian date.
+   * @param to   Time standard to convert the Julian date to.
+   * @return The Julian date in the target time standard.
+   */
+  def convert(jd: Double, from: TimeStandard, to: TimeStandard): Double =
+    conversion(from, to).convert(jd)
+
+  /**
+   * Get the offset between two time standards at a given two-part Julian date, so that
+   * JD<sub>to</sub> = JD<sub>from</sub> + offset.
+   *
+   * @param jd1  First part of the Julian date, in the source time standard.
+   * @param jd2  Second part of the Julian date, in the source time standard.
+   * @param from Time standard of the given Julian date.
+   * @param to   Time standard to find the offset to.
+   * @return The offset from the source to the target time standard [s].
+   */
+  def offset(jd1: Double, jd2: Double, from: TimeStandard, to: TimeStandard): Double =
+    conversion(from, to).offset(jd1, jd2)
+
+  /**
+   * Get the (cached) conversion chain between two time standards.
+   *
+   * @param from Source time standard.
+   * @param to   Target time standard.
+   */
+  def conversion(from: TimeStandard, to: TimeStandard): Conversion = {
+    val conversion = from.conversions.get(to)
+    if (conversion != null) conversion
+    else {
+      val created = if (from eq to) Identity else new Chain(from, to)
+      val existing = from.conversions.putIfAbsent(to, created)
+      if (existing != null) existing else created
+    }
+  }
+
+  /**
+   * A precomputed conversion of Julian dates from one time standard to another.
+   */
+  abstract class Conversion {
+
+    /**
+     * Convert a Julian date.
+     *
+     * @param jd Julian date in the source time standard.
+     * @return The Julian date in the target time standard.
+     */
+    def convert(jd: Double): Double
+
+    /**
+     * Convert a two-part Julian date.
+     *
+     * @param jd1 First part of the Julian date in the source time standard.
+     * @param jd2 Second part of the Julian date in the source time standard.
+     * @param out Array to store the two-part Julian date in the target time standard in.
+     */
+    def convert(jd1: Double, jd2: Double, out: Array[Double])
+
+    /**
+     * Offset between the source and target time standards at a two-part Julian date.
+     *
+     * @param jd1 First part of the Julian date in the source time standard.
+     * @param jd2 Second part of the Julian date in the source time standard.
+     * @return The number of seconds to add to the source date to get the target date [s].
+     */
+    def offset(jd1: Double, jd2: Double): Double
+
+  }
+
+  /** Conversion between identical time standards. */
+  private object Identity extends Conversion {
+    def convert(jd: Double) = jd
+
+    def convert(jd1: Double, jd2: Double, out: Array[Double]) {
+      out(0) = jd1
+      out(1) = jd2
+    }
+
+    def offset(jd1: Double, jd2: Double) = 0.0
+  }
+
+  /**
+   * Conversion passing through TT. Time standards with a constant offset to TT skip the corresponding step, and when
+   * both time standards have a constant offset, the conversion reduces to adding a single constant.
+   */
+  private class Chain(from: TimeStandard, to: TimeStandard) extends Conversion {
+
+    /** Constant offset from the source standard to TT [day], or NaN when the offset is time dependent. */
+    private val toTT = from match {
+      case fixed: FixedOffsetFromTT => -fixed.fixedOffsetFromTT / Units.julianDay
+      case _ => Double.NaN
+    }
+
+    /** Constant offset from TT to the target standard [day], or NaN when the offset is time dependent. */
+    private val fromTT = to match {
+      case fixed: FixedOffsetFromTT => fixed.fixedOffsetFromTT / Units.julianDay
+      case _ => Double.NaN
+    }
+
+    /** Total constant offset [day], or NaN when either offset is time dependent. */
+    private val constant = toTT + fromTT
+
+    def convert(jd: Double) =
+      if (!constant.isNaN) jd + constant
+      else {
+        val jd_tt = jd + (if (toTT.isNaN) from.offsetToTT(jd, 0.0) / Units.julianDay else toTT)
+        jd_tt + (if (fromTT.isNaN) to.offsetFromTT(jd_tt, 0.0) / Units.julianDay else fromTT)
+      }
+
+    def convert(jd1: Double, jd2: Double, out: Array[Double]) {
+      out(0) = jd1
+      if (!constant.isNaN)
+        out(1) = jd2 + constant
+      else {
+        val jd2_tt = jd2 + (if (toTT.isNaN) from.offsetToTT(jd1, jd2) / Units.julianDay else toTT)
+        out(1) = jd2_tt + (if (fromTT.isNaN) to.offsetFromTT(jd1, jd2_tt) / Units.julianDay else fromTT)
+      }
+    }
+
+    def offset(jd1: Double, jd2: Double) =
+      if (!constant.isNaN) constant * Units.julianDay
+      else {
+        val toTT_s = if (toTT.isNaN) from.offsetToTT(jd1, jd2) else toTT * Units.julianDay
+        val fromTT_s = if (fromTT.isNaN) to.offsetFromTT(jd1, jd2 + toTT_s / Units.julianDay) else fromTT * Units.julianDay
+        toTT_s + fromTT_s
+      }
+
+  }
+
+}
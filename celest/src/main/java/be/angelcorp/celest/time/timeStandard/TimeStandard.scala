@@ -30,4 +30,54 @@ trait TimeStandard {
    */
   def offsetToTT(JD_this: Epoch): Double
 
+  /**
+   * Returns the number of seconds to add to TT to get this timeStandard, for a two-part Julian date in TT
+   * (JD<sub>TT</sub> = jd1 + jd2).
+   *
+   * This is the primitive form of [[be.angelcorp.celest.time.timeStandard.TimeStandard#offsetFromTT]], used by
+   * [[be.angelcorp.celest.time.timeStandard.TimeScales]]. The default implementation wraps the date in a temporary
+   * epoch, time standards should override it to avoid the allocation.
+   *
+   * @param jd1 First part of the Julian date in TT.
+   * @param jd2 Second part of the Julian date in TT.
+   * @return The number of seconds between this time standard and TT.
+   */
+  def offsetFromTT(jd1: Double, jd2: Double): Double = offsetFromTT(new RawEpoch(jd1 + jd2, TimeScales.TT))
+
+  /**
+   * Returns the number of seconds to add to this time standard to get TT, for a two-part Julian date in this time
+   * standard (JD<sub>this</sub> = jd1 + jd2).
+   *
+   * This is the primitive form of [[be.angelcorp.celest.time.timeStandard.TimeStandard#offsetToTT]], used by
+   * [[be.angelcorp.celest.time.timeStandard.TimeScales]]. The default implementation wraps the date in a temporary
+   * epoch, time standards should override it to avoid the allocation.
+   *
+   * @param jd1 First part of the Julian date in this time standard.
+   * @param jd2 Second part of the Julian date in this time standard.
+   * @return The number of seconds between TT and this time standard.
+   */
+  def offsetToTT(jd1: Double, jd2: Double): Double = offsetToTT(new RawEpoch(jd1 + jd2, this))
+
+  /** Cached conversions from this time standard to other time standards, see [[be.angelcorp.celest.time.timeStandard.TimeScales]]. */
+  private[timeStandard] lazy val conversions = new java.util.concurrent.ConcurrentHashMap[TimeStandard, TimeScales.Conversion]()
+
+}
+
+/**
+ * A time standard that differs from TT by a constant number of seconds (for example TAI), so that conversions between
+ * such time standards can be folded into a single constant offset.
+ */
+trait FixedOffsetFromTT extends TimeStandard {
+
+  /** The constant number of seconds to add to TT to get this time standard. */
+  def fixedOffsetFromTT: Double
+
+  override def offsetFromTT(JD_tt: Epoch) = fixedOffsetFromTT
+
+  override def offsetToTT(JD_this: Epoch) = -fixedOffsetFromTT
+
+  override def offsetFromTT(jd1: Double, jd2: Double) = fixedOffsetFromTT
+
+  override def offsetToTT(jd1: Double, jd2: Double) = -fixedOffsetFromTT
+
 }
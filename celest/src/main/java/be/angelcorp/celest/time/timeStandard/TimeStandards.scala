@@ -4,34 +4,36 @@ import be.angelcorp.celest.universe.Universe
 
 /**
  * A set of short-hand functions to retrieve predefined time standards (see [[be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations]]) from the universe.
+ *
+ * The time standards are resolved only once per universe, see [[be.angelcorp.celest.time.TimeContext]].
  */
 object TimeStandards {
 
   /** See [[be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.TT]] */
-  def TT(implicit universe: Universe) = universe.instance[TimeStandard, TimeStandardAnnotations.TT]
+  def TT(implicit universe: Universe) = universe.timeContext.TT
 
   /** See [[be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.TDT]] */
-  def TDT(implicit universe: Universe) = universe.instance[TimeStandard, TimeStandardAnnotations.TDT]
+  def TDT(implicit universe: Universe) = universe.timeContext.TDT
 
   /** See [[be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.TAI]] */
-  def TAI(implicit universe: Universe) = universe.instance[TimeStandard, TimeStandardAnnotations.TAI]
+  def TAI(implicit universe: Universe) = universe.timeContext.TAI
 
   /** See [[be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.TCB]] */
-  def TCB(implicit universe: Universe) = universe.instance[TimeStandard, TimeStandardAnnotations.TCB]
+  def TCB(implicit universe: Universe) = universe.timeContext.TCB
 
   /** See [[be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.TCG]] */
-  def TCG(implicit universe: Universe) = universe.instance[TimeStandard, TimeStandardAnnotations.TCG]
+  def TCG(implicit universe: Universe) = universe.timeContext.TCG
 
   /** See [[be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.TDB]] */
-  def TDB(implicit universe: Universe) = universe.instance[TimeStandard, TimeStandardAnnotations.TDB]
+  def TDB(implicit universe: Universe) = universe.timeContext.TDB
 
   /** See [[be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.UTC]] */
-  def UTC(implicit universe: Universe) = universe.instance[TimeStandard, TimeStandardAnnotations.UTC]
+  def UTC(implicit universe: Universe) = universe.timeContext.UTC
 
   /** See [[be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.UT1]] */
-  def UT1(implicit universe: Universe) = universe.instance[TimeStandard, TimeStandardAnnotations.UT1]
+  def UT1(implicit universe: Universe) = universe.timeContext.UT1
 
   /** See [[be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.GPS]] */
-  def GPS(implicit universe: Universe) = universe.instance[TimeStandard, TimeStandardAnnotations.GPS]
+  def GPS(implicit universe: Universe) = universe.timeContext.GPS
 
 }
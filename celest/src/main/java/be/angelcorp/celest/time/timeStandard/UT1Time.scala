@@ -17,6 +17,8 @@
 package be.angelcorp.celest.time.timeStandard
 
 import java.util
+import java.util.concurrent.{Callable, Executor, Executors, Future, FutureTask}
+import com.google.common.util.concurrent.ThreadFactoryBuilder
 import be.angelcorp.celest.resources.{ResourceDescription, Resources}
 
 import scala.math._
@@ -25,15 +27,29 @@ import scala.collection.JavaConverters._
 import com.google.inject.Inject
 import org.slf4j.LoggerFactory
 import be.angelcorp.celest.time.Epoch
+import be.angelcorp.celest.physics.Units
 import be.angelcorp.celest.time.dateStandard.DateStandards._
 import be.angelcorp.celest.universe.Universe
 import be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations.UTC
-import be.angelcorp.celest.data.eop.{EarthOrientationData, UT1Provider}
+import be.angelcorp.celest.data.eop.{UT1Table, EarthOrientationData, UT1Provider}
 
 import scala.util.Success
 
 
 /**
+ * Universal Time (UT1).
+ *
+ * UT1 - UTC is taken from the containers that cover the requested date, or otherwise from a
+ * [[be.angelcorp.celest.data.eop.UT1Table]] of the complete IERS EOP 08 C04 series, which interpolates UT1 - UTC (see
+ * [[be.angelcorp.celest.data.eop.UT1Table#ut1MinusUtc]]). When the table covers a date, the conversion from UT1 to
+ * TT uses its direct inverse instead of an iterative search.
+ *
+ * The table is loaded in bulk on a background thread, which is started by the first date that is not covered by any
+ * container, or in advance by [[be.angelcorp.celest.time.timeStandard.UT1Time#requestTable]]. The conversions that
+ * need the table block until the load is complete (see [[be.angelcorp.celest.time.timeStandard.UT1Time#awaitTable]]),
+ * all the later conversions use the loaded table directly. When containers are supplied on construction, the table is
+ * only loaded when it is requested explicitly.
+ *
  * @param utc The UTC reference time scale to use
  * @param containers Map linking an UTC MJD date range to a specific container < [mjd utc min, mjd utc max], provider >
  */
@@ -41,6 +57,18 @@ class UT1Time(utc: TimeStandard, val containers: mutable.Map[(Double, Double), U
                )(implicit universe: Universe) extends TimeStandard with UT1Provider {
   private val logger = LoggerFactory.getLogger(getClass)
 
+  /** Table with the bulk UT1-UTC data, null until it is loaded */
+  @volatile private var table: UT1Table = null
+
+  /** Container that covered the last container lookup, checked before searching all the containers */
+  @volatile private var lastContainer: ((Double, Double), UT1Provider) = null
+
+  /** Load the bulk table on the first date that is not covered by any container (only when no containers are supplied) */
+  private val loadOnMiss = containers.isEmpty
+
+  /** Background load of the bulk UT1-UTC table, null until the table is requested */
+  @volatile private var tableLoader: FutureTask[Unit] = null
+
   @Inject
   def this(@UTC utc: TimeStandard)(implicit universe: Universe) =
     this(utc, mutable.Map[(Double, Double), UT1Provider]())
@@ -48,58 +76,177 @@ class UT1Time(utc: TimeStandard, val containers: mutable.Map[(Double, Double), U
   def this(utc: TimeStandard, immutableContainers: Map[(Double, Double), UT1Provider])(implicit universe: Universe) =
     this(utc, collection.mutable.Map(immutableContainers.toSeq: _*))
 
-  override def offsetFromTT(jd_tt: Epoch) = {
-    utc.offsetFromTT(jd_tt) + UT1_UTC(jd_tt.inTimeStandard(utc))
-  }
+  override def offsetFromTT(jd_tt: Epoch) = offsetFromTT(jd_tt.jd, 0.0)
 
-  override def offsetToTT(jd_this: Epoch) = {
-    var error = -UT1_UTC(jd_this)
-    var utc_approximation = jd_this
-    var utc_approximation_offset = 0.0
-    do {
-      utc_approximation = utc_approximation.addS(error)
-      utc_approximation_offset = UT1_UTC(utc_approximation)
-      error = utc_approximation.addS(utc_approximation_offset).relativeToS(jd_this)
-    } while (abs(error) > 1E-3)
-
-    utc.offsetToTT(utc_approximation) - utc_approximation_offset
+  override def offsetFromTT(jd1: Double, jd2: Double) = {
+    val utc_offset = utc.offsetFromTT(jd1, jd2)
+    utc_offset + ut1MinusUtc(jd1 + (jd2 + utc_offset / Units.julianDay))
   }
 
-  def findUTCData(jd_utc: Epoch) = {
-    // Download IERS EOP 08 C04 (IAU1980) yearly files
+  override def offsetToTT(jd_this: Epoch) = offsetToTT(jd_this.jd, 0.0)
 
-    // Year data to retrieve
-    val year = jd_utc.date.getYear.toString
-    val filename = "eopc04_08_IAU2000.%s".format(year takeRight 2)
+  override def offsetToTT(jd1: Double, jd2: Double) = {
+    val jd_ut1 = jd1 + jd2
+    val t = table
+    if (t != null && t.covers(jd_ut1) && containerFor(jd_ut1).isEmpty) {
+      // Direct inverse of the interpolated UT1-UTC
+      val utc_offset = t.ut1MinusUtcInverse(jd_ut1)
+      utc.offsetToTT(jd1, jd2 - utc_offset / Units.julianDay) - utc_offset
+    } else {
+      val jd_this = new RawEpoch(jd_ut1, this)
+      var error = -UT1_UTC(jd_this)
+      var utc_approximation: Epoch = jd_this
+      var utc_approximation_offset = 0.0
+      do {
+        utc_approximation = utc_approximation.addS(error)
+        utc_approximation_offset = UT1_UTC(utc_approximation)
+        error = utc_approximation.addS(utc_approximation_offset).relativeToS(jd_this)
+      } while (abs(error) > 1E-3)
+
+      utc.offsetToTT(utc_approximation) - utc_approximation_offset
+    }
+  }
 
-    Resources.findArchive(ResourceDescription("org.iers.products.eop.long-term.c04_08", "iau2000", extension = "zip")).flatMap(_.findEntry(filename)) match {
-      case Success(source) =>
-        val container = EarthOrientationData(source.openSource())
-        containers.put(container.epochRange, container.ut1_utc)
+  /** Table of TAI - UTC, used to interpolate over the leap seconds */
+  private def leapSeconds = utc match {
+    case utcTime: UTCTime => utcTime.leapSeconds
+    case _ => LeapSecondTable.builtin
+  }
+
+  /**
+   * Load the complete IERS EOP 08 C04 series (all the yearly files in the archive) into a single UT1-UTC table.
+   */
+  def loadUT1Table() {
+    Resources.findArchive(ResourceDescription("org.iers.products.eop.long-term.c04_08", "iau2000", extension = "zip")) match {
+      case Success(archive) =>
+        val entries = archive.entries.filter(_.matches( """.*eopc04_08_IAU2000\.\d\d""")).toList.flatMap(name =>
+          archive.findEntry(name).toOption.map(resource => EarthOrientationData(resource.openSource()).data.values().asScala)
+        ).flatten
+        if (entries.isEmpty)
+          logger.warn("No yearly files found in artifact org.iers.products.eop.long-term.c04_08:iau2000 for Earth orientation data (UT1)")
+        else
+          table = UT1Table(entries, leapSeconds)
       case _ =>
-        logger.warn(s"Could not find file $filename in artifact org.iers.products.eop.long-term.c04_08:iau2000 for Earth orientation data (UT1) on $jd_utc")
+        logger.warn("Could not find artifact org.iers.products.eop.long-term.c04_08:iau2000 for Earth orientation data (UT1)")
+    }
+  }
+
+  /**
+   * Find the container that covers the given date.
+   *
+   * Without containers (the default) this is a single check. Otherwise the container of the previous lookup is tried
+   * first (and verified to still be registered), since successive conversions are usually on nearby dates.
+   */
+  private def containerFor(jd_utc: Double): Option[UT1Provider] = {
+    if (containers.isEmpty) return None
+    // A container covers this jd (jd_utc) if it is between the two boundaries
+    val mjd_utc = MJD.fromJD(jd_utc)
+    val last = lastContainer
+    if (last != null && last._1._1 <= mjd_utc && mjd_utc <= last._1._2 && containers.get(last._1).exists(_ eq last._2))
+      Some(last._2)
+    else {
+      val found = containers.find(e => e._1._1.compareTo(mjd_utc) * e._1._2.compareTo(mjd_utc) <= 0)
+      found.foreach(lastContainer = _)
+      found.map(_._2)
     }
   }
 
   override def UT1_UTC(jd_utc: Epoch) = UT1_UTC(jd_utc, tryDownload = true)
 
+  /**
+   * Get UT1 - UTC on a UTC epoch.
+   *
+   * @param jd_utc      Epoch in UTC.
+   * @param tryDownload When false, the bulk table is never loaded by this call. Dates outside of the containers then
+   *                    only use the table when its load was started before (the call waits for that load to complete),
+   *                    otherwise they are out of bounds.
+   * @return UT1 - UTC [s].
+   */
   def UT1_UTC(jd_utc: Epoch, tryDownload: Boolean = true): Double =
-    containers.find(e => {
-      // A container exists if this jd (jd_utc) is between the two boundaries (meaning both compareTo's have a different sign)
-      val mjd_utc = MJD.fromJD(jd_utc.jd)
-      (e._1._1.compareTo(mjd_utc) * e._1._2.compareTo(mjd_utc) <= 0)
-    }) match {
+    containerFor(jd_utc.jd) match {
       // We found a matching container, return its UT1-UTC
-      case Some((range, container)) => container.UT1_UTC(jd_utc)
-      // No entry found, try downloading the relevant data file and try again
-      case None =>
-        if (tryDownload) {
-          findUTCData(jd_utc)
-          UT1_UTC(jd_utc, tryDownload = false)
-        } else {
-          throw new UT1DateOutOfBounds()
-        }
+      case Some(container) => container.UT1_UTC(jd_utc)
+      case None => ut1MinusUtcTable(jd_utc.jd, tryDownload)
+    }
+
+  /**
+   * Get UT1 - UTC on a UTC Julian date.
+   *
+   * @param jd_utc Julian date in UTC.
+   * @return UT1 - UTC [s].
+   */
+  def ut1MinusUtc(jd_utc: Double): Double =
+    containerFor(jd_utc) match {
+      case Some(container) => container.UT1_UTC(new RawEpoch(jd_utc, utc))
+      case None => ut1MinusUtcTable(jd_utc, tryDownload = true)
+    }
+
+  /**
+   * Start loading the bulk UT1-UTC table on a background thread, without waiting for it. The table is only loaded once,
+   * later requests return the same load.
+   *
+   * @return The background load of the table.
+   */
+  def requestTable(): Future[Unit] = {
+    if (tableLoader == null) synchronized {
+      if (tableLoader == null) {
+        val task = new FutureTask[Unit](new Callable[Unit] {
+          // A failed load is only reported once, the table then remains unavailable
+          def call() = try {
+            loadUT1Table()
+          } catch {
+            case e: Exception => logger.warn("Failed to load the Earth orientation data (UT1)", e)
+          }
+        })
+        tableLoader = task
+        UT1Time.loader.execute(task)
+      }
+    }
+    tableLoader
+  }
+
+  /**
+   * Load the bulk UT1-UTC table (when it was not requested before), and wait until the load is complete.
+   *
+   * @return The loaded table, or null when the bulk data could not be loaded.
+   */
+  def awaitTable(): UT1Table = {
+    requestTable().get()
+    table
+  }
+
+  /**
+   * UT1 - UTC from the bulk table.
+   *
+   * When tryDownload is true and no containers were supplied on construction, the load of the table is started if
+   * required. In all cases a load that was already started is waited for, so the result does not depend on the progress
+   * of the background thread. Without a load that was started before, a date outside the containers is out of bounds.
+   *
+   * @param tryDownload Start loading the bulk table when it was not requested before.
+   */
+  private def ut1MinusUtcTable(jd_utc: Double, tryDownload: Boolean): Double = {
+    var t = table
+    if (t == null) {
+      val loader = if (tryDownload && loadOnMiss) requestTable() else tableLoader
+      if (loader != null) {
+        loader.get()
+        t = table
+      }
     }
+    if (t != null && t.covers(jd_utc))
+      t.ut1MinusUtc(jd_utc)
+    else
+      throw new UT1DateOutOfBounds()
+  }
+
+}
+
+object UT1Time {
+
+  /** Background thread that loads the bulk UT1-UTC tables, shared by all the UT1 time standards */
+  lazy val loader: Executor = Executors.newSingleThreadExecutor(
+    new ThreadFactoryBuilder().setDaemon(true).setNameFormat("ut1-loader-%d").build()
+  )
 
 }
 
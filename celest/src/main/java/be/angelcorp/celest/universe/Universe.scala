@@ -21,6 +21,7 @@ import java.lang.annotation.Annotation
 import com.google.inject._
 import net.codingwell.scalaguice.KeyExtensions.ScalaTypeLiteral
 import net.codingwell.scalaguice._
+import be.angelcorp.celest.time.TimeContext
 
 /**
  * Contains all the context information regarding a simulation, such as the reference frame/time data.
@@ -33,6 +34,9 @@ trait Universe {
   /** Dependency injector */
   def injector: Injector
 
+  /** Time standards and reference epochs of this universe, resolved only once (see [[be.angelcorp.celest.time.TimeContext]]). */
+  lazy val timeContext = new TimeContext(this)
+
   /**
    * Injects dependencies into the fields and methods of `instance`. Ignores the presence or absence of an injectable constructor.
    * <p>
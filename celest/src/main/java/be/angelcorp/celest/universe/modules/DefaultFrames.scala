@@ -13,8 +13,19 @@ import be.angelcorp.celest.frameGraph.frames._
 import be.angelcorp.celest.frameGraph.frames.transforms._
 import be.angelcorp.celest.universe.Universe
 import be.angelcorp.celest.data.eop.EarthOrientationData
+import org.slf4j.LoggerFactory
 
-class DefaultFrames extends ScalaModule {
+/**
+ * Module that binds the IAU reference systems and the transformations between them.
+ *
+ * @param tabulation When defined, the precession and nutation angles of the Earth orientation are interpolated from
+ *                   tables built with this policy, instead of evaluating the full series for every epoch.
+ * @param truncation Truncation of the IERS 2010 nutation series, for example
+ *                   [[be.angelcorp.celest.frameGraph.frames.transforms.NutationTruncation#milliArcsecond]] for fast
+ *                   but less accurate transformations (the full series by default).
+ */
+class DefaultFrames(tabulation: Option[TabulationPolicy] = None,
+                    truncation: NutationTruncation = NutationTruncation.full) extends ScalaModule {
 
   /**
    * Create the bindings that bind the reference systems to their correct frame implementations
@@ -33,6 +44,7 @@ class DefaultFrames extends ScalaModule {
    * Create the bindings for the reference frame graph transformations
    */
   def configureTransformations() {
+    bind[EarthOrientation].toProvider(new EarthOrientationProvider(tabulation, truncation)).in(classOf[Singleton])
     bind[PolarMotion[TIRS, ITRS]].toProvider[PolarMotionProvider].in[Singleton]
     bind[EarthRotationGAST[TIRS, ERS]].toProvider[EarthRotationGASTProvider].in[Singleton]
     bind[IAU2000Nutation[MOD, ERS]].toProvider[IAU2000NutationProvider].in[Singleton]
@@ -52,39 +64,71 @@ class DefaultFrames extends ScalaModule {
 
 }
 
+/**
+ * Provider of the Earth orientation parameters shared by the polar motion, Earth rotation, nutation and precession
+ * transformations.
+ *
+ * @param tabulation Policy of the precession and nutation interpolation table (None to always use the full series).
+ * @param truncation Truncation of the IERS 2010 nutation series.
+ */
+class EarthOrientationProvider(tabulation: Option[TabulationPolicy] = None,
+                               truncation: NutationTruncation = NutationTruncation.full) extends Provider[EarthOrientation] {
+  private val logger = LoggerFactory.getLogger(getClass)
+
+  @Inject implicit var universe: Universe = null
+  @Inject var eop: EarthOrientationData = null
+  @Inject var ers: ERS = null
+  @Inject var mod: MOD = null
+
+  def get() = {
+    val series = truncation(IAU2000NutationLoader.IERS2010)
+    if (series.size < series.fullSize)
+      logger.info(s"Using a truncated nutation series: $series")
+    val nutation = new IAU2000Nutation(mod, ers, series.coefficients)
+    new EarthOrientation(nutation, eop.cip, eop.lod, tabulation.map(policy => new PrecessionNutationTable(nutation, policy)))
+  }
+}
+
 class PolarMotionProvider extends Provider[PolarMotion[TIRS, ITRS]] {
   @Inject implicit var universe: Universe = null
   @Inject var eop: EarthOrientationData = null
+  @Inject var orientation: EarthOrientation = null
   @Inject var itrs: ITRS = null
   @Inject var tirs: TIRS = null
 
-  def get = new PolarMotion(tirs, itrs, eop.cip)
+  def get = new PolarMotion(tirs, itrs, eop.cip, Some(orientation))
 }
 
 class EarthRotationGASTProvider extends Provider[EarthRotationGAST[TIRS, ERS]] {
   @Inject implicit var universe: Universe = null
   @Inject var nutation: IAU2000Nutation[MOD, ERS] = null
   @Inject var eop: EarthOrientationData = null
+  @Inject var orientation: EarthOrientation = null
   @Inject var tirs: TIRS = null
   @Inject var ers: ERS = null
 
-  def get = new EarthRotationGAST(tirs, ers, nutation, eop.lod)
+  def get = new EarthRotationGAST(tirs, ers, nutation, eop.lod, Some(orientation))
 }
 
 class IAU2000NutationProvider extends Provider[IAU2000Nutation[MOD, ERS]] {
   @Inject implicit var universe: Universe = null
+  @Inject var orientation: EarthOrientation = null
   @Inject implicit var ers: ERS = null
   @Inject implicit var mod: MOD = null
 
-  def get() = new IAU2000Nutation(mod, ers, IAU2000NutationLoader.IERS2010)
+  def get() = {
+    val model = orientation.nutation
+    new IAU2000Nutation(mod, ers, model.coefficients, model.IAU2006Corrections, Some(orientation))
+  }
 }
 
 class IAU2006PrecessionProvider extends Provider[IAU2006Precession[MOD, EME2000]] {
   @Inject implicit var universe: Universe = null
+  @Inject var orientation: EarthOrientation = null
   @Inject implicit var j2000: EME2000 = null
   @Inject implicit var mod: MOD = null
 
-  def get(): IAU2006Precession[MOD, EME2000] = new IAU2006Precession(mod, j2000)
+  def get(): IAU2006Precession[MOD, EME2000] = new IAU2006Precession(mod, j2000, Some(orientation))
 }
 
 class J2000FrameBiasProvider extends Provider[J2000FrameBias[EME2000, GCRS]] {
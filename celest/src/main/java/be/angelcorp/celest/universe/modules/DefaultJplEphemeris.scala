@@ -2,22 +2,38 @@ package be.angelcorp.celest.universe.modules
 
 import javax.inject.Singleton
 import be.angelcorp.celest.resources.aether.AetherInterface
-import com.google.inject.{Provides, AbstractModule}
+import com.google.inject.{Exposed, PrivateModule, Provides}
 import org.eclipse.aether.artifact.DefaultArtifact
-import be.angelcorp.celest.ephemeris.jplEphemeris.JplEphemeris
+import be.angelcorp.celest.ephemeris.jplEphemeris.{RecordCachePolicy, JplEphemeris}
 import be.angelcorp.celest.ephemeris.jplEphemeris
 import be.angelcorp.celest.universe.Universe
 import be.angelcorp.celest.frameGraph.frames.ICRS
 
-class DefaultJplEphemeris(deNumber: Int, groupId: String, artifactId: String, extension: String = "bin") extends AbstractModule {
-  def configure() {}
+/**
+ * Module that binds a binary JPL ephemeris, resolved as an artifact from the configured repositories.
+ *
+ * The cache policy is only bound inside this (private) module, only the ephemeris is exposed to the universe. This
+ * way several ephemeris modules, each with their own cache policy, can be combined in the same universe.
+ *
+ * @param deNumber    Number of the ephemeris, eg 405 for DE405.
+ * @param groupId     Group id of the ephemeris artifact.
+ * @param artifactId  Artifact id of the ephemeris artifact.
+ * @param extension   Extension of the ephemeris artifact.
+ * @param cachePolicy Policy of the cache holding the data records of the ephemeris.
+ */
+class DefaultJplEphemeris(deNumber: Int, groupId: String, artifactId: String, extension: String = "bin",
+                          cachePolicy: RecordCachePolicy = RecordCachePolicy()) extends PrivateModule {
+  def configure() {
+    bind(classOf[RecordCachePolicy]).toInstance(cachePolicy)
+  }
 
   @Provides
   @Singleton
-  def getEphemeris(aether: AetherInterface)(implicit universe: Universe): JplEphemeris[ICRS] = {
+  @Exposed
+  def getEphemeris(aether: AetherInterface, cachePolicy: RecordCachePolicy)(implicit universe: Universe): JplEphemeris[ICRS] = {
     val artifact = new DefaultArtifact(groupId, artifactId, extension, "[0,)")
     val resolvedArtifact = aether.resolveLatest(artifact).head
-    jplEphemeris.fromBinary(resolvedArtifact.getFile.toPath, deNumber)
+    jplEphemeris.fromBinary(resolvedArtifact.getFile.toPath, deNumber, cachePolicy = cachePolicy)
   }
 
 }
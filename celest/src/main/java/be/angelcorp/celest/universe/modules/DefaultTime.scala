@@ -38,10 +38,21 @@ import be.angelcorp.celest.time.timeStandard.TimeStandardAnnotations._
  * <li>TDB epoch: 2433282.42345905jd TT - 65.5 µs </li>
  * </ul>
  *
+ * UTC uses the given table of leap seconds, which can be loaded from a data file when the universe is created:
+ *
+ * {{{
+ *   new DefaultTime(LeapSecondTable.load(Source.fromFile("Leap_Second.dat")))
+ * }}}
+ *
+ * @param leapSeconds Table of TAI - UTC used by UTC.
  */
-class DefaultTime extends AbstractModule {
+class DefaultTime(leapSeconds: LeapSecondTable) extends AbstractModule {
+
+  /** Create the time module using the built-in table of leap seconds. */
+  def this() = this(LeapSecondTable.builtin)
 
   def configure() {
+    bind(classOf[LeapSecondTable]).toInstance(leapSeconds)
     bind(classOf[TimeStandard]).annotatedWith(classOf[TAI]).to(classOf[TAITime]).asEagerSingleton()
     bind(classOf[TimeStandard]).annotatedWith(classOf[TT]).to(classOf[TTTime]).asEagerSingleton()
     bind(classOf[TimeStandard]).annotatedWith(classOf[TDT]).to(classOf[TTTime]).asEagerSingleton()
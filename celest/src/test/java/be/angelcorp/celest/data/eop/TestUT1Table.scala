@@ -0,0 +1,49 @@
+package be.angelcorp.celest.data.eop
+
+import org.scalatest.{FlatSpec, Matchers}
+import be.angelcorp.celest.time.timeStandard.{UT1DateOutOfBounds, LeapSecondTable}
+
+class TestUT1Table extends FlatSpec with Matchers {
+
+  val mjd0 = 2400000.5
+
+  /** Continuous UT1 - TAI around the leap second of 2012 JUL 1 (MJD 56109) */
+  def ut1_tai(mjd: Double) = -34.5 - 0.001 * (mjd - 56100) + 1E-5 * math.pow(mjd - 56100, 2)
+
+  /** Tabulated UT1 - UTC, with the one second jump at the leap second */
+  val table = new UT1Table(56100, Array.tabulate(20)(i => {
+    val mjd = 56100 + i
+    ut1_tai(mjd) + LeapSecondTable.builtin.taiMinusUtc(mjd0 + mjd)
+  }), LeapSecondTable.builtin)
+
+  "UT1Table" should "return the tabulated values on the nodes" in {
+    for (i <- 0 until 20) {
+      val mjd = 56100 + i
+      table.ut1MinusUtc(mjd0 + mjd) should be(ut1_tai(mjd) + LeapSecondTable.builtin.taiMinusUtc(mjd0 + mjd))
+    }
+  }
+
+  it should "interpolate over the leap seconds" in {
+    table.ut1MinusUtc(mjd0 + 56104.3) should be(ut1_tai(56104.3) + 34 +- 1E-12)
+    table.ut1MinusUtc(mjd0 + 56108.9) should be(ut1_tai(56108.9) + 34 +- 1E-12)
+    table.ut1MinusUtc(mjd0 + 56109.1) should be(ut1_tai(56109.1) + 35 +- 1E-12)
+    table.ut1MinusUtc(mjd0 + 56118.6) should be(ut1_tai(56118.6) + 35 +- 1E-12)
+  }
+
+  it should "invert the UT1 - UTC offset" in {
+    for (mjd <- Seq(56101.3, 56108.2, 56112.7)) {
+      val offset = table.ut1MinusUtc(mjd0 + mjd)
+      val jd_ut1 = mjd0 + mjd + offset / 86400.0
+      table.ut1MinusUtcInverse(jd_ut1) should be(offset +- 1E-9)
+    }
+  }
+
+  it should "reject dates outside of the table" in {
+    table.covers(mjd0 + 56099.9) should be(false)
+    table.covers(mjd0 + 56119.0) should be(true)
+    intercept[UT1DateOutOfBounds] {
+      table.ut1MinusUtc(mjd0 + 56200)
+    }
+  }
+
+}
@@ -0,0 +1,54 @@
+package be.angelcorp.celest.ephemeris.jplEphemeris
+
+import java.io.StringReader
+import java.util.InputMismatchException
+import org.scalatest.{FlatSpec, Matchers}
+
+class TestAsciiRecordReader extends FlatSpec with Matchers {
+
+  val data =
+    """     1     4
+      |  0.244048850000000000D+07  0.244052050000000000D+07 -0.197107339708233100D+08
+      | -0.166716555849284460D00  0.000000000000000000D+00  0.000000000000000000D+00
+      |     2     4
+      |  0.244052050000000000D+07  0.244055250000000000D+07  0.299221166597053480D-01
+      |  0.1E+01  0.000000000000000000D+00  0.000000000000000000D+00
+      |""".stripMargin
+
+  "AsciiTokenizer" should "parse Fortran style doubles and integers" in {
+    val tokenizer = new AsciiTokenizer(new StringReader(" 12 -0.5D+01\n0.25d-1 1.5E2 GROUP"))
+    tokenizer.nextInt() should be(12)
+    tokenizer.isDecimal should be(true)
+    tokenizer.nextDouble() should be(-5.0)
+    tokenizer.nextDouble() should be(0.025)
+    tokenizer.nextDouble() should be(150.0)
+    tokenizer.next() should be("GROUP")
+    tokenizer.hasNext should be(false)
+  }
+
+  it should "reject malformed numbers" in {
+    an[InputMismatchException] should be thrownBy new AsciiTokenizer(new StringReader("1.0")).nextInt()
+    an[InputMismatchException] should be thrownBy new AsciiTokenizer(new StringReader("x.0")).nextDouble()
+  }
+
+  "AsciiRecordReader" should "read records one at a time, skipping the line padding" in {
+    val reader = new AsciiRecordReader(new StringReader(data), 4)
+    val record = Array.ofDim[Double](4)
+
+    reader.read(record) should be(true)
+    reader.recordNumber should be(1)
+    record should be(Array(2440488.5, 2440520.5, -19710733.97082331, -0.16671655584928446))
+
+    reader.read(record) should be(true)
+    reader.recordNumber should be(2)
+    record should be(Array(2440520.5, 2440552.5, 0.029922116659705348, 1.0))
+
+    reader.read(record) should be(false)
+  }
+
+  it should "detect truncated records" in {
+    val reader = new AsciiRecordReader(new StringReader("     1     6\n  0.1D+01  0.2D+01  0.3D+01\n"), 6)
+    an[InputMismatchException] should be thrownBy reader.read(Array.ofDim[Double](6))
+  }
+
+}
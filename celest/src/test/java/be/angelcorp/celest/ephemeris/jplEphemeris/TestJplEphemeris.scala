@@ -101,6 +101,140 @@ class TestJplEphemeris extends FlatSpec with Matchers with ParallelTestExecution
     hashString should be("69b885966ed49586a4d7b8eb024ff3d3bcddf8a5")
   }
 
+  it should "compute tables of states equal to the individual states" in {
+    val ephemeris = jplEphemeris.fromBinary(de405Binary.path, 405)
+    val start = ephemeris.metadata.range.start + 10.25
+    val range = start until (start + 200.0) by 0.7
+
+    for (body <- Seq(Mercury(), Earth(), Moon(), Sun(), SSB())) {
+      val table = ephemeris.interpolateStates(range, body)
+      val count = range.length
+      for ((epoch, i) <- range.zipWithIndex) {
+        val expected = ephemeris.interpolateState(epoch, body)
+        table(i) should be(expected.position.x +- 1E-6)
+        table(i + count) should be(expected.position.y +- 1E-6)
+        table(i + 2 * count) should be(expected.position.z +- 1E-6)
+        table(i + 3 * count) should be(expected.velocity.x +- 1E-9)
+        table(i + 4 * count) should be(expected.velocity.y +- 1E-9)
+        table(i + 5 * count) should be(expected.velocity.z +- 1E-9)
+      }
+    }
+  }
+
+  it should "compute snapshots of multiple bodies equal to the individual states" in {
+    val ephemeris = jplEphemeris.fromBinary(de405Binary.path, 405)
+    val bodies = Seq(Mercury(), Venus(), Earth(), Moon(), EMB(), Mars(), Jupiter(), Saturn(), Uranus(), Neptune(), Pluto(), Sun(), SSB())
+    val epoch = ephemeris.metadata.range.start + 1234.567
+
+    val snapshot = ephemeris.interpolateAll(epoch, bodies)
+    for (body <- bodies) {
+      val expected = ephemeris.interpolateState(epoch, body)
+      val state = snapshot(body)
+      (state.position - expected.position).norm should be < 1E-6
+      (state.velocity - expected.velocity).norm should be < 1E-9
+    }
+  }
+
+  it should "reuse a body set and scratch array for snapshots, also with derived body coefficients" in {
+    val derived = jplEphemeris.fromBinary(de405Binary.path, 405, cachePolicy = RecordCachePolicy(derivedBodies = true))
+    val bodies = new BodySet(Seq(Sun(), Earth(), Moon(), Jupiter(), SSB()))
+    val states = Array.ofDim[Double](6 * bodies.size)
+    val scratch = Array.ofDim[Double](derived.scratchSize(bodies))
+
+    val start = derived.metadata.range.start + 100.0
+    for (epoch <- start until (start + 100.0) by 3.7) {
+      derived.interpolateAllInto(epoch.jd, bodies, states, scratch)
+      for ((body, i) <- bodies.bodies.zipWithIndex) {
+        val expected = derived.interpolateState(epoch, body)
+        states(6 * i) should be(expected.position.x +- 1E-6)
+        states(6 * i + 1) should be(expected.position.y +- 1E-6)
+        states(6 * i + 2) should be(expected.position.z +- 1E-6)
+        states(6 * i + 3) should be(expected.velocity.x +- 1E-9)
+        states(6 * i + 4) should be(expected.velocity.y +- 1E-9)
+        states(6 * i + 5) should be(expected.velocity.z +- 1E-9)
+      }
+    }
+  }
+
+  it should "compute the Earth and Moon from the derived body coefficients" in {
+    val ephemeris = jplEphemeris.fromBinary(de405Binary.path, 405)
+    val derived = jplEphemeris.fromBinary(de405Binary.path, 405, cachePolicy = RecordCachePolicy(derivedBodies = true))
+    derived.derivedBodies should be('defined)
+
+    val start = ephemeris.metadata.range.start + 100.0
+    for (epoch <- start until (start + 100.0) by 0.37; body <- Seq(Earth(), Moon())) {
+      val expected = ephemeris.interpolateState(epoch, body)
+      val state = derived.interpolateState(epoch, body)
+      (state.position - expected.position).norm should be < 1E-3
+      (state.velocity - expected.velocity).norm should be < 1E-8
+    }
+  }
+
+  it should "extract the same coefficients as used for the evaluation, also for the nutations" in {
+    val ephemeris = jplEphemeris.fromBinary(de405Binary.path, 405)
+    val start = ephemeris.metadata.range.start + 50.0
+
+    for (epoch <- start until (start + 64.0) by 3.3; target <- Seq(Mercury().id, Metadata.nutationIndex)) {
+      val components = Metadata.components(target)
+      val record = ephemeris.getRecord(epoch)
+      val (tc, a) = record.coefficients(epoch, target, components)
+      val n = a.length / components
+
+      val expected = Array.ofDim[Double](2 * components)
+      record.evaluate(epoch.jd, target, components, expected, 0)
+      for (k <- 0 until components) {
+        // Sum the Chebyshev series of the component directly
+        var (t0, t1, value) = (1.0, tc, a(k * n) + a(k * n + 1) * tc)
+        for (j <- 2 until n) {
+          val t2 = 2.0 * tc * t1 - t0
+          value += a(k * n + j) * t2
+          t0 = t1
+          t1 = t2
+        }
+        value should be(expected(k) +- 1E-9 * math.max(1.0, math.abs(expected(k))))
+      }
+    }
+  }
+
+  it should "prefetch the next records without counting them in the cache statistics" in {
+    val ephemeris = jplEphemeris.fromBinary(de405Binary.path, 405, cachePolicy = RecordCachePolicy(prefetchRecords = 3))
+
+    ephemeris.getRecord(10)
+    ephemeris.getRecord(11)
+    val deadline = System.currentTimeMillis() + 10000
+    while (!(12 to 14).forall(ephemeris.cache.asMap().containsKey(_)) && System.currentTimeMillis() < deadline)
+      Thread.sleep(10)
+    (12 to 14).foreach(record => ephemeris.cache.asMap().containsKey(record) should be(true))
+
+    ephemeris.cacheStats.missCount should be(2)
+    ephemeris.cacheStats.hitCount should be(0)
+    ephemeris.getRecord(12)
+    ephemeris.cacheStats.missCount should be(2)
+    ephemeris.cacheStats.hitCount should be(1)
+  }
+
+  it should "save and reload a compact subset of the bodies and time range" in {
+    val ephemeris = jplEphemeris.fromBinary(de405Binary.path, 405)
+    val start = ephemeris.metadata.range.start + 3650.0
+    val end = start + 1000.0
+
+    val result = Files.createTempFile("testephemeris", ".bin")
+    result.toFile.deleteOnExit()
+    jplEphemeris.toBinarySubset(ephemeris, result, start, end, Seq(Sun(), Earth(), Moon()))
+
+    val subset = jplEphemeris.fromBinary(result, 405)
+    subset.metadata.recordEntries should be < ephemeris.metadata.recordEntries
+    subset.metadata.coeffPtr(Mercury().id).nrCoefficients should be(0)
+    subset.metadata.range.start.jd should be(ephemeris.getRecord(start).begin.jd)
+
+    for (epoch <- start until end by 7.3; body <- Seq(Sun(), EMB(), Earth(), Moon())) {
+      val expected = ephemeris.interpolateState(epoch, body)
+      val state = subset.interpolateState(epoch, body)
+      (state.position - expected.position).norm should be(0.0)
+      (state.velocity - expected.velocity).norm should be(0.0)
+    }
+  }
+
   "AsciiEphemeris" should "pass the testpo.405 test" in {
     val header = de405AsciiHeader.openReader()
     val dataFiles = de405AsciiData.map( _.openReader() )
@@ -0,0 +1,56 @@
+package be.angelcorp.celest.ephemeris.jplEphemeris
+
+import com.google.common.cache.{CacheLoader, LoadingCache}
+import org.scalatest.{FlatSpec, Matchers}
+
+class TestRecordCachePolicy extends FlatSpec with Matchers {
+
+  "RecordCachePolicy" should "limit the cache to the most restrictive of the record count and size" in {
+    RecordCachePolicy().maximumWeight(8144) should be(Some(100L * 8144))
+    RecordCachePolicy(maximumRecords = Some(10), maximumBytes = Some(50000)).maximumWeight(8144) should be(Some(50000L))
+    RecordCachePolicy(maximumRecords = Some(10), maximumBytes = Some(500000)).maximumWeight(8144) should be(Some(81440L))
+    RecordCachePolicy(maximumRecords = None, maximumBytes = Some(50000)).maximumWeight(8144) should be(Some(50000L))
+    RecordCachePolicy(maximumRecords = None).maximumWeight(8144) should be(None)
+  }
+
+  it should "never evict records when all records are pinned" in {
+    RecordCachePolicy(pinAll = true).maximumWeight(8144) should be(None)
+    RecordCachePolicy(maximumBytes = Some(1), pinAll = true).maximumWeight(8144) should be(None)
+  }
+
+  it should "build a cache that evicts the least recently used records and keeps statistics" in {
+    val cache = newCache(RecordCachePolicy(maximumRecords = Some(2)))
+    cache.get(1)
+    cache.get(2)
+    cache.get(1) // hit, record 2 is now the least recently used
+    cache.get(3) // evicts record 2
+
+    cache.size should be(2)
+    cache.asMap().containsKey(1) should be(true)
+    cache.asMap().containsKey(2) should be(false)
+    cache.asMap().containsKey(3) should be(true)
+    cache.stats.hitCount should be(1)
+    cache.stats.missCount should be(3)
+    cache.stats.evictionCount should be(1)
+  }
+
+  it should "build a cache that keeps all the pinned records and can skip the statistics" in {
+    val pinned = newCache(RecordCachePolicy(maximumRecords = Some(2), pinAll = true))
+    (1 to 5).foreach(record => pinned.get(record))
+    pinned.size should be(5)
+    pinned.stats.evictionCount should be(0)
+
+    val unrecorded = newCache(RecordCachePolicy(recordStats = false))
+    unrecorded.get(1)
+    unrecorded.get(1)
+    unrecorded.stats.hitCount should be(0)
+    unrecorded.stats.missCount should be(0)
+  }
+
+  /** Cache of (fake) 8 byte records following the given policy */
+  private def newCache(policy: RecordCachePolicy): LoadingCache[Integer, String] =
+    policy.newBuilder(8).build(new CacheLoader[Integer, String] {
+      def load(record: Integer) = "record " + record
+    })
+
+}
@@ -0,0 +1,74 @@
+package be.angelcorp.celest.ephemeris.jplEphemeris
+
+import java.util.concurrent.Executor
+import org.scalatest.{FlatSpec, Matchers}
+
+import scala.collection.mutable
+
+class TestRecordPrefetcher extends FlatSpec with Matchers {
+
+  /** Runs the prefetches directly on the calling thread */
+  val direct = new Executor {
+    def execute(command: Runnable) = command.run()
+  }
+
+  /** Executor that keeps the prefetches queued until they are run explicitly */
+  class QueuedExecutor extends Executor {
+    val queue = mutable.Queue[Runnable]()
+    def execute(command: Runnable) = queue.enqueue(command)
+    def runAll() = while (queue.nonEmpty) queue.dequeue().run()
+  }
+
+  "RecordPrefetcher" should "warm the next records ahead of sequential access" in {
+    val warmed = mutable.ArrayBuffer[Int]()
+    val prefetcher = new RecordPrefetcher(3, 100, warmed += _, direct)
+
+    prefetcher.accessed(10)
+    warmed should be('empty)
+    prefetcher.accessed(11)
+    warmed should be(Seq(12, 13, 14))
+    prefetcher.accessed(12)
+    warmed.drop(3) should be(Seq(13, 14, 15))
+
+    // Backwards through the records
+    warmed.clear()
+    prefetcher.accessed(11)
+    warmed should be(Seq(10, 9, 8))
+  }
+
+  it should "not warm records outside of the ephemeris" in {
+    val warmed = mutable.ArrayBuffer[Int]()
+    val prefetcher = new RecordPrefetcher(3, 100, warmed += _, direct)
+
+    prefetcher.accessed(97)
+    prefetcher.accessed(98)
+    warmed should be(Seq(99))
+  }
+
+  it should "never prefetch on random access" in {
+    val warmed = mutable.ArrayBuffer[Int]()
+    val prefetcher = new RecordPrefetcher(3, 100, warmed += _, direct)
+
+    for (index <- Seq(50, 7, 93, 20, 22, 60, 58, 0, 99, 50, 50))
+      prefetcher.accessed(index)
+    warmed should be('empty)
+  }
+
+  it should "not request records that are already pending" in {
+    val executor = new QueuedExecutor
+    val warmed = mutable.ArrayBuffer[Int]()
+    val prefetcher = new RecordPrefetcher(3, 100, warmed += _, executor)
+
+    prefetcher.accessed(10)
+    prefetcher.accessed(11)
+    prefetcher.accessed(12)
+    executor.queue.size should be(4)
+    executor.runAll()
+    warmed should be(Seq(12, 13, 14, 15))
+
+    // Once warmed, the records can be requested again
+    prefetcher.accessed(13)
+    executor.queue.size should be(3)
+  }
+
+}
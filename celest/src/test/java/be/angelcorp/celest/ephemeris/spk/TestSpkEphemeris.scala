@@ -0,0 +1,91 @@
+package be.angelcorp.celest.ephemeris.spk
+
+import java.nio.{ByteBuffer, ByteOrder}
+import java.nio.file.{Files, Path}
+import org.scalatest.{FlatSpec, Matchers}
+import be.angelcorp.celest.time.JulianDate
+import be.angelcorp.celest.time.timeStandard.TimeStandards.TDB
+import be.angelcorp.celest.universe.DefaultUniverse
+
+class TestSpkEphemeris extends FlatSpec with Matchers {
+
+  implicit val universe = new DefaultUniverse
+
+  /**
+   * Write a small SPK file with two segments covering [-1000, 1000] s past J2000:
+   *  - Body 3 relative to 0, type 2, x = T0 + 2 T1 + 3 T2 and y = T1 [km]
+   *  - Body 399 relative to 3, type 3, x = 10 T0 + T1 [km] and vx = 0.1 T0 [km/s]
+   */
+  def writeSpk(): Path = {
+    val emb = Array(0.0, 1000.0, 1, 2, 3, 0, 1, 0, 0, 0, 0, -1000, 2000, 11, 1)
+    val earth = Array(0.0, 1000.0, 10, 1, 0, 0, 0, 0, 0.1, 0, 0, 0, 0, 0, -1000, 2000, 14, 1)
+
+    val buffer = ByteBuffer.allocate(3 * 1024 + 8 * (emb.length + earth.length)).order(ByteOrder.LITTLE_ENDIAN)
+    // File record
+    buffer.put("DAF/SPK ".getBytes("US-ASCII"))
+    buffer.putInt(8, 2).putInt(12, 6).putInt(76, 2).putInt(80, 2)
+    buffer.position(88)
+    buffer.put("LTL-IEEE".getBytes("US-ASCII"))
+    // Summary record (the name record is left blank)
+    val summaries = 1024
+    buffer.putDouble(summaries, 0).putDouble(summaries + 8, 0).putDouble(summaries + 16, 2)
+    def putSummary(i: Int, target: Int, center: Int, dataType: Int, begin: Int, end: Int) {
+      val offset = summaries + (3 + 5 * i) * 8
+      buffer.putDouble(offset, -1000).putDouble(offset + 8, 1000)
+      buffer.putInt(offset + 16, target).putInt(offset + 20, center).putInt(offset + 24, 1)
+      buffer.putInt(offset + 28, dataType).putInt(offset + 32, begin).putInt(offset + 36, end)
+    }
+    putSummary(0, 3, 0, 2, 385, 385 + emb.length - 1)
+    putSummary(1, 399, 3, 3, 385 + emb.length, 385 + emb.length + earth.length - 1)
+    // Segment data
+    buffer.position(3 * 1024)
+    (emb ++ earth).foreach(buffer.putDouble)
+
+    val path = Files.createTempFile("testephemeris", ".bsp")
+    path.toFile.deleteOnExit()
+    Files.write(path, buffer.array())
+  }
+
+  // The Julian date is only accurate to about 1E-4 s, hence the tolerances below
+  val tdbJd = 2451545.0 + 500.0 / 86400.0
+
+  "SpkEphemeris" should "index the segments of the file" in {
+    val spk = SpkEphemeris(writeSpk())
+    spk.segments.map(segment => (segment.target, segment.center, segment.dataType)) should be(Seq((3, 0, 2), (399, 3, 3)))
+    spk.indices.keySet should be(Set(3, 399))
+  }
+
+  it should "evaluate type 2 and type 3 segments" in {
+    val spk = SpkEphemeris(writeSpk())
+    val state = Array.ofDim[Double](6)
+
+    spk.plan(3).stateInto(tdbJd, state, 0)
+    state(0) should be(500.0 +- 1E-2) // 1 + 2 * 0.5 + 3 * (2 * 0.25 - 1) [km]
+    state(1) should be(500.0 +- 1E-2)
+    state(3) should be(8.0 +- 1E-6) // (2 + 3 * 4 * 0.5) / 1000 [km/s]
+    state(4) should be(1.0 +- 1E-6)
+
+    spk.plan(399, 3).stateInto(tdbJd, state, 0)
+    state(0) should be(10500.0 +- 1E-2)
+    state(3) should be(100.0 +- 1E-6)
+  }
+
+  it should "chain segments through their center bodies" in {
+    val spk = SpkEphemeris(writeSpk())
+    spk.plan(399).length should be(2)
+    spk.plan(399, 3).length should be(1)
+    spk.plan(3, 399).length should be(1)
+
+    val state = spk.interpolateState(JulianDate(tdbJd, TDB), 399, 0)
+    state.position.x should be(11000.0 +- 1E-2)
+    state.velocity.x should be(108.0 +- 1E-6)
+    spk.interpolateState(JulianDate(tdbJd, TDB), 3, 399).position.x should be(-10500.0 +- 1E-2)
+  }
+
+  it should "reject epochs outside of the segment coverage" in {
+    val spk = SpkEphemeris(writeSpk())
+    an[SpkCoverageException] should be thrownBy spk.plan(3).stateInto(2451545.0 + 2000.0 / 86400.0, Array.ofDim[Double](6), 0)
+    an[SpkCoverageException] should be thrownBy spk.plan(5)
+  }
+
+}
@@ -0,0 +1,87 @@
+package be.angelcorp.celest.frameGraph
+
+import be.angelcorp.celest.data.eop.{ExcessLengthOfDay, PoleProvider}
+import be.angelcorp.celest.frameGraph.frames.transforms._
+import be.angelcorp.celest.physics.Units._
+import be.angelcorp.celest.time.timeStandard.TimeStandards.TT
+import be.angelcorp.celest.time.{Epoch, JulianDate, MemoizedEpoch}
+import be.angelcorp.celest.unit.CelestTest
+import be.angelcorp.celest.universe.DefaultUniverse
+import org.scalatest.{FlatSpec, Matchers}
+
+class TestEarthOrientation extends FlatSpec with Matchers with CelestTest {
+
+  implicit val universe = new DefaultUniverse
+
+  val lod = new ExcessLengthOfDay {
+    def lod(epoch: Epoch) = 1E-3
+  }
+  val pole = new PoleProvider {
+    def polarCoordinatesOn(epoch: Epoch) = (arcSeconds(100E-3), arcSeconds(200E-3))
+  }
+
+  class CountingNutation extends IAU2000Nutation[ReferenceSystem, ReferenceSystem](null, null, IAU2000NutationLoader.MHB2000_2000B) {
+    var count = 0
+
+    override def nutationParameters(t: Double) = {
+      count += 1
+      super.nutationParameters(t)
+    }
+  }
+
+  "EarthOrientation" should "evaluate the nutation once for all the transformations at an epoch" in {
+    val model = new CountingNutation
+    val orientation = Some(new EarthOrientation(model, pole, lod))
+    val nutation = new IAU2000Nutation(null, null, model.coefficients, model.IAU2006Corrections, orientation)
+    val rotation = new EarthRotationGAST(null, null, nutation, lod, orientation)
+    val precession = new IAU2006Precession(null, null, orientation)
+    val polarMotion = new PolarMotion(null, null, pole, orientation)
+
+    val epoch = MemoizedEpoch(new JulianDate(2013, 4, 27, 12, 33, 18.1938271, TT))
+    polarMotion.transform(epoch)
+    rotation.transform(epoch)
+    nutation.transform(epoch)
+    precession.transform(epoch)
+    model.count should be(1)
+
+    // A different epoch instance at the same date also uses the snapshot
+    nutation.transform(new JulianDate(epoch.jd, epoch.timeStandard))
+    model.count should be(1)
+
+    nutation.transform(epoch.addS(60))
+    model.count should be(2)
+  }
+
+  it should "produce the same transformations as the separate models" in {
+    val model = new IAU2000Nutation(null, null, IAU2000NutationLoader.MHB2000_2000B)
+    val orientation = Some(new EarthOrientation(model, pole, lod))
+    val epoch = new JulianDate(2013, 4, 27, 12, 33, 18.1938271, TT)
+
+    new IAU2000Nutation(null, null, model.coefficients, model.IAU2006Corrections, orientation).rotationMatrix(epoch) should
+      be rotation (model.rotationMatrix(epoch) +- 1E-12)
+    new IAU2006Precession(null, null, orientation).rotationMatrix(epoch) should
+      be rotation (new IAU2006Precession(null, null).rotationMatrix(epoch) +- 1E-12)
+    new PolarMotion(null, null, pole, orientation).rotationMatrix(epoch) should
+      be rotation (new PolarMotion(null, null, pole).rotationMatrix(epoch) +- 1E-12)
+
+    val withSnapshot = new EarthRotationGAST(null, null, model, lod, orientation).calculateParameters(epoch)
+    val direct = new EarthRotationGAST(null, null, model, lod).calculateParameters(epoch)
+    withSnapshot.rotation.toMatrix.mtx should be rotation (direct.rotation.toMatrix.mtx +- 1E-12)
+    withSnapshot.rotationRate should be(direct.rotationRate)
+  }
+
+  "EarthOrientationSnapshot" should "contain the Earth orientation parameters" in {
+    val model = new IAU2000Nutation(null, null, IAU2000NutationLoader.MHB2000_2000B)
+    val epoch = new JulianDate(2013, 4, 27, 12, 33, 18.1938271, TT)
+    val snapshot = new EarthOrientation(model, pole, lod).snapshot(epoch)
+    val t = universe.timeContext.julianCenturiesTT(epoch)
+
+    (snapshot.Δψ, snapshot.Δε) should be(model.nutationParameters(t))
+    snapshot.θ_ERA should be(EarthRotation.θ_ERA(epoch))
+    snapshot.fundamentalArguments should be(IAU2000NutationEntry.fundamentalArguments(t))
+    snapshot.θ_GAST should be(new EarthRotationGAST(null, null, model, lod).θ_GAST2000(epoch))
+    snapshot.ω should be(7.292115146706979E-5 * (1 - 1E-3 / 86400.0))
+    (snapshot.x_p, snapshot.y_p) should be(pole.polarCoordinatesOn(epoch))
+  }
+
+}
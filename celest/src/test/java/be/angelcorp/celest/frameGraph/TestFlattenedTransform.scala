@@ -0,0 +1,78 @@
+package be.angelcorp.celest.frameGraph
+
+import org.scalatest.{FlatSpec, Matchers}
+import be.angelcorp.celest.frameGraph.transformations._
+import be.angelcorp.celest.math.geometry.{Mat3, Vec3}
+import be.angelcorp.celest.math.rotation.RotationMatrix
+import be.angelcorp.celest.time.{Epoch, JulianDate}
+import be.angelcorp.celest.time.timeStandard.{MockTimeUniverse, TTTime}
+
+class TestFlattenedTransform extends FlatSpec with Matchers {
+
+  implicit val universe = new MockTimeUniverse()
+
+  val epoch = new JulianDate(2451545.0, new TTTime)
+
+  val p1 = new TransformationParameters(epoch, Vec3(100, -20, 5), Vec3(1, 2, -3), Vec3(0.1, -0.2, 0.3),
+    new RotationMatrix(Mat3.rotate(0.3, Vec3(1, 2, 3).normalized)), Vec3(1E-3, -2E-3, 7E-4), Vec3(1E-6, 3E-6, -2E-6))
+  val p2 = new TransformationParameters(epoch, Vec3(-30, 40, 12), Vec3(-2, 0.5, 1), Vec3(-0.3, 0.1, 0.05),
+    new RotationMatrix(Mat3.rotate(-1.1, Vec3(0, -1, 2).normalized)), Vec3(-4E-4, 1E-3, 5E-3), Vec3(-2E-6, 1E-6, 4E-6))
+
+  val t1 = new KinematicTransformation[ReferenceSystem, ReferenceSystem](null, epoch, p1)
+  val t2 = new KinematicTransformation[ReferenceSystem, ReferenceSystem](null, epoch, p2)
+  val composite = new CompositeFrameTransform[ReferenceSystem, ReferenceSystem, ReferenceSystem](null, epoch, t1, t2)
+
+  def shouldBeClose(actual: Vec3, expected: Vec3, tolerance: Double) {
+    (actual - expected).norm should be < tolerance
+  }
+
+  "TransformationParameters" should "compose kinematic transformations" in {
+    val flat = new KinematicTransformation[ReferenceSystem, ReferenceSystem](null, epoch, TransformationParameters.compose(p1, p2))
+    val r = Vec3(7000E3, -1200E3, 300E3)
+    val v = Vec3(1E3, 7E3, -0.5E3)
+    val a = Vec3(-8, 1.5, 0.3)
+
+    val (r2, v2, a2) = composite.transformPosVelAcc(r, v, a)
+    val (r2f, v2f, a2f) = flat.transformPosVelAcc(r, v, a)
+    shouldBeClose(r2f, r2, 1E-6)
+    shouldBeClose(v2f, v2, 1E-9)
+    shouldBeClose(a2f, a2, 1E-12)
+    shouldBeClose(flat.transformVector(r), composite.transformVector(r), 1E-6)
+  }
+
+  it should "describe rotations, translations and composites" in {
+    val rotation = new ConstantRotationTransform[ReferenceSystem, ReferenceSystem, ReferenceFrameTransformFactory[ReferenceSystem, ReferenceSystem]](Mat3.rotateZ(0.5), epoch, null)
+    val translation = new TranslationTransform[ReferenceSystem, ReferenceSystem, ReferenceFrameTransformFactory[ReferenceSystem, ReferenceSystem]](Vec3(1, 2, 3), epoch, null)
+    val chain = new CompositeFrameTransform[ReferenceSystem, ReferenceSystem, ReferenceSystem](null, epoch,
+      new CompositeFrameTransform[ReferenceSystem, ReferenceSystem, ReferenceSystem](null, epoch, translation, rotation), composite)
+
+    val parameters = TransformationParameters.of(chain).get
+    val flat = new KinematicTransformation[ReferenceSystem, ReferenceSystem](null, epoch, parameters)
+    val r = Vec3(7000E3, -1200E3, 300E3)
+    val v = Vec3(1E3, 7E3, -0.5E3)
+    val (r2, v2) = chain.transformPosVel(r, v)
+    val (r2f, v2f) = flat.transformPosVel(r, v)
+    shouldBeClose(r2f, r2, 1E-6)
+    shouldBeClose(v2f, v2, 1E-9)
+  }
+
+  "FlattenedTransformFactory" should "produce a single kinematic transformation" in {
+    case class Frame(name: String) extends ReferenceSystem
+    class Kinematic(val fromFrame: Frame, val toFrame: Frame, parameters: TransformationParameters) extends KinematicTransformationFactory[Frame, Frame] {
+      def calculateParameters(date: Epoch) = parameters
+
+      def cost(epoch: Epoch) = 1.0
+    }
+    val (a, b, c) = (Frame("A"), Frame("B"), Frame("C"))
+    val factory = new CompositeFrameTransformFactory(new Kinematic(a, b, p1), new Kinematic(b, c, p2)).flatten()
+    factory.fromFrame should be(a)
+    factory.toFrame should be(c)
+
+    val transform = factory.transform(epoch)
+    transform.isInstanceOf[KinematicTransformation[_, _]] should be(true)
+    val r = Vec3(7000E3, -1200E3, 300E3)
+    shouldBeClose(transform.transformPos(r), composite.transformPos(r), 1E-6)
+    shouldBeClose(factory.inverse.transform(epoch).transformPos(transform.transformPos(r)), r, 1E-6)
+  }
+
+}
@@ -68,4 +68,22 @@ class TestIAU2000Nutation extends FlatSpec with Matchers with CelestTest {
     transform.M should be rotation (sofaRotation +- arcSecond(1E-3))
   }
 
+  it should "evaluate the series bit-for-bit as the individual entries" in {
+    val coefficients = IAU2000NutationLoader.MHB2000_2000A
+    val series = IAU2000NutationSeries(coefficients)
+    series.size should be(coefficients.size)
+
+    for (t <- Seq(-1.23456789, -0.1, 0.0, 0.13318385, 0.5, 2.0)) {
+      val (dψ, dε) = coefficients.foldLeft((0.0, 0.0))((nut, entry) => {
+        val (δΔψ, δΔε) = entry.nutationContribution(t)
+        ((nut._1 + δΔψ) % 1296000.0, (nut._2 + δΔε) % 1296000.0)
+      })
+      series.nutation(t) should be((dψ, dε))
+    }
+  }
+
+  it should "reject non-integer argument multipliers" in {
+    an[IllegalArgumentException] should be thrownBy IAU2000NutationSeries(List(new IAU2000NutationEntry(ls = 1.0, l = 0.5)))
+  }
+
 }
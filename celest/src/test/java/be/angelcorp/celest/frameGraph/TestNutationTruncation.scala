@@ -0,0 +1,57 @@
+package be.angelcorp.celest.frameGraph
+
+import be.angelcorp.celest.frameGraph.frames.transforms._
+import be.angelcorp.celest.unit.CelestTest
+import be.angelcorp.celest.universe.DefaultUniverse
+import org.scalatest.{FlatSpec, Matchers}
+
+import scala.math._
+
+class TestNutationTruncation extends FlatSpec with Matchers with CelestTest {
+
+  implicit val universe = new DefaultUniverse
+
+  val coefficients = IAU2000NutationLoader.MHB2000_2000A
+
+  "NutationTruncation" should "keep all the terms of the full series" in {
+    val full = NutationTruncation.full(coefficients)
+    full.size should be(coefficients.size)
+    full.fullSize should be(coefficients.size)
+    full.longitudeError should be(0.0)
+    full.obliquityError should be(0.0)
+  }
+
+  it should "only keep the terms above the amplitude threshold" in {
+    val truncation = NutationTruncation.milliArcsecond
+    val truncated = truncation(coefficients)
+
+    truncated.size should be < coefficients.size
+    truncated.size should be > 0
+    for (entry <- truncated.coefficients)
+      NutationTruncation.amplitude(entry, truncation.span) should be >= truncation.threshold
+    for (entry <- coefficients.filterNot(truncated.coefficients.contains))
+      NutationTruncation.amplitude(entry, truncation.span) should be < truncation.threshold
+  }
+
+  it should "bound the error with respect to the full series" in {
+    val full = new IAU2000Nutation(null, null, coefficients, false)
+    for (truncation <- Seq(NutationTruncation.tenthMilliArcsecond, NutationTruncation.milliArcsecond)) {
+      val truncated = truncation(coefficients)
+      truncated.longitudeError should be < truncation.threshold * coefficients.size
+      truncated.obliquityError should be < truncation.threshold * coefficients.size
+
+      val nutation = new IAU2000Nutation(null, null, truncated.coefficients, false)
+      for (t <- -1.0 to 1.0 by 0.0731) {
+        val (dψ, dε) = nutation.nutationParameters(t)
+        val (dψFull, dεFull) = full.nutationParameters(t)
+        abs(dψ - dψFull) should be <= truncated.longitudeError
+        abs(dε - dεFull) should be <= truncated.obliquityError
+      }
+    }
+  }
+
+  it should "reject a negative threshold" in {
+    an[IllegalArgumentException] should be thrownBy NutationTruncation(threshold = -1.0)
+  }
+
+}
@@ -0,0 +1,60 @@
+package be.angelcorp.celest.frameGraph
+
+import be.angelcorp.celest.frameGraph.frames.transforms._
+import be.angelcorp.celest.physics.Units._
+import be.angelcorp.celest.time.JulianDate
+import be.angelcorp.celest.time.timeStandard.TimeStandards.TT
+import be.angelcorp.celest.unit.CelestTest
+import be.angelcorp.celest.universe.DefaultUniverse
+import org.scalatest.{FlatSpec, Matchers}
+
+class TestPrecessionNutationTable extends FlatSpec with Matchers with CelestTest {
+
+  implicit val universe = new DefaultUniverse
+
+  val nutation = new IAU2000Nutation(null, null, IAU2000NutationLoader.MHB2000_2000A, true)
+
+  "PrecessionNutationTable" should "interpolate the angles within the tolerance of the full series" in {
+    val policy = TabulationPolicy(segmentLength = 8.0, nodes = 12, tolerance = 1E-6)
+    val table = new PrecessionNutationTable(nutation, policy)
+
+    val interpolated = new Array[Double](PrecessionNutationTable.angles)
+    val exact = new Array[Double](PrecessionNutationTable.angles)
+    for (day <- -50.0 to 50.0 by 0.37) {
+      val t = 0.13318385 + day / 36525.0
+      table.angles(t, interpolated, 0)
+      table.series(t, exact, 0)
+      for (q <- 0 until PrecessionNutationTable.angles)
+        interpolated(q) should be(exact(q) +- policy.tolerance)
+      table.nutation(t) should be((interpolated(0), interpolated(1)))
+      table.precession(t) should be((interpolated(2), interpolated(3), interpolated(4)))
+    }
+    table.size should be(14)
+  }
+
+  it should "use the full series when the tolerance cannot be met" in {
+    val table = new PrecessionNutationTable(nutation, TabulationPolicy(segmentLength = 30.0, nodes = 3, tolerance = 1E-9))
+
+    val t = 0.13318385
+    table.nutation(t) should be(nutation.nutationParameters(t))
+    table.precession(t) should be((IAU2006Precession.ψA(t), IAU2006Precession.ωA(t), IAU2006Precession.χA(t)))
+  }
+
+  it should "provide the nutation and precession rotation matrices" in {
+    val epoch = new JulianDate(2013, 4, 27, 12, 33, 18.1938271, TT)
+    val table = new PrecessionNutationTable(nutation)
+
+    val tabulatedNutation = new IAU2000Nutation(null, null, nutation.coefficients, true, table = Some(table))
+    tabulatedNutation.rotationMatrix(epoch) should be rotation (nutation.rotationMatrix(epoch) +- arcSecond(1E-5))
+
+    val precession = new IAU2006Precession(null, null)
+    val tabulatedPrecession = new IAU2006Precession(null, null, table = Some(table))
+    tabulatedPrecession.rotationMatrix(epoch) should be rotation (precession.rotationMatrix(epoch) +- arcSecond(1E-5))
+  }
+
+  "TabulationPolicy" should "reject invalid segments" in {
+    an[IllegalArgumentException] should be thrownBy TabulationPolicy(segmentLength = 0.0)
+    an[IllegalArgumentException] should be thrownBy TabulationPolicy(nodes = 1)
+  }
+
+}
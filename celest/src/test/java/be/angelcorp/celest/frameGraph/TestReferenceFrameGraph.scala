@@ -0,0 +1,79 @@
+package be.angelcorp.celest.frameGraph
+
+import org.scalatest.{FlatSpec, Matchers}
+import be.angelcorp.celest.frameGraph.transformations.TranslationalTransformFactory
+import be.angelcorp.celest.math.geometry.Vec3
+import be.angelcorp.celest.time.{Epoch, JulianDate}
+import be.angelcorp.celest.time.timeStandard.{MockTimeUniverse, TTTime}
+
+class TestReferenceFrameGraph extends FlatSpec with Matchers {
+
+  implicit val universe = new MockTimeUniverse()
+
+  val epoch = new JulianDate(2451545.0, new TTTime)
+
+  case class Frame(name: String) extends ReferenceSystem
+
+  class Translation(val fromFrame: Frame, val toFrame: Frame, dx: Double) extends TranslationalTransformFactory[Frame, Frame] {
+    def translation(epoch: Epoch) = Vec3(dx, 0, 0)
+
+    def cost(epoch: Epoch) = 1.0
+  }
+
+  val a = Frame("A")
+  val b = Frame("B")
+  val c = Frame("C")
+
+  def makeGraph = {
+    val graph = ReferenceFrameGraphImpl()
+    Seq(a, b, c).foreach(graph.attachFrame)
+    graph.attachTransform(a, b, new Translation(a, b, 1.0))
+    graph.attachTransform(b, c, new Translation(b, c, 2.0))
+    graph
+  }
+
+  "ReferenceFrameGraphImpl" should "reuse the resolved paths" in {
+    val graph = makeGraph
+    val factory = graph.getTransformFactory(a, c).get
+    graph.getTransformFactory(a, c).get should be theSameInstanceAs factory
+    graph.getTransformFactory(_ == a, _ == c).get should be theSameInstanceAs factory
+    graph.getTransform(a, c, epoch).get.transformPos(Vec3.zero) should be(Vec3(3.0, 0, 0))
+
+    graph.getTransformFactory(c, a) should be(None)
+    graph.getTransformFactory(_ == a, _ == Frame("D")) should be(None)
+  }
+
+  it should "resolve the paths again when the graph is modified" in {
+    val graph = makeGraph
+    val factory = graph.getTransformFactory(a, c).get
+    val version = graph.version
+
+    graph.attachTransform(a, c, new Translation(a, c, 5.0))
+    graph.version should be > version
+    graph.getTransformFactory(a, c).get should not be theSameInstanceAs(factory)
+    graph.getTransform(a, c, epoch).get.transformPos(Vec3.zero) should be(Vec3(5.0, 0, 0))
+
+    graph.getTransformFactory(c, a) should be(None)
+    graph.attachTransform(c, a, new Translation(c, a, -5.0))
+    graph.getTransform(c, a, epoch).get.transformPos(Vec3.zero) should be(Vec3(-5.0, 0, 0))
+  }
+
+  "TransformHandle" should "transform between the frames without resolving the path" in {
+    val graph = makeGraph
+    val handle = graph.getTransformHandle(a, c).get
+    handle.fromFrame should be(a)
+    handle.toFrame should be(c)
+    handle.factory should be theSameInstanceAs graph.getTransformFactory(a, c).get
+    handle.transform(epoch).transformPos(Vec3.zero) should be(Vec3(3.0, 0, 0))
+
+    graph.getTransformHandle(c, a) should be(None)
+  }
+
+  it should "follow modifications of the graph" in {
+    val graph = makeGraph
+    val handle = graph.getTransformHandle(a, c).get
+    graph.attachTransform(a, c, new Translation(a, c, 5.0))
+    handle.transform(epoch).transformPos(Vec3.zero) should be(Vec3(5.0, 0, 0))
+  }
+
+}
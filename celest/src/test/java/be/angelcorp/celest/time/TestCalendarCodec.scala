@@ -0,0 +1,117 @@
+package be.angelcorp.celest.time
+
+import java.nio.ByteBuffer
+import java.nio.charset.StandardCharsets
+import org.scalatest.{FlatSpec, Matchers}
+import be.angelcorp.celest.time.timeStandard.{MockTime, MockTimeUniverse, TTTime, TimeScales, UTCTime}
+
+class TestCalendarCodec extends FlatSpec with Matchers {
+
+  implicit val universe = new MockTimeUniverse()
+
+  val tt = new TTTime
+  val tai = new MockTime(-32.184)
+  val utc = new UTCTime(tai)
+
+  def parse(text: String, timeStandard: timeStandard.TimeStandard = tt) = {
+    val out = Array.ofDim[Double](2)
+    CalendarCodec.parse(text, timeStandard, out, 0)
+    out
+  }
+
+  def format(jd1: Double, jd2: Double, timeStandard: timeStandard.TimeStandard = tt, digits: Int = 3, dayOfYear: Boolean = false) = {
+    val out = new java.lang.StringBuilder
+    CalendarCodec.format(jd1, jd2, timeStandard, digits, out, dayOfYear)
+    out.toString
+  }
+
+  "CalendarCodec" should "parse ISO-8601 / CCSDS ASCII A dates" in {
+    parse("2000-01-01T12:00:00Z") should be(Array(2451544.5, 0.5))
+    parse("2000-01-01T12:00:00") should be(Array(2451544.5, 0.5))
+    parse("2000-01-01 06:00:00.000") should be(Array(2451544.5, 0.25))
+    parse("2000-01-01") should be(Array(2451544.5, 0.0))
+    parse("1999-12-31T18:00:00.5")(1) should be((64800.5 / 86400.0) +- 1E-15)
+  }
+
+  it should "parse CCSDS ASCII B dates" in {
+    parse("2000-001T12:00:00Z") should be(Array(2451544.5, 0.5))
+    parse("2000-366T00:00:00Z") should be(Array(2451909.5, 0.0))
+    parse("2004-097T07:51:28.386009Z") should be(parse("2004-04-06T07:51:28.386009Z"))
+    parse("2000-02-29") should be(parse("2000-060"))
+  }
+
+  it should "parse the seconds of a leap second in UTC" in {
+    // 2012 June 30 ends in a leap second, so the day lasts 86401 seconds
+    val jd = parse("2012-06-30T23:59:60.5Z", utc)
+    jd(0) should be(2456108.5)
+    jd(1) should be((86400.5 / 86401.0) +- 1E-15)
+    parse("2012-06-30T12:00:00Z", utc)(1) should be((43200.0 / 86401.0) +- 1E-15)
+
+    an[IllegalArgumentException] should be thrownBy parse("2012-06-30T23:59:60.5Z", tt)
+    an[IllegalArgumentException] should be thrownBy parse("2012-06-29T23:59:60.5Z", utc)
+    an[IllegalArgumentException] should be thrownBy parse("2012-06-30T23:58:60.0Z", utc)
+  }
+
+  it should "reject invalid dates" in {
+    for (text <- List("2000-13-01T00:00:00", "2000-01-01T24:00:00", "2000-01-01T00:60:00", "2001-366T00:00:00",
+      "2000-01-01T00:00", "2000/01/01", "2000-01-01T00:00:00Zx", "2000-02-30", "2001-04-31", "1900-02-29"))
+      an[IllegalArgumentException] should be thrownBy parse(text)
+  }
+
+  it should "parse dates in an ASCII byte buffer" in {
+    val bytes = ByteBuffer.wrap("#2004-04-06T07:51:28.386009Z;2000-001T12:00:00Z".getBytes(StandardCharsets.US_ASCII))
+    val out = Array.ofDim[Double](4)
+    CalendarCodec.parse(bytes, 1, 28, tt, out, 0)
+    CalendarCodec.parse(bytes, 29, bytes.limit, tt, out, 2)
+    out.take(2) should be(parse("2004-04-06T07:51:28.386009Z"))
+    out.drop(2) should be(Array(2451544.5, 0.5))
+    bytes.position should be(0)
+  }
+
+  it should "format dates" in {
+    format(2451545.0, 0.0) should be("2000-01-01T12:00:00.000Z")
+    format(2451544.5, 0.25, digits = 0) should be("2000-01-01T06:00:00Z")
+    format(2451544.5, 0.5, dayOfYear = true) should be("2000-001T12:00:00.000Z")
+    format(2451909.5, 0.0, dayOfYear = true) should be("2000-366T00:00:00.000Z")
+    // Rounding to the next day
+    format(2451544.5, 1.0 - 1E-12) should be("2000-01-02T00:00:00.000Z")
+    // Unnormalized Julian date pairs
+    format(2451540.0, 5.0) should be("2000-01-01T12:00:00.000Z")
+  }
+
+  it should "format a leap second in UTC" in {
+    format(2456108.5, 86400.5 / 86401.0, utc) should be("2012-06-30T23:59:60.500Z")
+    format(2456108.5, 86400.5 / 86401.0, tt) should be("2012-06-30T23:59:59.500Z")
+  }
+
+  it should "produce UTC dates that agree with the time standard conversions" in {
+    // TAI - UTC is 34 s before, and 35 s after the leap second at the end of 2012 June 30
+    val jd_tai = Array.ofDim[Double](2)
+    for ((text, seconds) <- List("2012-06-30T23:59:59.5Z" -> 33.5, "2012-06-30T23:59:60.5Z" -> 34.5,
+      "2012-07-01T00:00:00.5Z" -> 35.5, "2012-06-30T12:00:00Z" -> (34.0 - 43200.0))) {
+      val jd_utc = parse(text, utc)
+      TimeScales.convert(jd_utc(0), jd_utc(1), utc, tai, jd_tai)
+      // Seconds since 2012 July 1 0h in TAI
+      ((jd_tai(0) - 2456109.5) + jd_tai(1)) * 86400.0 should be(seconds +- 1E-5)
+
+      TimeScales.convert(jd_tai(0), jd_tai(1), tai, utc, jd_tai)
+      format(jd_tai(0), jd_tai(1), utc, 1) should be(text.substring(0, 19) + (if (text.length > 21) ".5Z" else ".0Z"))
+    }
+  }
+
+  it should "format dates in an ASCII byte buffer" in {
+    val bytes = ByteBuffer.allocate(64)
+    CalendarCodec.format(2451545.0, 0.0, tt, 6, bytes, dayOfYear = false)
+    new String(bytes.array, 0, bytes.position, StandardCharsets.US_ASCII) should be("2000-01-01T12:00:00.000000Z")
+  }
+
+  it should "round trip dates" in {
+    val out = Array.ofDim[Double](2)
+    for (text <- List("1972-01-01T00:00:00.000000000Z", "2004-04-06T07:51:28.386009000Z", "2012-06-30T23:59:60.999000000Z",
+      "2038-01-19T03:14:07.123456000Z")) {
+      CalendarCodec.parse(text, utc, out, 0)
+      format(out(0), out(1), utc, 6) should be(text.substring(0, 26) + "Z")
+    }
+  }
+
+}
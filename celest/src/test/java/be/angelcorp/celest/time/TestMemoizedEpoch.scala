@@ -0,0 +1,53 @@
+package be.angelcorp.celest.time
+
+import org.scalatest.{FlatSpec, Matchers}
+import be.angelcorp.celest.time.timeStandard._
+
+class TestMemoizedEpoch extends FlatSpec with Matchers {
+
+  implicit val universe = new MockTimeUniverse()
+
+  /** Time standard that counts the number of conversions */
+  class CountingTime(offset: Double) extends TimeStandard {
+    var count = 0
+
+    def offsetFromTT(JD_tt: Epoch) = {
+      count += 1
+      offset
+    }
+
+    def offsetToTT(JD_this: Epoch) = {
+      count += 1
+      -offset
+    }
+  }
+
+  val tt = new TTTime
+
+  "MemoizedEpoch" should "convert to each time standard only once" in {
+    val counting = new CountingTime(10.0)
+    val epoch = MemoizedEpoch(JulianDate(2451545.0, tt))
+
+    val converted = epoch.inTimeStandard(counting)
+    epoch.inTimeStandard(counting) should be theSameInstanceAs converted
+    converted.inTimeStandard(tt).inTimeStandard(counting) should be theSameInstanceAs converted
+    counting.count should be(1)
+  }
+
+  it should "share the memory between all its representations" in {
+    val tai = new TAITime
+    val epoch = MemoizedEpoch(2451545.0, tt)
+    val in_tai = epoch.inTimeStandard(tai)
+    in_tai.inTimeStandard(tt) should be theSameInstanceAs epoch
+  }
+
+  it should "give the same result as a Julian date" in {
+    val tdb = new TDBTime(JulianDate(2451545.0, tt))
+    val utc = new UTCTime(new TAITime)
+    val date = JulianDate(2453101.827411875, utc)
+    val epoch = MemoizedEpoch(date)
+    epoch.inTimeStandard(tdb).jd should be(date.inTimeStandard(tdb).jd)
+    epoch.inTimeStandard(tdb).inTimeStandard(tt).jd should be(date.inTimeStandard(tt).jd)
+  }
+
+}
@@ -0,0 +1,30 @@
+package be.angelcorp.celest.time
+
+import org.scalatest.{FlatSpec, Matchers}
+import be.angelcorp.celest.time.timeStandard.{TimeStandard, TimeStandardAnnotations, TimeStandards}
+import be.angelcorp.celest.universe.DefaultUniverse
+
+class TestTimeContext extends FlatSpec with Matchers {
+
+  implicit val universe = new DefaultUniverse
+
+  "TimeContext" should "resolve the same instances as the universe" in {
+    val context = universe.timeContext
+    context.TT should be theSameInstanceAs universe.instance[TimeStandard, TimeStandardAnnotations.TT]
+    context.TDB should be theSameInstanceAs universe.instance[TimeStandard, TimeStandardAnnotations.TDB]
+    context.J2000 should be theSameInstanceAs universe.instance[Epoch, EpochAnnotations.J2000]
+  }
+
+  it should "be shared by the shorthand functions" in {
+    universe.timeContext should be theSameInstanceAs universe.timeContext
+    TimeStandards.UT1 should be theSameInstanceAs universe.timeContext.UT1
+    Epochs.J2000 should be theSameInstanceAs universe.timeContext.J2000
+  }
+
+  it should "compute the Julian centuries since J2000" in {
+    val context = universe.timeContext
+    context.julianCenturiesTT(context.J2000) should be(0.0)
+    context.julianCenturiesTT(JulianDate(2451545.0 + 36525.0, context.TT)) should be(1.0 +- 1E-12)
+  }
+
+}
@@ -60,4 +60,29 @@ class TestTimeRange extends FlatSpec with ShouldMatchers {
     to2.contains(new JulianDate(5.0)) should equal(false)
   }
 
+  it should "map in parallel over the same epochs" in {
+    val range = TimeRange.inclusive(new JulianDate(1.0), new JulianDate(1000.0), 0.5)
+    range.par.length should equal(range.length)
+    range.par.map(_.jd).seq should equal(range.map(_.jd))
+    range.par.splitter.split.map(_.remaining).sum should equal(range.length)
+  }
+
+  it should "split into balanced spliterators" in {
+    val range = TimeRange(new JulianDate(1.0), new JulianDate(101.0))
+    val first = range.spliterator
+    val prefix = first.trySplit()
+    prefix.estimateSize() should equal(50)
+    first.estimateSize() should equal(50)
+
+    val epochs = scala.collection.mutable.ArrayBuffer[Double]()
+    val consumer = new java.util.function.Consumer[Epoch] {
+      def accept(epoch: Epoch) {
+        epochs += epoch.jd
+      }
+    }
+    prefix.forEachRemaining(consumer)
+    while (first.tryAdvance(consumer)) {}
+    epochs should equal(range.map(_.jd))
+  }
+
 }
@@ -0,0 +1,63 @@
+package be.angelcorp.celest.time
+
+import org.scalatest.{FlatSpec, Matchers}
+import be.angelcorp.celest.time.timeStandard.{TAITime, TTTime}
+import be.angelcorp.celest.time.timeStandard.MockTimeUniverse
+
+class TestTwoPartEpoch extends FlatSpec with Matchers {
+
+  implicit val universe = new MockTimeUniverse()
+
+  val tt = new TTTime
+
+  "TwoPartEpoch" should "normalize the seconds in the day" in {
+    val epoch = TwoPartEpoch(2451545L, 86400.0 * 2 + 10.0, tt)
+    epoch.day should be(2451547L)
+    epoch.seconds should be(10.0)
+
+    val negative = TwoPartEpoch(2451545L, -10.0, tt)
+    negative.day should be(2451544L)
+    negative.seconds should be(86390.0)
+
+    TwoPartEpoch(2451545.25, tt).seconds should be(21600.0)
+    TwoPartEpoch(2451545.0, -0.25, tt) should be(TwoPartEpoch(2451544L, 64800.0, tt))
+  }
+
+  it should "accumulate small steps without loss of precision" in {
+    var epoch = TwoPartEpoch(2451545.0, tt)
+    var julianDate: Epoch = JulianDate(2451545.0, tt)
+    for (i <- 0 until 100000) {
+      epoch = epoch.addS(1E-5)
+      julianDate = julianDate.addS(1E-5)
+    }
+    epoch.relativeToS(TwoPartEpoch(2451545.0, tt)) should be(1.0 +- 1E-9)
+    // The single double Julian date cannot resolve the steps
+    math.abs(julianDate.relativeToS(JulianDate(2451545.0, tt)) - 1.0) should be > 1E-3
+  }
+
+  it should "compute relative times without cancellation" in {
+    val t0 = TwoPartEpoch(2451545L, 100.0, tt)
+    val t1 = t0.addS(1E-9)
+    t1.relativeToS(t0) should be(1E-9 +- 1E-15)
+    t0.relativeToS(t1) should be(-1E-9 +- 1E-15)
+    t1.add(2.5).relativeTo(t1) should be(2.5 +- 1E-15)
+  }
+
+  it should "order epochs" in {
+    val t0 = TwoPartEpoch(2451545L, 100.0, tt)
+    (t0 compareTo t0.addS(1E-9)) should be < 0
+    (t0.add(1) compareTo t0) should be > 0
+    (t0 compareTo TwoPartEpoch(2451545L, 100.0, tt)) should be(0)
+    (t0 compareTo JulianDate(2451546.0, tt)) should be < 0
+  }
+
+  it should "convert between time standards" in {
+    val tai = new TAITime
+    val epoch = TwoPartEpoch(2451545L, 100.0, tt)
+    val epoch_tai = epoch.inTimeStandard(tai)
+    epoch_tai.day should be(2451545L)
+    epoch_tai.seconds should be(100.0 - 32.184 +- 1E-12)
+    epoch_tai.inTimeStandard(tt).seconds should be(100.0 +- 1E-12)
+  }
+
+}
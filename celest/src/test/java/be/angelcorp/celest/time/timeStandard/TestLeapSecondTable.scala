@@ -0,0 +1,79 @@
+package be.angelcorp.celest.time.timeStandard
+
+import scala.io.Source
+import org.scalatest.{FlatSpec, Matchers}
+
+class TestLeapSecondTable extends FlatSpec with Matchers {
+
+  "LeapSecondTable" should "contain the built-in leap seconds" in {
+    val table = LeapSecondTable.builtin
+    table.taiMinusUtc(2437000.5) should be(0.0)
+    table.taiMinusUtc(2441317.5) should be(10.0)
+    table.taiMinusUtc(2451545.0) should be(32.0)
+    table.taiMinusUtc(2456109.5) should be(35.0)
+    // 1965 JAN 1: 3.5401300 + (MJD - 38761) * 0.001296
+    table.taiMinusUtc(2438761.5) should be(3.5401300 +- 1E-12)
+    table.taiMinusUtc(2438781.5) should be(3.5401300 + 20 * 0.001296 +- 1E-12)
+    // 1962 JAN 1: 1.8458580 + (MJD - 37665) * 0.0011232
+    table.taiMinusUtc(2437675.5) should be(1.8458580 + 10 * 0.0011232 +- 1E-12)
+  }
+
+  it should "contain the leap seconds up to 2017" in {
+    val table = LeapSecondTable.builtin
+    table.size should be(41)
+    table.taiMinusUtc(2457204.4) should be(35.0)
+    table.taiMinusUtc(2457204.5) should be(36.0) // 2015 JUL 1
+    table.taiMinusUtc(2457754.4) should be(36.0)
+    table.taiMinusUtc(2457754.5) should be(37.0) // 2017 JAN 1
+    table.taiMinusUtc(2460000.5) should be(37.0)
+    table.leapSecond(table.index(2457754.5)) should be(1.0)
+  }
+
+  it should "find the same rows with and without the last-hit cache" in {
+    val table = LeapSecondTable.builtin
+    val dates = Seq(2451545.0, 2451545.1, 2441317.5, 2441317.4, 2456200.0, 2400000.0, 2453736.5, 2453736.49)
+    for (jd <- dates ++ dates.reverse) {
+      val index = table.index(jd)
+      jd should be >= table.start(index)
+      jd should be < table.end(index)
+    }
+  }
+
+  it should "report the size of the leap seconds" in {
+    val table = LeapSecondTable.builtin
+    table.leapSecond(table.index(2453736.5)) should be(1.0)
+    table.leapSecond(table.index(2453736.4)) should be(1.0) // Row starting at 1999 JAN 1
+    table.leapSecond(table.index(2437000.5)) should be(0.0)
+  }
+
+  it should "load a tai-utc.dat file" in {
+    val table = LeapSecondTable.fromTaiUtc(Source.fromString(
+      """ 1968 FEB  1 =JD 2439887.5  TAI-UTC=   4.2131700 S + (MJD - 39126.) X 0.002592 S
+        | 1972 JAN  1 =JD 2441317.5  TAI-UTC=  10.0       S + (MJD - 41317.) X 0.0      S
+        | 2017 JAN  1 =JD 2457754.5  TAI-UTC=  37.0       S + (MJD - 41317.) X 0.0      S
+        |""".stripMargin))
+    table.size should be(3)
+    table.taiMinusUtc(2439887.5) should be(4.2131700 + (39887.0 - 39126.0) * 0.002592 +- 1E-12)
+    table.taiMinusUtc(2451545.0) should be(10.0)
+    table.taiMinusUtc(2457754.5) should be(37.0)
+  }
+
+  it should "load a Leap_Second.dat file" in {
+    val table = LeapSecondTable.load(Source.fromString(
+      """#  File expires on 28 June 2025
+        |#    MJD        Date        TAI-UTC (s)
+        |#           day month year
+        |#    ---    --------------   ------
+        |#
+        |    41317.0    1  1 1972       10
+        |    41499.0    1  7 1972       11
+        |    57754.0    1  1 2017       37
+        |""".stripMargin))
+    table.taiMinusUtc(2441317.5) should be(10.0)
+    table.taiMinusUtc(2441499.5) should be(11.0)
+    table.taiMinusUtc(2457754.5) should be(37.0)
+    // The drift before 1972 is retained from the built-in table
+    table.taiMinusUtc(2438761.5) should be(LeapSecondTable.builtin.taiMinusUtc(2438761.5))
+  }
+
+}
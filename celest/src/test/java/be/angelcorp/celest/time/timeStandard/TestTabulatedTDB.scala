@@ -0,0 +1,76 @@
+package be.angelcorp.celest.time.timeStandard
+
+import org.scalatest.{FlatSpec, Matchers}
+import scala.io.Source
+
+class TestTabulatedTDB extends FlatSpec with Matchers {
+
+  val model = new TDBChebyshevModel(series = TDBSeries.truncated, start = 2451545.0 - 3650, end = 2451545.0 + 3650)
+
+  /**
+   * TDB - TT from the SOFA routine iauDtdb (at the geocenter, ut = elong = u = v = 0), as (jd1, jd2, TDB - TT [s]).
+   */
+  val sofaDtdb = Seq(
+    (2451545.0, 0.0, -9.930719894379447e-05),
+    (2453750.5, 0.892482639, 0.000372453146032865),
+    (2450123.5, 0.9999, 0.0010269563291798198)
+  )
+
+  "TDBChebyshevModel" should "reproduce the series" in {
+    for (i <- 0 until 1000) {
+      val jd2 = -3650.0 + i * 7.3 + 0.123
+      model.tdbMinusTt(2451545.0, jd2) should be(model.series(2451545.0, jd2) +- 1E-12)
+    }
+  }
+
+  it should "evaluate the series outside of the tabulated span" in {
+    model.tdbMinusTt(2415020.5, 0.3) should be(model.series(2415020.5, 0.3))
+  }
+
+  it should "invert TDB - TT exactly" in {
+    for (jd2 <- Seq(-1200.4, 0.0, 17.25, 2049.9)) {
+      val jd2_tdb = jd2 + model.tdbMinusTt(2451545.0, jd2) / 86400.0
+      model.ttMinusTdb(2451545.0, jd2_tdb) should be(-model.tdbMinusTt(2451545.0, jd2) +- 1E-15)
+    }
+  }
+
+  "TDBSeries" should "agree with the two term TDB model to within its accuracy" in {
+    implicit val universe = new MockTimeUniverse()
+    val tdb = new TDBTime(be.angelcorp.celest.time.JulianDate(2451545.0, new TTTime))
+    for (jd2 <- Seq(-5000.0, -10.0, 1500.5, 4000.0))
+      TDBSeries.truncated(2451545.0, jd2) should be(tdb.offsetFromTT(2451545.0, jd2) +- 5E-5)
+  }
+
+  it should "bundle the complete Fairhead and Bretagnon series" in {
+    TDBSeries.fairheadBretagnon.size should be(787 + 5)
+    for ((jd1, jd2, dtdb) <- sofaDtdb)
+      TDBSeries.fairheadBretagnon(jd1, jd2) should be(dtdb +- 1E-12)
+  }
+
+  it should "load the series terms from a file" in {
+    val series = TDBSeries.load(Source.fromString(
+      """# power  amplitude  frequency  phase
+        |0 1656.674564E-6 628.3075849991 6.240054195
+        |1 10.2156724E-6  628.3075849991 4.249032005
+        |""".stripMargin))
+    series.size should be(2)
+    series(2451545.0, 0.0) should be(1656.674564E-6 * math.sin(6.240054195) +- 1E-15)
+  }
+
+  "TabulatedTDBTime" should "match the SOFA TDB - TT to well below 1 µs" in {
+    val tdb = new TabulatedTDBTime()
+    for ((jd1, jd2, dtdb) <- sofaDtdb) {
+      tdb.offsetFromTT(jd1, jd2) should be(dtdb +- 1E-9)
+      tdb.offsetToTT(jd1, jd2 + dtdb / 86400.0) should be(-dtdb +- 1E-9)
+    }
+  }
+
+  "TCB" should "convert back to TT exactly" in {
+    implicit val universe = new MockTimeUniverse()
+    val tt_epoch = be.angelcorp.celest.time.JulianDate(2443144.5003725, new TTTime)
+    val tcb = new TCBTime(new TabulatedTDBTime(model), tt_epoch)
+    val offset = tcb.offsetFromTT(2451545.0, 1234.5)
+    tcb.offsetToTT(2451545.0, 1234.5 + offset / 86400.0) should be(-offset +- 1E-12)
+  }
+
+}
@@ -0,0 +1,79 @@
+package be.angelcorp.celest.time.timeStandard
+
+import org.scalatest.{FlatSpec, Matchers}
+import be.angelcorp.celest.physics.Units
+import be.angelcorp.celest.data.eop.UT1Provider
+import be.angelcorp.celest.time.JulianDate
+
+class TestTimeScales extends FlatSpec with Matchers {
+
+  implicit val universe = new MockTimeUniverse()
+
+  val tt = new TTTime
+  val tai = new TAITime
+  val utc = new UTCTime(tai)
+
+  "TimeScales" should "not modify a date between identical time standards" in {
+    val out = Array.ofDim[Double](2)
+    TimeScales.convert(2451545.0, 0.25, utc, utc, out)
+    out should be(Array(2451545.0, 0.25))
+    TimeScales.convert(2451545.25, utc, utc) should be(2451545.25)
+  }
+
+  it should "fold constant offsets into a single step" in {
+    val out = Array.ofDim[Double](2)
+    TimeScales.convert(2451545.0, 0.25, tai, tt, out)
+    out(0) should be(2451545.0)
+    out(1) should be(0.25 + 32.184 / Units.julianDay +- 1E-15)
+    TimeScales.convert(2451545.25, tt, tai) should be(2451545.25 - 32.184 / Units.julianDay +- 1E-9)
+  }
+
+  it should "cache the conversion chain of each pair of time standards" in {
+    TimeScales.conversion(utc, tt) should be theSameInstanceAs TimeScales.conversion(utc, tt)
+    TimeScales.conversion(utc, tai) should not be theSameInstanceAs(TimeScales.conversion(utc, tt))
+  }
+
+  it should "convert time dependent offsets through TT" in {
+    // 2004 APR 6, TAI - UTC = 32s
+    val jd_utc = 2453101.5
+    val out = Array.ofDim[Double](2)
+    TimeScales.convert(jd_utc, 0.25, utc, tt, out)
+    out(0) should be(jd_utc)
+    out(1) should be(0.25 + (32.0 + 32.184) / Units.julianDay +- 1E-12)
+
+    TimeScales.convert(out(0), out(1), tt, utc, out)
+    out(1) should be(0.25 +- 1E-12)
+  }
+
+  it should "support time standards that only implement the epoch based offsets" in {
+    val mock = new MockTime(10.0)
+    val out = Array.ofDim[Double](2)
+    TimeScales.convert(2451545.0, 0.0, tai, mock, out)
+    (out(0) + out(1)) should be(2451545.0 + (10.0 + 32.184) / Units.julianDay +- 1E-9)
+  }
+
+  it should "give the same result as the epoch based offsets" in {
+    val tdb = new TDBTime(JulianDate(2451545.0, tt))
+    val tcb = new TCBTime(tdb, JulianDate(2443144.5003725, tt))
+    val ut1 = new UT1Time(utc, Map[(Double, Double), UT1Provider](
+      (53000.0, 53200.0) -> new UT1Container(Map(53101.0 -> -0.439961, 53102.0 -> -0.440238))))
+
+    // Convert through TT using the epoch based offsets of both time standards, independent of the conversion chains
+    def viaOffsets(jd: Double, from: TimeStandard, to: TimeStandard) = {
+      val jd_tt = jd + from.offsetToTT(new RawEpoch(jd, from)) / Units.julianDay
+      jd_tt + to.offsetFromTT(new RawEpoch(jd_tt, tt)) / Units.julianDay
+    }
+
+    val jd = 2453101.827411875
+    val out = Array.ofDim[Double](2)
+    for ((from, to) <- Seq(utc -> tdb, tdb -> utc, utc -> tcb, tcb -> tt, tt -> tcb, utc -> ut1, ut1 -> tdb, ut1 -> tcb)) {
+      val expected = viaOffsets(jd, from, to)
+      TimeScales.convert(jd, from, to) should be(expected +- 1E-9)
+      TimeScales.convert(2453101.5, jd - 2453101.5, from, to, out)
+      (out(0) + out(1)) should be(expected +- 1E-9)
+      // The conversions actually change the date (and are not accidentally the identity)
+      math.abs(expected - jd) should be > 1E-7
+    }
+  }
+
+}
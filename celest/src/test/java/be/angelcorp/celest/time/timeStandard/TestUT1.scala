@@ -77,6 +77,29 @@ class TestUT1 extends FlatSpec with ShouldMatchers {
     } // 2012 / 8 / 21
   }
 
+  it should "follow changes to the containers" in {
+    val ut1 = new UT1Time(UTC, Map[(Double, Double), UT1Provider](
+      (0.0, 9.0) -> new UT1Container(Map(0.0 -> 0.1, 9.0 -> 0.1)),
+      (10.0, 19.0) -> new UT1Container(Map(10.0 -> 0.2, 19.0 -> 0.2))))
+
+    ut1.ut1MinusUtc(MJD.toJD(2.0)) should be(0.1)
+    ut1.ut1MinusUtc(MJD.toJD(12.0)) should be(0.2)
+    ut1.ut1MinusUtc(MJD.toJD(13.0)) should be(0.2)
+    ut1.containers((10.0, 19.0)) = new UT1Container(Map(10.0 -> 0.3, 19.0 -> 0.3))
+    ut1.ut1MinusUtc(MJD.toJD(13.0)) should be(0.3)
+    ut1.ut1MinusUtc(MJD.toJD(3.0)) should be(0.1)
+  }
+
+  it should "only load the bulk data when it is requested" in {
+    // Without a previous request, dates outside the containers are out of bounds
+    val ut1 = new UT1Time(UTC)
+    an[UT1DateOutOfBounds] should be thrownBy ut1.UT1_UTC(new JulianDate(55931, MJD, UTC), tryDownload = false)
+
+    // Time standards with containers do not load the bulk data on their own
+    val containers = new UT1Time(UTC, Map[(Double, Double), UT1Provider]((0.0, 9.0) -> new UT1Container(Map(0.0 -> 0.1))))
+    an[UT1DateOutOfBounds] should be thrownBy containers.UT1_UTC(new JulianDate(55931, MJD, UTC))
+  }
+
   it should "select Transform symmetrically" in {
     val container = new UT1Container(Map(0.0 -> 5.5, 1.0 -> 6.2, 2.0 -> 7.4, 3.0 -> 9.0, 4.0 -> 6.1, 5.0 -> 3.4, 6.0 -> 1.1, 7.0 -> -0.1, 8.0 -> -1.1, 9.0 -> -2.7))
     val ut1 = new UT1Time(UTC, Map[(Double, Double), UT1Provider]((0.0, 9.0) -> container))
@@ -81,11 +81,14 @@ class TestUTC extends FlatSpec with ShouldMatchers {
 
     // Just after (0.5s later) switch epoch in UTC-TAI=-35
     val jd_tt_1 = new JulianDate(TimeUtils.jday(2012, 7, 1, 0, 0, 0), TT).addS(35.5 + 32.184)
-    // Just before (-0.5s) switch epoch in UTC-TAI=-34
+    // During the leap second (23:59:60.5), as a quasi Julian date in the 86401 second day with UTC-TAI=-34
     val jd_tt_2 = new JulianDate(TimeUtils.jday(2012, 7, 1, 0, 0, 0), TT).addS(34.5 + 32.184)
+    // Just before (-0.5s) the leap second (23:59:59.5)
+    val jd_tt_3 = new JulianDate(TimeUtils.jday(2012, 7, 1, 0, 0, 0), TT).addS(33.5 + 32.184)
 
     utc.offsetFromTT(jd_tt_1) should be(-35 - 32.184 plusOrMinus 1E-16)
-    utc.offsetFromTT(jd_tt_2) should be(-34 - 32.184 plusOrMinus 1E-16)
+    utc.offsetFromTT(jd_tt_2) should be(-34 - 86400.5 / 86401.0 - 32.184 plusOrMinus 1E-6)
+    utc.offsetFromTT(jd_tt_3) should be(-34 - 86399.5 / 86401.0 - 32.184 plusOrMinus 1E-6)
   }
 
 }
@@ -8,7 +8,9 @@ object BuildSettings {
   val buildSettings = Defaults.defaultSettings ++ Seq(
     organization := "be.angelcorp.celest",
     version := "1.0.0-SNAPSHOT",
-    scalacOptions ++= Seq(),
+    // Java 8 is required (java.util.Spliterator and java.util.function in be.angelcorp.celest.time.TimeRange)
+    scalacOptions ++= Seq("-target:jvm-1.8"),
+    javacOptions ++= Seq("-source", "1.8", "-target", "1.8"),
     scalaVersion := "2.11.2",
 
     resolvers += Resolver.sonatypeRepo("snapshots"),